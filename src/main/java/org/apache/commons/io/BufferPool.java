@@ -0,0 +1,338 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.io;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of the byte and char arrays used as buffers by {@link IOUtils}.
+ * <p>
+ * All the arrays of a pool have the same size. {@link #acquireBytes()} takes an array from the pool, or allocates
+ * one if the pool has none, and {@link #releaseBytes(byte[])} gives it back once it is no longer used; the number
+ * of acquisitions served from the pool and of allocations are counted as hits and misses.
+ * </p>
+ * <p>
+ * Three implementations are provided: {@link #threadLocal(int)}, which keeps one array of each type per thread
+ * and is the default of {@link IOUtils}, {@link #bounded(int, int)}, which keeps a limited number of arrays
+ * shared by all the threads, and {@link #unpooled(int)}, which allocates an array for every acquisition. Other
+ * pools can be plugged in by extending this class and implementing the poll and offer methods, which must be
+ * thread-safe.
+ * </p>
+ * <p>
+ * A pooled array is reused without being cleared: the streams used with a pool must neither keep references to
+ * the arrays passed to their read and write methods, nor look at their contents outside of the given ranges.
+ * </p>
+ *
+ * @see IOUtils#setBufferPool(BufferPool)
+ * @since 2.7
+ */
+public abstract class BufferPool {
+
+    private final int bufferSize;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructs a pool.
+     *
+     * @param bufferSize the size of the arrays
+     * @throws IllegalArgumentException if the size is not positive
+     */
+    protected BufferPool(final int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Creates a pool keeping one byte array and one char array per thread. A thread acquiring a second
+     * array of a type before releasing the first one gets a new array.
+     *
+     * @param bufferSize the size of the arrays
+     * @return the pool
+     */
+    public static BufferPool threadLocal(final int bufferSize) {
+        return new ThreadLocalBufferPool(bufferSize);
+    }
+
+    /**
+     * Creates a pool shared by all the threads, keeping at most a number of arrays of each type.
+     *
+     * @param maxBuffers the maximum number of byte arrays and of char arrays kept
+     * @param bufferSize the size of the arrays
+     * @return the pool
+     */
+    public static BufferPool bounded(final int maxBuffers, final int bufferSize) {
+        return new BoundedBufferPool(maxBuffers, bufferSize);
+    }
+
+    /**
+     * Creates a pool which keeps no arrays, so that each acquisition allocates one.
+     *
+     * @param bufferSize the size of the arrays
+     * @return the pool
+     */
+    public static BufferPool unpooled(final int bufferSize) {
+        return new UnpooledBufferPool(bufferSize);
+    }
+
+    /**
+     * Gets the size of the arrays of this pool.
+     *
+     * @return the size of the arrays
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Takes a byte array from the pool, or allocates one.
+     *
+     * @return an array of the size of the pool, with unspecified contents
+     */
+    public final byte[] acquireBytes() {
+        final byte[] buffer = pollBytes();
+        if (buffer != null) {
+            hits.increment();
+            return buffer;
+        }
+        misses.increment();
+        return new byte[bufferSize];
+    }
+
+    /**
+     * Gives back a byte array acquired from this pool. Arrays of another size are ignored.
+     *
+     * @param buffer the array, which must no longer be used, may be null
+     */
+    public final void releaseBytes(final byte[] buffer) {
+        if (buffer != null && buffer.length == bufferSize) {
+            offerBytes(buffer);
+        }
+    }
+
+    /**
+     * Takes a char array from the pool, or allocates one.
+     *
+     * @return an array of the size of the pool, with unspecified contents
+     */
+    public final char[] acquireChars() {
+        final char[] buffer = pollChars();
+        if (buffer != null) {
+            hits.increment();
+            return buffer;
+        }
+        misses.increment();
+        return new char[bufferSize];
+    }
+
+    /**
+     * Gives back a char array acquired from this pool. Arrays of another size are ignored.
+     *
+     * @param buffer the array, which must no longer be used, may be null
+     */
+    public final void releaseChars(final char[] buffer) {
+        if (buffer != null && buffer.length == bufferSize) {
+            offerChars(buffer);
+        }
+    }
+
+    /**
+     * Gets the number of acquisitions served with a pooled array.
+     *
+     * @return the number of hits
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of acquisitions which allocated an array.
+     *
+     * @return the number of misses
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Resets the hit and miss counts to zero.
+     */
+    public void resetCounts() {
+        hits.reset();
+        misses.reset();
+    }
+
+    /**
+     * Takes a byte array from the pool.
+     *
+     * @return an array of the size of the pool, or null if there is none
+     */
+    protected abstract byte[] pollBytes();
+
+    /**
+     * Adds a byte array to the pool, unless the pool is full.
+     *
+     * @param buffer an array of the size of the pool
+     */
+    protected abstract void offerBytes(byte[] buffer);
+
+    /**
+     * Takes a char array from the pool.
+     *
+     * @return an array of the size of the pool, or null if there is none
+     */
+    protected abstract char[] pollChars();
+
+    /**
+     * Adds a char array to the pool, unless the pool is full.
+     *
+     * @param buffer an array of the size of the pool
+     */
+    protected abstract void offerChars(char[] buffer);
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[bufferSize=" + bufferSize + ", hits=" + getHitCount() + ", misses="
+                + getMissCount() + "]";
+    }
+
+    /**
+     * Keeps one array of each type per thread.
+     */
+    private static class ThreadLocalBufferPool extends BufferPool {
+
+        /** A slot per thread, empty while the array is in use. */
+        private final ThreadLocal<byte[][]> bytes = new ThreadLocal<byte[][]>() {
+            @Override
+            protected byte[][] initialValue() {
+                return new byte[1][];
+            }
+        };
+
+        private final ThreadLocal<char[][]> chars = new ThreadLocal<char[][]>() {
+            @Override
+            protected char[][] initialValue() {
+                return new char[1][];
+            }
+        };
+
+        ThreadLocalBufferPool(final int bufferSize) {
+            super(bufferSize);
+        }
+
+        @Override
+        protected byte[] pollBytes() {
+            final byte[][] slot = bytes.get();
+            final byte[] buffer = slot[0];
+            slot[0] = null;
+            return buffer;
+        }
+
+        @Override
+        protected void offerBytes(final byte[] buffer) {
+            bytes.get()[0] = buffer;
+        }
+
+        @Override
+        protected char[] pollChars() {
+            final char[][] slot = chars.get();
+            final char[] buffer = slot[0];
+            slot[0] = null;
+            return buffer;
+        }
+
+        @Override
+        protected void offerChars(final char[] buffer) {
+            chars.get()[0] = buffer;
+        }
+    }
+
+    /**
+     * Keeps a bounded number of arrays shared by all the threads.
+     */
+    private static class BoundedBufferPool extends BufferPool {
+
+        private final BlockingQueue<byte[]> bytes;
+
+        private final BlockingQueue<char[]> chars;
+
+        BoundedBufferPool(final int maxBuffers, final int bufferSize) {
+            super(bufferSize);
+            if (maxBuffers <= 0) {
+                throw new IllegalArgumentException("Maximum number of buffers must be positive: " + maxBuffers);
+            }
+            bytes = new ArrayBlockingQueue<>(maxBuffers);
+            chars = new ArrayBlockingQueue<>(maxBuffers);
+        }
+
+        @Override
+        protected byte[] pollBytes() {
+            return bytes.poll();
+        }
+
+        @Override
+        protected void offerBytes(final byte[] buffer) {
+            bytes.offer(buffer);
+        }
+
+        @Override
+        protected char[] pollChars() {
+            return chars.poll();
+        }
+
+        @Override
+        protected void offerChars(final char[] buffer) {
+            chars.offer(buffer);
+        }
+    }
+
+    /**
+     * Keeps no arrays.
+     */
+    private static class UnpooledBufferPool extends BufferPool {
+
+        UnpooledBufferPool(final int bufferSize) {
+            super(bufferSize);
+        }
+
+        @Override
+        protected byte[] pollBytes() {
+            return null;
+        }
+
+        @Override
+        protected void offerBytes(final byte[] buffer) {
+            // dropped
+        }
+
+        @Override
+        protected char[] pollChars() {
+            return null;
+        }
+
+        @Override
+        protected void offerChars(final char[] buffer) {
+            // dropped
+        }
+    }
+}
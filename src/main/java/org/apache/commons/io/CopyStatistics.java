@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.io;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the directories, files and bytes copied by a directory copy.
+ * <p>
+ * The counters may be updated concurrently by the threads performing a parallel copy.
+ * </p>
+ *
+ * @see FileUtils#copyDirectory(java.io.File, java.io.File, java.io.FileFilter, boolean,
+ * java.util.concurrent.ForkJoinPool)
+ * @since 2.7
+ */
+public class CopyStatistics {
+
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder directories = new LongAdder();
+    private final LongAdder files = new LongAdder();
+
+    /**
+     * Records a copied directory.
+     */
+    void addDirectory() {
+        directories.increment();
+    }
+
+    /**
+     * Records a copied file.
+     *
+     * @param length the number of bytes copied
+     */
+    void addFile(final long length) {
+        files.increment();
+        bytes.add(length);
+    }
+
+    /**
+     * Gets the number of bytes copied.
+     *
+     * @return the number of bytes copied
+     */
+    public long getByteCount() {
+        return bytes.sum();
+    }
+
+    /**
+     * Gets the number of directories copied, including the top level directory.
+     *
+     * @return the number of directories copied
+     */
+    public long getDirectoryCount() {
+        return directories.sum();
+    }
+
+    /**
+     * Gets the number of files copied.
+     *
+     * @return the number of files copied
+     */
+    public long getFileCount() {
+        return files.sum();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[directories=" + getDirectoryCount() + ", files=" + getFileCount()
+                + ", bytes=" + getByteCount() + "]";
+    }
+}
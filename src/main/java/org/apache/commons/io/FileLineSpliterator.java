@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.io;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A spliterator over the lines of a range of bytes of a file.
+ * <p>
+ * The range is split at a line feed near its middle, so that each part holds whole lines. This is only
+ * correct for charsets in which the line feed byte can not be part of another character, see
+ * {@link #isSplittable(Charset)}. The bytes are read with positional reads, so that the parts can be
+ * traversed by several threads on the same channel, which is not closed by this class.
+ * </p>
+ *
+ * @since 2.7
+ */
+class FileLineSpliterator implements Spliterator<String> {
+
+    /** The smallest range worth splitting, in bytes. */
+    private static final int MIN_SPLIT_SIZE = 8192;
+
+    /** The size of the buffers used to read the file. */
+    private static final int BUFFER_SIZE = 8192;
+
+    private final FileChannel channel;
+    private final Charset charset;
+
+    /** The first byte of the range. */
+    private long start;
+
+    /** The end of the range, exclusive. */
+    private final long end;
+
+    /** The reader of the range, once the traversal has started. */
+    private BufferedReader reader;
+
+    /**
+     * Constructs a spliterator.
+     *
+     * @param channel the channel of the file
+     * @param charset the charset of the file, which must be {@link #isSplittable(Charset) splittable}
+     * @param start the first byte of the range
+     * @param end the end of the range, exclusive
+     */
+    FileLineSpliterator(final FileChannel channel, final Charset charset, final long start, final long end) {
+        this.channel = channel;
+        this.charset = charset;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Tells whether the lines of a file in a charset can be split at line feed bytes.
+     *
+     * @param charset the charset
+     * @return true for UTF-8 and the single byte charsets compatible with US-ASCII
+     */
+    static boolean isSplittable(final Charset charset) {
+        return charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII)
+                || charset.equals(StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super String> action) {
+        final String line = readLine();
+        if (line == null) {
+            return false;
+        }
+        action.accept(line);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(final Consumer<? super String> action) {
+        String line;
+        while ((line = readLine()) != null) {
+            action.accept(line);
+        }
+    }
+
+    /**
+     * Splits off the lines of the first half of the range, unless the traversal has started.
+     *
+     * @return the spliterator of the first half, or null
+     */
+    @Override
+    public Spliterator<String> trySplit() {
+        if (reader != null || end - start < MIN_SPLIT_SIZE) {
+            return null;
+        }
+        final long split;
+        try {
+            split = nextLineStart(start + (end - start) / 2);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (split >= end) {
+            return null;
+        }
+        final Spliterator<String> prefix = new FileLineSpliterator(channel, charset, start, split);
+        start = split;
+        return prefix;
+    }
+
+    /**
+     * Estimates the number of lines from the number of bytes.
+     *
+     * @return the number of bytes left
+     */
+    @Override
+    public long estimateSize() {
+        return reader == null ? end - start : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    /**
+     * Finds the first byte after the first line feed at or after a position.
+     *
+     * @param position where to start looking
+     * @return the position of the start of the next line, or the end of the range if there is none
+     * @throws IOException if an I/O error occurs
+     */
+    private long nextLineStart(final long position) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long pos = position;
+        while (pos < end) {
+            // cast for Java 8 compatibility, Java 9 overrides the method with a covariant return type
+            ((Buffer) buffer).clear();
+            ((Buffer) buffer).limit((int) Math.min(buffer.capacity(), end - pos));
+            final int n = channel.read(buffer, pos);
+            if (n < 0) {
+                return end;
+            }
+            for (int i = 0; i < n; i++) {
+                if (buffer.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += n;
+        }
+        return end;
+    }
+
+    /**
+     * Reads the next line of the range.
+     *
+     * @return the line, or null at the end of the range
+     */
+    private String readLine() {
+        try {
+            if (reader == null) {
+                reader = new BufferedReader(new InputStreamReader(new RangeInputStream(), charset), BUFFER_SIZE);
+            }
+            return reader.readLine();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the bytes of the range with positional reads.
+     */
+    private class RangeInputStream extends InputStream {
+
+        private long position = start;
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? IOUtils.EOF : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= end) {
+                return IOUtils.EOF;
+            }
+            final int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+            if (n > 0) {
+                position += n;
+            }
+            return n;
+        }
+    }
+}
@@ -27,20 +27,31 @@
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.math.BigInteger;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import java.util.zip.CRC32;
 import java.util.zip.CheckedInputStream;
 import java.util.zip.Checksum;
@@ -175,6 +186,16 @@ public FileUtils() {
      */
     public static final File[] EMPTY_FILE_ARRAY = new File[0];
 
+    /**
+     * The size of the regions mapped by {@link #contentEquals(File, File, int, boolean)}.
+     */
+    private static final long CONTENT_EQUALS_REGION_SIZE = 64 * ONE_MB;
+
+    /**
+     * The size of the blocks compared by the sampled pre-check of {@link #contentEquals(File, File, int)}.
+     */
+    private static final int CONTENT_EQUALS_SAMPLE_SIZE = 4096;
+
     //-----------------------------------------------------------------------
     /**
      * Construct a file from the set of name elements.
@@ -736,7 +757,7 @@ public static Iterator<File> iterateFiles(
      * Compares the contents of two files to determine if they are equal or not.
      * <p>
      * This method checks to see if the two files are different lengths
-     * or if they point to the same file, before resorting to byte-by-byte
+     * or if they point to the same file, before resorting to a block by block
      * comparison of the contents.
      * </p>
      * <p>
@@ -750,6 +771,57 @@ public static Iterator<File> iterateFiles(
      * @throws IOException in case of an I/O error
      */
     public static boolean contentEquals(final File file1, final File file2) throws IOException {
+        return contentEquals(file1, file2, 0);
+    }
+
+    /**
+     * Compares the contents of two files to determine if they are equal or not,
+     * comparing samples of the files first.
+     * <p>
+     * This method behaves like {@link #contentEquals(File, File)}, but first compares
+     * blocks of a few kilobytes spread evenly over the files, so that large files
+     * differing in many places are told apart without reading them entirely.
+     * </p>
+     *
+     * @param file1 the first file
+     * @param file2 the second file
+     * @param samples the number of blocks to compare first, 0 for none
+     * @return true if the content of the files are equal or they both don't
+     * exist, false otherwise
+     * @throws IOException in case of an I/O error
+     * @since 2.7
+     */
+    public static boolean contentEquals(final File file1, final File file2, final int samples) throws IOException {
+        return contentEquals(file1, file2, samples, false);
+    }
+
+    /**
+     * Compares the contents of two files to determine if they are equal or not,
+     * comparing samples of the files first and optionally mapping the files in memory.
+     * <p>
+     * This method behaves like {@link #contentEquals(File, File, int)}, but can compare
+     * the files as memory mapped regions of up to 64 megabytes instead of reading them.
+     * The regions are only unmapped when they are garbage collected: until then, on some
+     * platforms such as Windows, the files can neither be deleted nor renamed, and the
+     * mappings of many calls in a row use up address space. A file truncated while it is
+     * compared may also fail with an {@link InternalError} or crash the JVM rather than
+     * throw an {@link IOException}. Only map files which are not modified concurrently.
+     * </p>
+     *
+     * @param file1 the first file
+     * @param file2 the second file
+     * @param samples the number of blocks to compare first, 0 for none
+     * @param map whether to compare memory mapped regions of the files instead of reading them
+     * @return true if the content of the files are equal or they both don't
+     * exist, false otherwise
+     * @throws IOException in case of an I/O error
+     * @since 2.7
+     */
+    public static boolean contentEquals(final File file1, final File file2, final int samples, final boolean map)
+            throws IOException {
+        if (samples < 0) {
+            throw new IllegalArgumentException("Negative number of samples: " + samples);
+        }
         final boolean file1Exists = file1.exists();
         if (file1Exists != file2.exists()) {
             return false;
@@ -775,12 +847,127 @@ public static boolean contentEquals(final File file1, final File file2) throws I
             return true;
         }
 
-        try (InputStream input1 = new FileInputStream(file1);
-             InputStream input2 = new FileInputStream(file2)) {
-            return IOUtils.contentEquals(input1, input2);
+        try (FileChannel channel1 = FileChannel.open(file1.toPath(), StandardOpenOption.READ);
+             FileChannel channel2 = FileChannel.open(file2.toPath(), StandardOpenOption.READ)) {
+            final long size = channel1.size();
+            if (size != channel2.size()) {
+                // changed since checked
+                return false;
+            }
+            if (samples > 0 && size > (long) samples * CONTENT_EQUALS_SAMPLE_SIZE
+                    && !samplesEqual(channel1, channel2, size, samples)) {
+                return false;
+            }
+            return map ? regionsEqual(channel1, channel2, size) : blocksEqual(channel1, channel2, size);
         }
     }
 
+    /**
+     * Compares two files of the same size by reading blocks into buffers taken from the
+     * {@link IOUtils#getBufferPool() buffer pool}.
+     *
+     * @param channel1 the channel of the first file
+     * @param channel2 the channel of the second file
+     * @param size the size of the files
+     * @return true if the files are equal
+     * @throws IOException in case of an I/O error
+     */
+    private static boolean blocksEqual(final FileChannel channel1, final FileChannel channel2, final long size)
+            throws IOException {
+        final BufferPool pool = IOUtils.getBufferPool();
+        final byte[] array1 = pool.acquireBytes();
+        final byte[] array2 = pool.acquireBytes();
+        try {
+            final ByteBuffer buffer1 = ByteBuffer.wrap(array1);
+            final ByteBuffer buffer2 = ByteBuffer.wrap(array2);
+            for (long position = 0; position < size; position += array1.length) {
+                readSample(channel1, buffer1, position);
+                readSample(channel2, buffer2, position);
+                if (!buffer1.equals(buffer2)) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            pool.releaseBytes(array2);
+            pool.releaseBytes(array1);
+        }
+    }
+
+    /**
+     * Compares two files of the same size by memory mapped regions.
+     *
+     * @param channel1 the channel of the first file
+     * @param channel2 the channel of the second file
+     * @param size the size of the files
+     * @return true if the files are equal
+     * @throws IOException in case of an I/O error
+     */
+    private static boolean regionsEqual(final FileChannel channel1, final FileChannel channel2, final long size)
+            throws IOException {
+        for (long position = 0; position < size; position += CONTENT_EQUALS_REGION_SIZE) {
+            final long length = Math.min(CONTENT_EQUALS_REGION_SIZE, size - position);
+            final MappedByteBuffer region1 = channel1.map(FileChannel.MapMode.READ_ONLY, position, length);
+            final MappedByteBuffer region2 = channel2.map(FileChannel.MapMode.READ_ONLY, position, length);
+            if (!region1.equals(region2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares blocks spread evenly over two files of the same size.
+     *
+     * @param channel1 the channel of the first file
+     * @param channel2 the channel of the second file
+     * @param size the size of the files, larger than all the blocks
+     * @param samples the number of blocks
+     * @return true if the blocks are equal
+     * @throws IOException in case of an I/O error
+     */
+    private static boolean samplesEqual(final FileChannel channel1, final FileChannel channel2, final long size,
+            final int samples) throws IOException {
+        final ByteBuffer buffer1 = ByteBuffer.allocate(CONTENT_EQUALS_SAMPLE_SIZE);
+        final ByteBuffer buffer2 = ByteBuffer.allocate(CONTENT_EQUALS_SAMPLE_SIZE);
+        final long last = size - CONTENT_EQUALS_SAMPLE_SIZE;
+        for (int i = 0; i < samples; i++) {
+            // the first and last blocks, and blocks in between
+            final long position;
+            if (samples == 1) {
+                position = last / 2;
+            } else {
+                position = i == samples - 1 ? last : last / (samples - 1) * i;
+            }
+            readSample(channel1, buffer1, position);
+            readSample(channel2, buffer2, position);
+            if (!buffer1.equals(buffer2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads a block of a file into a buffer, which is then ready to be read.
+     *
+     * @param channel the channel of the file
+     * @param buffer the buffer to fill
+     * @param position the position of the block
+     * @throws IOException in case of an I/O error
+     */
+    private static void readSample(final FileChannel channel, final ByteBuffer buffer, final long position)
+            throws IOException {
+        // cast for Java 8 compatibility, Java 9 overrides the method with a covariant return type
+        ((Buffer) buffer).clear();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) == IOUtils.EOF) {
+                break;
+            }
+        }
+        ((Buffer) buffer).flip();
+    }
+
     //-----------------------------------------------------------------------
     /**
      * Compares the contents of two files to determine if they are equal or not.
@@ -1142,13 +1329,14 @@ public static long copyFile(final File input, final OutputStream output) throws
      * @param srcFile          the validated source file, must not be {@code null}
      * @param destFile         the validated destination file, must not be {@code null}
      * @param preserveFileDate whether to preserve the file date
+     * @return the number of bytes copied
      * @throws IOException              if an error occurs
      * @throws IOException              if the output file length is not the same as the input file length after the
      * copy completes
      * @throws IllegalArgumentException "Negative size" if the file is truncated so that the size is less than the
      * position
      */
-    private static void doCopyFile(final File srcFile, final File destFile, final boolean preserveFileDate)
+    private static long doCopyFile(final File srcFile, final File destFile, final boolean preserveFileDate)
             throws IOException {
         if (destFile.exists() && destFile.isDirectory()) {
             throw new IOException("Destination '" + destFile + "' exists but is a directory");
@@ -1165,6 +1353,7 @@ private static void doCopyFile(final File srcFile, final File destFile, final bo
         checkEqualSizes(srcFile, destFile, srcFile.length(), destFile.length());
 
         destFile.setLastModified(newLastModifed);
+        return destFile.length();
     }
 
     /**
@@ -1393,27 +1582,100 @@ public static void copyDirectory(final File srcDir, final File destDir,
      */
     public static void copyDirectory(final File srcDir, final File destDir,
                                      final FileFilter filter, final boolean preserveFileDate) throws IOException {
+        final Set<String> exclusionSet = checkCopyDirectoryRequirements(srcDir, destDir, filter);
+        doCopyDirectory(srcDir, destDir, filter, preserveFileDate, exclusionSet, null);
+    }
+
+    /**
+     * Copies a filtered directory to a new location, walking the source tree and copying files concurrently on the
+     * given pool.
+     * <p>
+     * This method behaves like {@link #copyDirectory(File, File, FileFilter, boolean)}, except that each
+     * subdirectory is copied by its own task and the files of a directory are copied in batches by further tasks.
+     * This pays off for trees with many files on storage that handles concurrent I/O well, such as SSDs.
+     * </p>
+     * <p>
+     * If the copy fails, the first error is rethrown and the destination may have been partially copied. Since the
+     * copy tasks block on I/O, a pool dedicated to copying is preferable to the common pool.
+     * </p>
+     * <p>
+     * <strong>Note:</strong> Setting <code>preserveFileDate</code> to
+     * {@code true} tries to preserve the files' last modified
+     * date/times using {@link File#setLastModified(long)}, however it is
+     * not guaranteed that those operations will succeed.
+     * If the modification operation fails, no indication is provided.
+     * </p>
+     *
+     * @param srcDir           an existing directory to copy, must not be {@code null}
+     * @param destDir          the new directory, must not be {@code null}
+     * @param filter           the filter to apply, null means copy all directories and files
+     * @param preserveFileDate true if the file date of the copy
+     *                         should be the same as the original
+     * @param pool             the pool to run the copy on, null means a new pool sized to the number of processors,
+     *                         shut down when the copy completes
+     * @return the number of directories, files and bytes copied
+     *
+     * @throws NullPointerException if source or destination is {@code null}
+     * @throws IOException          if source or destination is invalid
+     * @throws IOException          if an IO error occurs during copying
+     * @since 2.7
+     */
+    public static CopyStatistics copyDirectory(final File srcDir, final File destDir, final FileFilter filter,
+            final boolean preserveFileDate, final ForkJoinPool pool) throws IOException {
+        final Set<String> exclusionSet = checkCopyDirectoryRequirements(srcDir, destDir, filter);
+        final CopyStatistics statistics = new CopyStatistics();
+        final ForkJoinPool copyPool = pool == null ? new ForkJoinPool() : pool;
+        try {
+            copyPool.invoke(new CopyDirectoryTask(srcDir, destDir, filter, preserveFileDate, exclusionSet,
+                    statistics));
+        } catch (final UncheckedIOException e) {
+            Throwable cause = e;
+            while (cause instanceof UncheckedIOException) {
+                cause = cause.getCause();
+            }
+            throw (IOException) cause;
+        } finally {
+            if (pool == null) {
+                copyPool.shutdown();
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Checks requirements for directory copy and computes the paths to exclude from it.
+     *
+     * @param srcDir  the source directory
+     * @param destDir the destination directory
+     * @param filter  the filter to apply, null means copy all directories and files
+     * @return the canonical paths to exclude from the copy, null if none
+     * @throws IOException if source or destination is invalid
+     */
+    private static Set<String> checkCopyDirectoryRequirements(final File srcDir, final File destDir,
+            final FileFilter filter) throws IOException {
         checkFileRequirements(srcDir, destDir);
         if (!srcDir.isDirectory()) {
             throw new IOException("Source '" + srcDir + "' exists but is not a directory");
         }
-        if (srcDir.getCanonicalPath().equals(destDir.getCanonicalPath())) {
+        final String srcPath = srcDir.getCanonicalPath();
+        final String destPath = destDir.getCanonicalPath();
+        if (srcPath.equals(destPath)) {
             throw new IOException("Source '" + srcDir + "' and destination '" + destDir + "' are the same");
         }
 
         // Cater for destination being directory within the source directory (see IO-141)
-        List<String> exclusionList = null;
-        if (destDir.getCanonicalPath().startsWith(srcDir.getCanonicalPath())) {
+        Set<String> exclusionSet = null;
+        if (destPath.startsWith(srcPath)) {
             final File[] srcFiles = filter == null ? srcDir.listFiles() : srcDir.listFiles(filter);
             if (srcFiles != null && srcFiles.length > 0) {
-                exclusionList = new ArrayList<>(srcFiles.length);
+                exclusionSet = new HashSet<>(srcFiles.length * 2);
                 for (final File srcFile : srcFiles) {
                     final File copiedFile = new File(destDir, srcFile.getName());
-                    exclusionList.add(copiedFile.getCanonicalPath());
+                    exclusionSet.add(copiedFile.getCanonicalPath());
                 }
             }
         }
-        doCopyDirectory(srcDir, destDir, filter, preserveFileDate, exclusionList);
+        return exclusionSet;
     }
 
     /**
@@ -1442,14 +1704,50 @@ private static void checkFileRequirements(final File src, final File dest) throw
      * @param destDir          the validated destination directory, must not be {@code null}
      * @param filter           the filter to apply, null means copy all directories and files
      * @param preserveFileDate whether to preserve the file date
-     * @param exclusionList    List of files and directories to exclude from the copy, may be null
+     * @param exclusionSet     Set of files and directories to exclude from the copy, may be null
+     * @param task             the parallel copy task to fork subdirectories and files to, null to copy them in the
+     *                         calling thread
      * @throws IOException if an error occurs
      * @since 1.1
      */
     private static void doCopyDirectory(final File srcDir, final File destDir, final FileFilter filter,
-                                        final boolean preserveFileDate, final List<String> exclusionList)
+                                        final boolean preserveFileDate, final Set<String> exclusionSet,
+                                        final CopyDirectoryTask task)
             throws IOException {
         // recurse
+        final File[] srcFiles = listFilesToCopy(srcDir, destDir, filter);
+        if (task != null) {
+            task.forkCopies(srcFiles);
+        } else {
+            for (final File srcFile : srcFiles) {
+                if (exclusionSet == null || !exclusionSet.contains(srcFile.getCanonicalPath())) {
+                    final File dstFile = new File(destDir, srcFile.getName());
+                    if (srcFile.isDirectory()) {
+                        doCopyDirectory(srcFile, dstFile, filter, preserveFileDate, exclusionSet, null);
+                    } else {
+                        doCopyFile(srcFile, dstFile, preserveFileDate);
+                    }
+                }
+            }
+        }
+
+        // Do this last, as the above has probably affected directory metadata
+        if (preserveFileDate) {
+            destDir.setLastModified(srcDir.lastModified());
+        }
+    }
+
+    /**
+     * Lists the files of a source directory and makes sure the destination directory exists and is writable.
+     *
+     * @param srcDir  the validated source directory, must not be {@code null}
+     * @param destDir the validated destination directory, must not be {@code null}
+     * @param filter  the filter to apply, null means copy all directories and files
+     * @return the files to copy
+     * @throws IOException if an error occurs
+     */
+    private static File[] listFilesToCopy(final File srcDir, final File destDir, final FileFilter filter)
+            throws IOException {
         final File[] srcFiles = filter == null ? srcDir.listFiles() : srcDir.listFiles(filter);
         if (srcFiles == null) {  // null if abstract pathname does not denote a directory, or if an I/O error occurs
             throw new IOException("Failed to list contents of " + srcDir);
@@ -1466,20 +1764,105 @@ private static void doCopyDirectory(final File srcDir, final File destDir, final
         if (destDir.canWrite() == false) {
             throw new IOException("Destination '" + destDir + "' cannot be written to");
         }
-        for (final File srcFile : srcFiles) {
-            final File dstFile = new File(destDir, srcFile.getName());
-            if (exclusionList == null || !exclusionList.contains(srcFile.getCanonicalPath())) {
-                if (srcFile.isDirectory()) {
-                    doCopyDirectory(srcFile, dstFile, filter, preserveFileDate, exclusionList);
-                } else {
-                    doCopyFile(srcFile, dstFile, preserveFileDate);
+        return srcFiles;
+    }
+
+    /**
+     * Copies a directory as part of a parallel directory copy.
+     * <p>
+     * Each subdirectory is copied by a new task and the files are copied in batches of
+     * {@link #COPY_BATCH_SIZE} files by further tasks. The directory date is set once all the
+     * subtasks have completed. I/O errors are rethrown as {@link UncheckedIOException}.
+     * </p>
+     */
+    private static final class CopyDirectoryTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /** The number of files copied by a single task. */
+        private static final int COPY_BATCH_SIZE = 64;
+
+        private final File srcDir;
+        private final File destDir;
+        private final FileFilter filter;
+        private final boolean preserveFileDate;
+        private final Set<String> exclusionSet;
+        private final CopyStatistics statistics;
+
+        CopyDirectoryTask(final File srcDir, final File destDir, final FileFilter filter,
+                final boolean preserveFileDate, final Set<String> exclusionSet, final CopyStatistics statistics) {
+            this.srcDir = srcDir;
+            this.destDir = destDir;
+            this.filter = filter;
+            this.preserveFileDate = preserveFileDate;
+            this.exclusionSet = exclusionSet;
+            this.statistics = statistics;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                doCopyDirectory(srcDir, destDir, filter, preserveFileDate, exclusionSet, this);
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            statistics.addDirectory();
+        }
+
+        /**
+         * Forks the copies of the given directory entries and waits for them to complete.
+         *
+         * @param srcFiles the entries of the source directory
+         * @throws IOException if an error occurs
+         */
+        void forkCopies(final File[] srcFiles) throws IOException {
+            final List<RecursiveAction> tasks = new ArrayList<>();
+            final List<File> batch = new ArrayList<>(COPY_BATCH_SIZE);
+            for (final File srcFile : srcFiles) {
+                if (exclusionSet == null || !exclusionSet.contains(srcFile.getCanonicalPath())) {
+                    final File dstFile = new File(destDir, srcFile.getName());
+                    if (srcFile.isDirectory()) {
+                        tasks.add(new CopyDirectoryTask(srcFile, dstFile, filter, preserveFileDate, exclusionSet,
+                                statistics));
+                    } else {
+                        batch.add(srcFile);
+                        if (batch.size() == COPY_BATCH_SIZE) {
+                            tasks.add(new CopyFilesTask(batch.toArray(new File[COPY_BATCH_SIZE])));
+                            batch.clear();
+                        }
+                    }
                 }
             }
+            if (!batch.isEmpty()) {
+                tasks.add(new CopyFilesTask(batch.toArray(new File[batch.size()])));
+            }
+            invokeAll(tasks);
         }
 
-        // Do this last, as the above has probably affected directory metadata
-        if (preserveFileDate) {
-            destDir.setLastModified(srcDir.lastModified());
+        /**
+         * Copies a batch of files of the enclosing directory.
+         */
+        private final class CopyFilesTask extends RecursiveAction {
+
+            private static final long serialVersionUID = 1L;
+
+            private final File[] srcFiles;
+
+            CopyFilesTask(final File[] srcFiles) {
+                this.srcFiles = srcFiles;
+            }
+
+            @Override
+            protected void compute() {
+                for (final File srcFile : srcFiles) {
+                    try {
+                        statistics.addFile(doCopyFile(srcFile, new File(destDir, srcFile.getName()),
+                                preserveFileDate));
+                    } catch (final IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }
         }
     }
 
@@ -1862,8 +2245,9 @@ public static boolean waitFor(final File file, final int seconds) {
      * @since 2.3
      */
     public static String readFileToString(final File file, final Charset encoding) throws IOException {
-        try (InputStream in = openInputStream(file)) {
-            return IOUtils.toString(in, Charsets.toCharset(encoding));
+        try (FileInputStream in = openInputStream(file)) {
+            // decoded at once if the size is known, see IO-453 for files with no length
+            return IOUtils.toStringWithSizeHint(in, Charsets.toCharset(encoding), in.getChannel().size());
         }
     }
 
@@ -1908,10 +2292,10 @@ public static String readFileToString(final File file) throws IOException {
      * @since 1.1
      */
     public static byte[] readFileToByteArray(final File file) throws IOException {
-        try (InputStream in = openInputStream(file)) {
-            final long fileLength = file.length();
-            // file.length() may return 0 for system-dependent entities, treat 0 as unknown length - see IO-453
-            return fileLength > 0 ? IOUtils.toByteArray(in, fileLength) : IOUtils.toByteArray(in);
+        try (FileInputStream in = openInputStream(file)) {
+            // the size of the opened file, which may differ from the length the file had when the method
+            // was called; 0 is treated as unknown for system-dependent entities - see IO-453
+            return IOUtils.toByteArrayWithSizeHint(in, in.getChannel().size());
         }
     }
 
@@ -2026,6 +2410,56 @@ public static LineIterator lineIterator(final File file) throws IOException {
         return lineIterator(file, null);
     }
 
+    /**
+     * Returns a Stream of the lines in a <code>File</code>.
+     * <p>
+     * The lines are read lazily, as the stream is consumed, so that files
+     * larger than the memory can be processed. The file is closed when the
+     * returned stream is closed, so the stream should be used in a
+     * try-with-resources statement:
+     * </p>
+     * <pre>
+     * try (Stream&lt;String&gt; lines = FileUtils.lines(file, StandardCharsets.UTF_8)) {
+     *   long errors = lines.parallel().filter(line -&gt; line.contains("ERROR")).count();
+     * }
+     * </pre>
+     * <p>
+     * For the UTF-8, US-ASCII and ISO-8859-1 encodings, the bytes of the
+     * file are split at line feeds into ranges, which a parallel stream
+     * processes concurrently; a file which changes while its lines are read
+     * may give inconsistent results. For the other encodings, the lines are
+     * read sequentially, as are the lines of the files which report a size
+     * of 0, such as some system files. I/O errors which occur while the
+     * lines are read are thrown as {@link UncheckedIOException}.
+     * </p>
+     *
+     * @param file     the file to read, must not be {@code null}
+     * @param encoding the encoding to use, {@code null} means platform default
+     * @return a Stream of the lines, never {@code null}
+     * @throws IOException in case of an I/O error opening the file
+     * @since 2.7
+     */
+    public static Stream<String> lines(final File file, final Charset encoding) throws IOException {
+        final Charset charset = Charsets.toCharset(encoding);
+        if (!FileLineSpliterator.isSplittable(charset)) {
+            return IOUtils.lines(openInputStream(file), charset);
+        }
+        final FileInputStream in = openInputStream(file);
+        final FileChannel channel = in.getChannel();
+        try {
+            final long size = channel.size();
+            if (size == 0) {
+                // system files such as those of procfs report a size of 0, read them to the end
+                return IOUtils.lines(in, charset);
+            }
+            final FileLineSpliterator spliterator = new FileLineSpliterator(channel, charset, 0, size);
+            return StreamSupport.stream(spliterator, false).onClose(IOUtils.closer(channel));
+        } catch (final IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
     //-----------------------------------------------------------------------
 
     /**
@@ -25,6 +25,8 @@
 import java.io.Closeable;
 import java.io.EOFException;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -32,6 +34,7 @@
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.net.HttpURLConnection;
 import java.net.ServerSocket;
@@ -39,14 +42,19 @@
 import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.Selector;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.apache.commons.io.output.ByteArrayOutputStream;
 import org.apache.commons.io.output.StringBuilderWriter;
@@ -86,6 +94,10 @@
  * which calls {@link #copy(InputStream, OutputStream, int)} which creates the buffer and calls
  * {@link #copyLarge(InputStream, OutputStream, byte[])}.
  * <p>
+ * When both streams are plain {@link FileInputStream} and {@link FileOutputStream} instances, the
+ * <code>copyLarge</code> methods transfer the data between the underlying {@link FileChannel}s, which allows the
+ * operating system to copy the bytes without moving them through the Java heap.
+ * <p>
  * Applications can re-use buffers by using the underlying methods directly.
  * This may improve performance for applications that need to do a lot of copying.
  * <p>
@@ -147,23 +159,44 @@ public class IOUtils {
     private static final int DEFAULT_BUFFER_SIZE = 1024 * 4;
 
     /**
-     * The default buffer size to use for the skip() methods.
+     * The largest array size the virtual machines are known to allocate.
+     */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * The largest number of bytes read at once and decoded into a String; longer inputs are decoded as they
+     * are read, so that the bytes and their characters are not held in memory together.
+     */
+    private static final int MAX_DECODE_AT_ONCE_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * The pool of the buffers of the copy, skip and compare methods.
+     */
+    private static volatile BufferPool bufferPool = BufferPool.threadLocal(DEFAULT_BUFFER_SIZE);
+
+    /**
+     * Gets the pool of the buffers used internally by the copy, skip, compare and
+     * toString methods.
+     *
+     * @return the buffer pool, by default a {@link BufferPool#threadLocal(int) thread-local}
+     *         pool of 4096 element arrays
+     * @since 2.7
      */
-    private static final int SKIP_BUFFER_SIZE = 2048;
+    public static BufferPool getBufferPool() {
+        return bufferPool;
+    }
 
-    // Allocated in the relevant skip method if necessary.
-    /*
-     * These buffers are static and are shared between threads.
-     * This is possible because the buffers are write-only - the contents are never read.
+    /**
+     * Sets the pool of the buffers used internally by the copy, skip, compare and
+     * toString methods. The pool affects the whole class loader, and the methods
+     * running while it is changed keep the previous pool.
      *
-     * N.B. there is no need to synchronize when creating these because:
-     * - we don't care if the buffer is created multiple times (the data is ignored)
-     * - we always use the same size buffer, so if it it is recreated it will still be OK
-     * (if the buffer size were variable, we would need to synch. to ensure some other thread
-     * did not create a smaller one)
+     * @param pool the buffer pool, null to restore the default
+     * @since 2.7
      */
-    private static char[] SKIP_CHAR_BUFFER;
-    private static byte[] SKIP_BYTE_BUFFER;
+    public static void setBufferPool(final BufferPool pool) {
+        bufferPool = pool != null ? pool : BufferPool.threadLocal(DEFAULT_BUFFER_SIZE);
+    }
 
     /**
      * Returns the given InputStream if it is already a {@link BufferedInputStream}, otherwise creates a
@@ -660,8 +693,8 @@ public static void closeQuietly(final Writer output) {
      * Compares the contents of two Streams to determine if they are equal or
      * not.
      * <p>
-     * This method buffers the input internally using
-     * <code>BufferedInputStream</code> if they are not already buffered.
+     * This method buffers the input internally, reading and comparing blocks
+     * of bytes, so there is no need to use a <code>BufferedInputStream</code>.
      *
      * @param input1 the first stream
      * @param input2 the second stream
@@ -670,37 +703,47 @@ public static void closeQuietly(final Writer output) {
      * @throws NullPointerException if either input is null
      * @throws IOException          if an I/O error occurs
      */
-    public static boolean contentEquals(InputStream input1, InputStream input2)
+    public static boolean contentEquals(final InputStream input1, final InputStream input2)
             throws IOException {
         if (input1 == input2) {
             return true;
         }
-        if (!(input1 instanceof BufferedInputStream)) {
-            input1 = new BufferedInputStream(input1);
-        }
-        if (!(input2 instanceof BufferedInputStream)) {
-            input2 = new BufferedInputStream(input2);
-        }
-
-        int ch = input1.read();
-        while (EOF != ch) {
-            final int ch2 = input2.read();
-            if (ch != ch2) {
-                return false;
+        final BufferPool pool = bufferPool;
+        final byte[] array1 = pool.acquireBytes();
+        final byte[] array2 = pool.acquireBytes();
+        try {
+            // the ByteBuffer comparison is vectorized by recent JVMs
+            final ByteBuffer buffer1 = ByteBuffer.wrap(array1);
+            final ByteBuffer buffer2 = ByteBuffer.wrap(array2);
+            while (true) {
+                // read() fills the arrays unless the end of a stream is reached
+                final int n1 = read(input1, array1, 0, array1.length);
+                final int n2 = read(input2, array2, 0, array2.length);
+                if (n1 != n2) {
+                    return false;
+                }
+                // cast for Java 8 compatibility, Java 9 overrides the method with a covariant return type
+                ((Buffer) buffer1).limit(n1);
+                ((Buffer) buffer2).limit(n2);
+                if (!buffer1.equals(buffer2)) {
+                    return false;
+                }
+                if (n1 < array1.length) {
+                    return true;
+                }
             }
-            ch = input1.read();
+        } finally {
+            pool.releaseBytes(array2);
+            pool.releaseBytes(array1);
         }
-
-        final int ch2 = input2.read();
-        return ch2 == EOF;
     }
 
     /**
      * Compares the contents of two Readers to determine if they are equal or
      * not.
      * <p>
-     * This method buffers the input internally using
-     * <code>BufferedReader</code> if they are not already buffered.
+     * This method buffers the input internally, reading and comparing blocks
+     * of characters, so there is no need to use a <code>BufferedReader</code>.
      *
      * @param input1 the first reader
      * @param input2 the second reader
@@ -710,26 +753,37 @@ public static boolean contentEquals(InputStream input1, InputStream input2)
      * @throws IOException          if an I/O error occurs
      * @since 1.1
      */
-    public static boolean contentEquals(Reader input1, Reader input2)
+    public static boolean contentEquals(final Reader input1, final Reader input2)
             throws IOException {
         if (input1 == input2) {
             return true;
         }
-
-        input1 = toBufferedReader(input1);
-        input2 = toBufferedReader(input2);
-
-        int ch = input1.read();
-        while (EOF != ch) {
-            final int ch2 = input2.read();
-            if (ch != ch2) {
-                return false;
+        final BufferPool pool = bufferPool;
+        final char[] array1 = pool.acquireChars();
+        final char[] array2 = pool.acquireChars();
+        try {
+            final CharBuffer buffer1 = CharBuffer.wrap(array1);
+            final CharBuffer buffer2 = CharBuffer.wrap(array2);
+            while (true) {
+                final int n1 = read(input1, array1, 0, array1.length);
+                final int n2 = read(input2, array2, 0, array2.length);
+                if (n1 != n2) {
+                    return false;
+                }
+                // cast for Java 8 compatibility, Java 9 overrides the method with a covariant return type
+                ((Buffer) buffer1).limit(n1);
+                ((Buffer) buffer2).limit(n2);
+                if (!buffer1.equals(buffer2)) {
+                    return false;
+                }
+                if (n1 < array1.length) {
+                    return true;
+                }
             }
-            ch = input1.read();
+        } finally {
+            pool.releaseChars(array2);
+            pool.releaseChars(array1);
         }
-
-        final int ch2 = input2.read();
-        return ch2 == EOF;
     }
 
     /**
@@ -992,7 +1046,13 @@ public static void copy(final Reader input, final OutputStream output, final Str
      * @since 2.7
      */
     public static long copy(final Reader input, final Appendable output) throws IOException {
-        return copy(input, output, CharBuffer.allocate(DEFAULT_BUFFER_SIZE));
+        final BufferPool pool = bufferPool;
+        final char[] buffer = pool.acquireChars();
+        try {
+            return copy(input, output, CharBuffer.wrap(buffer));
+        } finally {
+            pool.releaseChars(buffer);
+        }
     }
 
     /**
@@ -1028,7 +1088,7 @@ public static int copy(final Reader input, final Writer output) throws IOExcepti
      * This method buffers the input internally, so there is no need to use a
      * <code>BufferedInputStream</code>.
      * <p>
-     * The buffer size is given by {@link #DEFAULT_BUFFER_SIZE}.
+     * The buffer is taken from the {@link #getBufferPool() buffer pool}.
      *
      * @param input the <code>InputStream</code> to read from
      * @param output the <code>OutputStream</code> to write to
@@ -1039,7 +1099,13 @@ public static int copy(final Reader input, final Writer output) throws IOExcepti
      */
     public static long copyLarge(final InputStream input, final OutputStream output)
             throws IOException {
-        return copy(input, output, DEFAULT_BUFFER_SIZE);
+        final BufferPool pool = bufferPool;
+        final byte[] buffer = pool.acquireBytes();
+        try {
+            return copyLarge(input, output, buffer);
+        } finally {
+            pool.releaseBytes(buffer);
+        }
     }
 
     /**
@@ -1060,7 +1126,7 @@ public static long copyLarge(final InputStream input, final OutputStream output)
      */
     public static long copyLarge(final InputStream input, final OutputStream output, final byte[] buffer)
             throws IOException {
-        long count = 0;
+        long count = transferChannels(input, output, -1);
         int n;
         while (EOF != (n = input.read(buffer))) {
             output.write(buffer, 0, n);
@@ -1081,7 +1147,7 @@ public static long copyLarge(final InputStream input, final OutputStream output,
      * This means that the method may be considerably less efficient than using the actual skip implementation,
      * this is done to guarantee that the correct number of characters are skipped.
      * </p>
-     * The buffer size is given by {@link #DEFAULT_BUFFER_SIZE}.
+     * The buffer is taken from the {@link #getBufferPool() buffer pool}.
      *
      * @param input the <code>InputStream</code> to read from
      * @param output the <code>OutputStream</code> to write to
@@ -1095,7 +1161,17 @@ public static long copyLarge(final InputStream input, final OutputStream output,
      */
     public static long copyLarge(final InputStream input, final OutputStream output, final long inputOffset,
                                  final long length) throws IOException {
-        return copyLarge(input, output, inputOffset, length, new byte[DEFAULT_BUFFER_SIZE]);
+        if (inputOffset > 0) {
+            // before taking the buffer, which skipFully takes too
+            skipFully(input, inputOffset);
+        }
+        final BufferPool pool = bufferPool;
+        final byte[] buffer = pool.acquireBytes();
+        try {
+            return copyLarge(input, output, 0, length, buffer);
+        } finally {
+            pool.releaseBytes(buffer);
+        }
     }
 
     // read char[]
@@ -1133,13 +1209,16 @@ public static long copyLarge(final InputStream input, final OutputStream output,
         if (length == 0) {
             return 0;
         }
+        long totalRead = transferChannels(input, output, length);
+        if (totalRead == length) {
+            return totalRead;
+        }
         final int bufferLength = buffer.length;
         int bytesToRead = bufferLength;
-        if (length > 0 && length < bufferLength) {
-            bytesToRead = (int) length;
+        if (length > 0 && length - totalRead < bufferLength) {
+            bytesToRead = (int) (length - totalRead);
         }
         int read;
-        long totalRead = 0;
         while (bytesToRead > 0 && EOF != (read = input.read(buffer, 0, bytesToRead))) {
             output.write(buffer, 0, read);
             totalRead += read;
@@ -1151,6 +1230,54 @@ public static long copyLarge(final InputStream input, final OutputStream output,
         return totalRead;
     }
 
+    /**
+     * Transfers bytes directly between the file channels of a plain <code>FileInputStream</code> and a plain
+     * <code>FileOutputStream</code>.
+     * <p>
+     * Subclasses are not handled since they may override the read and write methods, nor are inputs which can not
+     * seek, such as pipes. Only the bytes present in the input file when the transfer starts are copied, the caller
+     * continues with a buffered copy for anything else.
+     * The position of the input stream is advanced by the number of bytes transferred.
+     * </p>
+     *
+     * @param input the <code>InputStream</code> to read from
+     * @param output the <code>OutputStream</code> to write to
+     * @param length the maximum number of bytes to transfer, -ve means all
+     * @return the number of bytes transferred, 0 if the streams are not file streams
+     * @throws NullPointerException if the input or output is null
+     * @throws IOException          if an I/O error occurs
+     */
+    private static long transferChannels(final InputStream input, final OutputStream output, final long length)
+            throws IOException {
+        if (input.getClass() != FileInputStream.class || output.getClass() != FileOutputStream.class) {
+            return 0;
+        }
+        final FileChannel source = ((FileInputStream) input).getChannel();
+        final FileChannel target = ((FileOutputStream) output).getChannel();
+        final long start;
+        long end;
+        try {
+            start = source.position();
+            end = source.size();
+        } catch (final IOException e) {
+            // not a regular file, such as a pipe or a FIFO, which can not seek: use the buffered copy
+            return 0;
+        }
+        if (length >= 0 && length < end - start) {
+            end = start + length;
+        }
+        long position = start;
+        while (position < end) {
+            final long n = source.transferTo(position, end - position, target);
+            if (n <= 0) {
+                break;
+            }
+            position += n;
+        }
+        source.position(position);
+        return position - start;
+    }
+
     /**
      * Copies chars from a <code>Reader</code> to an <code>Appendable</code>.
      * <p>
@@ -1183,7 +1310,7 @@ public static long copy(final Reader input, final Appendable output, final CharB
      * This method buffers the input internally, so there is no need to use a
      * <code>BufferedReader</code>.
      * <p>
-     * The buffer size is given by {@link #DEFAULT_BUFFER_SIZE}.
+     * The buffer is taken from the {@link #getBufferPool() buffer pool}.
      *
      * @param input the <code>Reader</code> to read from
      * @param output the <code>Writer</code> to write to
@@ -1193,7 +1320,13 @@ public static long copy(final Reader input, final Appendable output, final CharB
      * @since 1.3
      */
     public static long copyLarge(final Reader input, final Writer output) throws IOException {
-        return copyLarge(input, output, new char[DEFAULT_BUFFER_SIZE]);
+        final BufferPool pool = bufferPool;
+        final char[] buffer = pool.acquireChars();
+        try {
+            return copyLarge(input, output, buffer);
+        } finally {
+            pool.releaseChars(buffer);
+        }
     }
 
     // read toString
@@ -1231,7 +1364,7 @@ public static long copyLarge(final Reader input, final Writer output, final char
      * This method buffers the input internally, so there is no need to use a
      * <code>BufferedReader</code>.
      * <p>
-     * The buffer size is given by {@link #DEFAULT_BUFFER_SIZE}.
+     * The buffer is taken from the {@link #getBufferPool() buffer pool}.
      *
      * @param input the <code>Reader</code> to read from
      * @param output the <code>Writer</code> to write to
@@ -1245,7 +1378,17 @@ public static long copyLarge(final Reader input, final Writer output, final char
      */
     public static long copyLarge(final Reader input, final Writer output, final long inputOffset, final long length)
             throws IOException {
-        return copyLarge(input, output, inputOffset, length, new char[DEFAULT_BUFFER_SIZE]);
+        if (inputOffset > 0) {
+            // before taking the buffer, which skipFully takes too
+            skipFully(input, inputOffset);
+        }
+        final BufferPool pool = bufferPool;
+        final char[] buffer = pool.acquireChars();
+        try {
+            return copyLarge(input, output, 0, length, buffer);
+        } finally {
+            pool.releaseChars(buffer);
+        }
     }
 
     /**
@@ -1395,6 +1538,68 @@ public static LineIterator lineIterator(final Reader reader) {
         return new LineIterator(reader);
     }
 
+    /**
+     * Returns a Stream of the lines in an <code>InputStream</code>, using
+     * the character encoding specified (or default encoding if null).
+     * <p>
+     * The lines are read lazily, as the stream is consumed. Closing the
+     * returned stream closes the <code>InputStream</code>, so the stream
+     * should be used in a try-with-resources statement:
+     * <pre>
+     * try (Stream&lt;String&gt; lines = IOUtils.lines(stream, charset)) {
+     *   lines.filter(...).forEach(...);
+     * }
+     * </pre>
+     * I/O errors which occur while the lines are read are thrown as
+     * {@link UncheckedIOException}.
+     *
+     * @param input the <code>InputStream</code> to read from, not null
+     * @param encoding the encoding to use, null means platform default
+     * @return a Stream of the lines, never null
+     * @throws NullPointerException if the input is null
+     * @since 2.7
+     */
+    public static Stream<String> lines(final InputStream input, final Charset encoding) {
+        return lines(new InputStreamReader(input, Charsets.toCharset(encoding)));
+    }
+
+    /**
+     * Returns a Stream of the lines in a <code>Reader</code>.
+     * <p>
+     * The lines are read lazily, as the stream is consumed. Closing the
+     * returned stream closes the <code>Reader</code>. The stream is not
+     * split for parallel processing, see {@link FileUtils#lines(File, Charset)}
+     * for files. I/O errors which occur while the lines are read are thrown
+     * as {@link UncheckedIOException}.
+     *
+     * @param reader the <code>Reader</code> to read from, not null
+     * @return a Stream of the lines, never null
+     * @throws NullPointerException if the reader is null
+     * @since 2.7
+     */
+    public static Stream<String> lines(final Reader reader) {
+        return toBufferedReader(reader).lines().onClose(closer(reader));
+    }
+
+    /**
+     * Returns a task closing a resource, for {@link Stream#onClose(Runnable)}.
+     *
+     * @param closeable the resource to close
+     * @return the task, which throws I/O errors as {@link UncheckedIOException}
+     */
+    static Runnable closer(final Closeable closeable) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    closeable.close();
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
     /**
      * Reads bytes from an input stream.
      * This implementation guarantees that it will read as many bytes
@@ -1880,22 +2085,24 @@ public static long skip(final InputStream input, final long toSkip) throws IOExc
         if (toSkip < 0) {
             throw new IllegalArgumentException("Skip count must be non-negative, actual: " + toSkip);
         }
-        /*
-         * N.B. no need to synchronize this because: - we don't care if the buffer is created multiple times (the data
-         * is ignored) - we always use the same size buffer, so if it it is recreated it will still be OK (if the buffer
-         * size were variable, we would need to synch. to ensure some other thread did not create a smaller one)
-         */
-        if (SKIP_BYTE_BUFFER == null) {
-            SKIP_BYTE_BUFFER = new byte[SKIP_BUFFER_SIZE];
+        if (toSkip == 0) {
+            return 0;
         }
+        final BufferPool pool = bufferPool;
+        final byte[] buffer = pool.acquireBytes();
         long remain = toSkip;
-        while (remain > 0) {
-            // See https://issues.apache.org/jira/browse/IO-203 for why we use read() rather than delegating to skip()
-            final long n = input.read(SKIP_BYTE_BUFFER, 0, (int) Math.min(remain, SKIP_BUFFER_SIZE));
-            if (n < 0) { // EOF
-                break;
+        try {
+            while (remain > 0) {
+                // See https://issues.apache.org/jira/browse/IO-203 for why we use read() rather than delegating to
+                // skip()
+                final long n = input.read(buffer, 0, (int) Math.min(remain, buffer.length));
+                if (n < 0) { // EOF
+                    break;
+                }
+                remain -= n;
             }
-            remain -= n;
+        } finally {
+            pool.releaseBytes(buffer);
         }
         return toSkip - remain;
     }
@@ -1916,16 +2123,26 @@ public static long skip(final ReadableByteChannel input, final long toSkip) thro
         if (toSkip < 0) {
             throw new IllegalArgumentException("Skip count must be non-negative, actual: " + toSkip);
         }
-        final ByteBuffer skipByteBuffer = ByteBuffer.allocate((int) Math.min(toSkip, SKIP_BUFFER_SIZE));
+        if (toSkip == 0) {
+            return 0;
+        }
+        final BufferPool pool = bufferPool;
+        final byte[] buffer = pool.acquireBytes();
+        final ByteBuffer skipByteBuffer = ByteBuffer.wrap(buffer);
         long remain = toSkip;
-        while (remain > 0) {
-            skipByteBuffer.position(0);
-            skipByteBuffer.limit((int) Math.min(remain, SKIP_BUFFER_SIZE));
-            final int n = input.read(skipByteBuffer);
-            if (n == EOF) {
-                break;
+        try {
+            while (remain > 0) {
+                // cast for Java 8 compatibility, Java 9 overrides the method with a covariant return type
+                ((Buffer) skipByteBuffer).position(0);
+                ((Buffer) skipByteBuffer).limit((int) Math.min(remain, buffer.length));
+                final int n = input.read(skipByteBuffer);
+                if (n == EOF) {
+                    break;
+                }
+                remain -= n;
             }
-            remain -= n;
+        } finally {
+            pool.releaseBytes(buffer);
         }
         return toSkip - remain;
     }
@@ -1955,22 +2172,24 @@ public static long skip(final Reader input, final long toSkip) throws IOExceptio
         if (toSkip < 0) {
             throw new IllegalArgumentException("Skip count must be non-negative, actual: " + toSkip);
         }
-        /*
-         * N.B. no need to synchronize this because: - we don't care if the buffer is created multiple times (the data
-         * is ignored) - we always use the same size buffer, so if it it is recreated it will still be OK (if the buffer
-         * size were variable, we would need to synch. to ensure some other thread did not create a smaller one)
-         */
-        if (SKIP_CHAR_BUFFER == null) {
-            SKIP_CHAR_BUFFER = new char[SKIP_BUFFER_SIZE];
+        if (toSkip == 0) {
+            return 0;
         }
+        final BufferPool pool = bufferPool;
+        final char[] buffer = pool.acquireChars();
         long remain = toSkip;
-        while (remain > 0) {
-            // See https://issues.apache.org/jira/browse/IO-203 for why we use read() rather than delegating to skip()
-            final long n = input.read(SKIP_CHAR_BUFFER, 0, (int) Math.min(remain, SKIP_BUFFER_SIZE));
-            if (n < 0) { // EOF
-                break;
+        try {
+            while (remain > 0) {
+                // See https://issues.apache.org/jira/browse/IO-203 for why we use read() rather than delegating to
+                // skip()
+                final long n = input.read(buffer, 0, (int) Math.min(remain, buffer.length));
+                if (n < 0) { // EOF
+                    break;
+                }
+                remain -= n;
             }
-            remain -= n;
+        } finally {
+            pool.releaseChars(buffer);
         }
         return toSkip - remain;
     }
@@ -2140,6 +2359,11 @@ public static BufferedReader toBufferedReader(final Reader reader, final int siz
      * <p>
      * This method buffers the input internally, so there is no need to use a
      * <code>BufferedInputStream</code>.
+     * <p>
+     * For file and byte array streams, which report their remaining length as the number of bytes
+     * {@link InputStream#available() available}, the bytes are read directly into an array of that
+     * size; the method falls back to buffering if the stream turns out to be longer. Other streams,
+     * whose number of bytes available is only an estimate, are always buffered.
      *
      * @param input the <code>InputStream</code> to read from
      * @return the requested byte array
@@ -2147,7 +2371,51 @@ public static BufferedReader toBufferedReader(final Reader reader, final int siz
      * @throws IOException          if an I/O error occurs
      */
     public static byte[] toByteArray(final InputStream input) throws IOException {
-        try (final ByteArrayOutputStream output = new ByteArrayOutputStream()) {
+        return toByteArrayWithSizeHint(input, availableSizeHint(input));
+    }
+
+    /**
+     * Gets the remaining length of a stream which reports it as the number of bytes available.
+     *
+     * @param input the stream
+     * @return the number of bytes available for file and byte array streams, 0 for other streams
+     * @throws IOException if an I/O error occurs
+     */
+    private static long availableSizeHint(final InputStream input) throws IOException {
+        // the number of bytes available is the remaining length for these streams only
+        return input instanceof FileInputStream || input instanceof ByteArrayInputStream ? input.available() : 0;
+    }
+
+    /**
+     * Gets the contents of an <code>InputStream</code> as a <code>byte[]</code>, allocating
+     * an array of the expected size. The array is trimmed if the stream is shorter, and the
+     * bytes are buffered if it is longer.
+     *
+     * @param input the <code>InputStream</code> to read from
+     * @param sizeHint the expected number of bytes, 0 if unknown
+     * @return the requested byte array
+     * @throws IOException if an I/O error occurs
+     */
+    static byte[] toByteArrayWithSizeHint(final InputStream input, final long sizeHint) throws IOException {
+        if (sizeHint <= 0 || sizeHint > MAX_ARRAY_SIZE) {
+            try (final ByteArrayOutputStream output = new ByteArrayOutputStream()) {
+                copy(input, output);
+                return output.toByteArray();
+            }
+        }
+        final byte[] data = new byte[(int) sizeHint];
+        final int count = read(input, data, 0, data.length);
+        if (count < data.length) {
+            return Arrays.copyOf(data, count);
+        }
+        final int next = input.read();
+        if (next == EOF) {
+            return data;
+        }
+        // longer than expected
+        try (final ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(data.length * 2, 1024))) {
+            output.write(data);
+            output.write(next);
             copy(input, output);
             return output.toByteArray();
         }
@@ -2597,6 +2865,11 @@ public static String toString(final InputStream input) throws IOException {
      * This method buffers the input internally, so there is no need to use a
      * <code>BufferedInputStream</code>.
      * </p>
+     * <p>
+     * The bytes of file and byte array input streams are read at once and
+     * decoded into the String directly, unless there are more than 64 MiB;
+     * the bytes of other streams are decoded as they are read.
+     * </p>
      *
      * @param input the <code>InputStream</code> to read from
      * @param encoding the encoding to use, null means platform default
@@ -2606,10 +2879,64 @@ public static String toString(final InputStream input) throws IOException {
      * @since 2.3
      */
     public static String toString(final InputStream input, final Charset encoding) throws IOException {
-        try (final StringBuilderWriter sw = new StringBuilderWriter()) {
-            copy(input, sw, encoding);
-            return sw.toString();
+        return toStringWithSizeHint(input, encoding, availableSizeHint(input));
+    }
+
+    /**
+     * Gets the contents of an <code>InputStream</code> as a String. When the expected number of bytes is known
+     * and not too large, the bytes are read into a single array which is decoded at once; otherwise they are
+     * decoded as they are read.
+     *
+     * @param input the <code>InputStream</code> to read from
+     * @param encoding the encoding to use, null means platform default
+     * @param sizeHint the expected number of bytes, 0 if unknown
+     * @return the requested String
+     * @throws IOException if an I/O error occurs
+     */
+    static String toStringWithSizeHint(final InputStream input, final Charset encoding, final long sizeHint)
+            throws IOException {
+        final Charset charset = Charsets.toCharset(encoding);
+        if (sizeHint <= 0 || sizeHint > MAX_DECODE_AT_ONCE_SIZE) {
+            try (final StringBuilderWriter sw = new StringBuilderWriter()) {
+                copy(input, sw, charset);
+                return sw.toString();
+            }
+        }
+        return decode(toByteArrayWithSizeHint(input, sizeHint), charset);
+    }
+
+    /**
+     * Decodes bytes into a String, copying them directly if they are ASCII characters in a charset which
+     * is a superset of US-ASCII.
+     *
+     * @param bytes the bytes
+     * @param charset the charset
+     * @return the String
+     */
+    private static String decode(final byte[] bytes, final Charset charset) {
+        if (charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII)
+                || charset.equals(StandardCharsets.ISO_8859_1)) {
+            if (isAscii(bytes)) {
+                // ISO-8859-1 maps each byte to the char of the same value, without a decoder
+                return new String(bytes, StandardCharsets.ISO_8859_1);
+            }
+        }
+        return new String(bytes, charset);
+    }
+
+    /**
+     * Checks whether all the bytes are ASCII characters.
+     *
+     * @param bytes the bytes
+     * @return true if no byte has the high bit set
+     */
+    private static boolean isAscii(final byte[] bytes) {
+        for (final byte b : bytes) {
+            if (b < 0) {
+                return false;
+            }
         }
+        return true;
     }
 
     /**
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.io.input;
+
+import static org.apache.commons.io.IOUtils.EOF;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link CountingInputStream} whose count is held by a {@link LongAdder}
+ * instead of a field guarded by the stream's lock.
+ * <p>
+ * Counting a read costs an uncontended update of one of the adder's cells,
+ * even when many threads read through streams sharing the same counter. Pass
+ * the same <code>LongAdder</code> to several streams to account for the bytes
+ * read by all of them, for example per tenant: the count of each stream is
+ * then the count of the whole group.
+ * </p>
+ * <p>
+ * As with <code>LongAdder</code>, {@link #getByteCount()} is not an atomic
+ * snapshot while bytes are being read, and {@link #resetByteCount()} may
+ * miss bytes read concurrently.
+ * </p>
+ *
+ * @since 2.7
+ */
+public class ConcurrentCountingInputStream extends CountingInputStream {
+
+    /** The count of bytes that have passed. */
+    private final LongAdder counter;
+
+    /**
+     * Constructs a new ConcurrentCountingInputStream with its own counter.
+     *
+     * @param in  the InputStream to delegate to
+     */
+    public ConcurrentCountingInputStream(final InputStream in) {
+        this(in, new LongAdder());
+    }
+
+    /**
+     * Constructs a new ConcurrentCountingInputStream adding to a shared counter.
+     *
+     * @param in  the InputStream to delegate to
+     * @param counter  the counter, which may be shared with other streams
+     */
+    public ConcurrentCountingInputStream(final InputStream in, final LongAdder counter) {
+        super(in);
+        if (counter == null) {
+            throw new NullPointerException("counter");
+        }
+        this.counter = counter;
+    }
+
+    /**
+     * Skips the stream over the specified number of bytes, adding the skipped
+     * amount to the count.
+     *
+     * @param length  the number of bytes to skip
+     * @return the actual number of bytes skipped
+     * @throws IOException if an I/O error occurs
+     * @see java.io.InputStream#skip(long)
+     */
+    @Override
+    public long skip(final long length) throws IOException {
+        try {
+            final long skip = in.skip(length);
+            counter.add(skip);
+            return skip;
+        } catch (final IOException e) {
+            handleIOException(e);
+            return 0;
+        }
+    }
+
+    /**
+     * Adds the number of read bytes to the count.
+     *
+     * @param n number of bytes read, or -1 if no more bytes are available
+     */
+    @Override
+    protected void afterRead(final int n) {
+        if (n != EOF) {
+            counter.add(n);
+        }
+    }
+
+    /**
+     * The number of bytes that have passed through this stream, and any other
+     * stream sharing its counter.
+     *
+     * @return the number of bytes accumulated
+     */
+    @Override
+    public long getByteCount() {
+        return counter.sum();
+    }
+
+    /**
+     * Set the byte count back to 0.
+     *
+     * @return the count previous to resetting
+     */
+    @Override
+    public long resetByteCount() {
+        return counter.sumThenReset();
+    }
+
+    /**
+     * Gets the counter of this stream.
+     *
+     * @return the counter
+     */
+    public LongAdder getCounter() {
+        return counter;
+    }
+
+}
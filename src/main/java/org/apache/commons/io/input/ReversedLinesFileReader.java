@@ -20,7 +20,10 @@
 import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
@@ -28,12 +31,18 @@
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.commons.io.Charsets;
 
 /**
  * Reads lines in a file reversely (similar to a BufferedReader, but starting at
  * the last line). Useful for e.g. searching in log files.
+ * <p>
+ * By default the file is read block by block into new arrays. For large files, the reader can memory map the file
+ * instead, see {@link #ReversedLinesFileReader(Path, int, Charset, boolean)}.
+ * </p>
  *
  * @since 2.2
  */
@@ -56,6 +65,8 @@ public class ReversedLinesFileReader implements Closeable {
 
     private FilePart currentFilePart;
 
+    private final MappedFilePart mappedFilePart;
+
     private boolean trailingNewlineOfFileSkipped = false;
 
     /**
@@ -131,6 +142,34 @@ public ReversedLinesFileReader(final File file, final int blockSize, final Chars
      * @since 2.7
      */
     public ReversedLinesFileReader(final Path file, final int blockSize, final Charset encoding) throws IOException {
+        this(file, blockSize, encoding, false);
+    }
+
+    /**
+     * Creates a ReversedLinesFileReader with the given block size and encoding, optionally memory mapping the file.
+     * <p>
+     * When memory mapped, the file is mapped in regions of the block size starting at the end of the file, and the
+     * new line sequences are searched in place. Only the bytes of the lines returned are copied, into an array
+     * reused across lines. A block size of a few megabytes is recommended in this mode, a region is extended when a
+     * line does not fit in it. The file must be on a file system that supports
+     * {@link FileChannel#map(java.nio.channels.FileChannel.MapMode, long, long) mapping}, and the mapped regions
+     * are only released when they are garbage collected.
+     * </p>
+     *
+     * @param file
+     *            the file to be read
+     * @param blockSize
+     *            size of the internal buffer (for ideal performance this should
+     *            match with the block size of the underlying file system), or size of the mapped regions.
+     * @param encoding
+     *            the encoding of the file
+     * @param memoryMapped
+     *            whether to memory map the file instead of reading it into buffers
+     * @throws IOException  if an I/O error occurs
+     * @since 2.7
+     */
+    public ReversedLinesFileReader(final Path file, final int blockSize, final Charset encoding,
+            final boolean memoryMapped) throws IOException {
         this.blockSize = blockSize;
         this.encoding = encoding;
 
@@ -170,7 +209,17 @@ public ReversedLinesFileReader(final Path file, final int blockSize, final Chars
         avoidNewlineSplitBufferSize = newLineSequences[0].length;
 
         // Open file
+        if (memoryMapped) {
+            final FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ);
+            channel = fileChannel;
+            totalByteLength = fileChannel.size();
+            totalBlockCount = 0;
+            currentFilePart = null;
+            mappedFilePart = new MappedFilePart(fileChannel);
+            return;
+        }
         channel = Files.newByteChannel(file, StandardOpenOption.READ);
+        mappedFilePart = null;
         totalByteLength = channel.size();
         int lastBlockLength = (int) (totalByteLength % blockSize);
         if (lastBlockLength > 0) {
@@ -230,14 +279,17 @@ public ReversedLinesFileReader(final Path file, final int blockSize, final Strin
      */
     public String readLine() throws IOException {
 
-        String line = currentFilePart.readLine();
-        while (line == null) {
-            currentFilePart = currentFilePart.rollOver();
-            if (currentFilePart != null) {
-                line = currentFilePart.readLine();
-            } else {
-                // no more fileparts: we're done, leave line set to null
-                break;
+        String line;
+        if (mappedFilePart != null) {
+            line = mappedFilePart.readLine();
+        } else {
+            line = currentFilePart == null ? null : currentFilePart.readLine();
+            while (line == null && currentFilePart != null) {
+                currentFilePart = currentFilePart.rollOver();
+                if (currentFilePart != null) {
+                    line = currentFilePart.readLine();
+                }
+                // else no more fileparts: we're done, leave line set to null
             }
         }
 
@@ -250,6 +302,26 @@ public String readLine() throws IOException {
         return line;
     }
 
+    /**
+     * Returns up to the given number of lines of the file from bottom to top.
+     *
+     * @param lineCount the maximum number of lines to read
+     * @return the lines read, fewer than requested if the start of the file is reached
+     * @throws IOException  if an I/O error occurs
+     * @since 2.7
+     */
+    public List<String> readLines(final int lineCount) throws IOException {
+        if (lineCount < 0) {
+            throw new IllegalArgumentException("lineCount < 0");
+        }
+        final List<String> lines = new ArrayList<>(Math.min(lineCount, 256));
+        String line;
+        while (lines.size() < lineCount && (line = readLine()) != null) {
+            lines.add(line);
+        }
+        return lines;
+    }
+
     /**
      * Closes underlying resources.
      *
@@ -260,6 +332,115 @@ public void close() throws IOException {
         channel.close();
     }
 
+    /**
+     * Reads lines from regions of the file mapped into memory, scanning for new lines in place.
+     */
+    private class MappedFilePart {
+        private final FileChannel fileChannel;
+
+        private MappedByteBuffer region;
+
+        /** File offset of the first byte of the mapped region. */
+        private long regionStart;
+
+        /** File offset just after the last byte not yet returned in a line. */
+        private long position;
+
+        /** Reused array holding the bytes of the line being decoded. */
+        private byte[] lineBuffer = new byte[0];
+
+        /**
+         * ctor
+         * @param fileChannel the channel of the file
+         */
+        private MappedFilePart(final FileChannel fileChannel) {
+            this.fileChannel = fileChannel;
+            this.position = totalByteLength;
+            this.regionStart = totalByteLength;
+        }
+
+        /**
+         * Maps the region ending at the current position and starting a block before the current region.
+         *
+         * @throws IOException if there is a problem mapping the file
+         */
+        private void extendRegion() throws IOException {
+            final long start = Math.max(0, regionStart - blockSize);
+            if (position - start > Integer.MAX_VALUE) {
+                throw new IOException("Line exceeds the maximum mappable size: " + (position - start));
+            }
+            region = fileChannel.map(FileChannel.MapMode.READ_ONLY, start, position - start);
+            regionStart = start;
+        }
+
+        /**
+         * Reads a line.
+         *
+         * @return the line or null
+         * @throws IOException if there is an error reading from the file
+         */
+        private String readLine() throws IOException {
+            if (position <= 0) {
+                return null;
+            }
+            long i = position - 1;
+            while (i > -1) {
+                while (regionStart > 0 && i - regionStart < avoidNewlineSplitBufferSize) {
+                    // make sure a new line sequence ending at i is inside the region
+                    extendRegion();
+                }
+                final int newLineMatchByteCount = getNewLineMatchByteCount((int) (i - regionStart));
+                if (newLineMatchByteCount > 0) {
+                    final String line = toLine(i + 1);
+                    position = i - newLineMatchByteCount + 1;
+                    return line;
+                }
+                i -= byteDecrement;
+            }
+            // there is no line break anymore, this is the first line of the file
+            final String line = toLine(0);
+            position = 0;
+            return line;
+        }
+
+        /**
+         * Decodes the bytes from the given offset to the current position.
+         *
+         * @param lineStart the file offset of the first byte of the line
+         * @return the line
+         */
+        private String toLine(final long lineStart) {
+            final int lineLengthBytes = (int) (position - lineStart);
+            if (lineLengthBytes > lineBuffer.length) {
+                lineBuffer = new byte[Math.max(lineLengthBytes, lineBuffer.length * 2)];
+            }
+            // cast for Java 8 compatibility, Java 9 overrides the method with a covariant return type
+            ((Buffer) region).position((int) (lineStart - regionStart));
+            region.get(lineBuffer, 0, lineLengthBytes);
+            return new String(lineBuffer, 0, lineLengthBytes, encoding);
+        }
+
+        /**
+         * Finds the new-line sequence ending at the given offset in the region and return its length.
+         *
+         * @param i offset in the region
+         * @return length of newline sequence or 0 if none found
+         */
+        private int getNewLineMatchByteCount(final int i) {
+            for (final byte[] newLineSequence : newLineSequences) {
+                boolean match = true;
+                for (int j = newLineSequence.length - 1; j >= 0; j--) {
+                    final int k = i + j - (newLineSequence.length - 1);
+                    match &= k >= 0 && region.get(k) == newLineSequence[j];
+                }
+                if (match) {
+                    return newLineSequence.length;
+                }
+            }
+            return 0;
+        }
+    }
+
     private class FilePart {
         private final long no;
 
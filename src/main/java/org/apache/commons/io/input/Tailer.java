@@ -18,12 +18,16 @@
 
 import static org.apache.commons.io.IOUtils.EOF;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.apache.commons.io.FileUtils;
 
@@ -110,6 +114,16 @@
  * </pre>
  * <p>If you interrupt a tailer, the tailer listener is called with the {@link InterruptedException}.</p>
  *
+ * <h2>5. Watching for changes</h2>
+ * <p>By default a tailer sleeps for the delay between checks of the file. A tailer created with the
+ * <code>watch</code> option instead waits for the file system to report changes in the directory of the file,
+ * using a {@link WatchService}, and checks the file as soon as it is modified. The file is still checked at least
+ * once per delay, for example to detect rotations on file systems that do not report them, so a longer delay can be
+ * used. The watching tailers of a file system share one watch service and one thread, so that tailing many files
+ * does not exhaust the watch resources of the operating system. If the directory cannot be watched, or stops being
+ * watchable, the tailer reports the failure to {@link TailerListener#handle(Exception)} and falls back to sleeping.
+ * </p>
+ *
  * <p>The file is read using the default charset; this can be overridden if necessary</p>
  * @see TailerListener
  * @see TailerListenerAdapter
@@ -133,6 +147,16 @@ public class Tailer implements Runnable {
      */
     private final byte inbuf[];
 
+    /**
+     * The bytes of a line spanning several reads of the buffer.
+     */
+    private byte[] lineBuf = new byte[64];
+
+    /**
+     * The number of bytes in the line buffer.
+     */
+    private int lineLength;
+
     /**
      * The file which will be tailed.
      */
@@ -163,11 +187,61 @@ public class Tailer implements Runnable {
      */
     private final boolean reOpen;
 
+    /**
+     * Whether to wait for file system events between checks of the file.
+     */
+    private final boolean watch;
+
+    /**
+     * The directory registered with the shared {@link TailerWatcher}, null when not watching.
+     */
+    private volatile Path watchedDirectory;
+
+    /**
+     * Whether the directory stopped being watchable, to be reported by the tailer thread.
+     */
+    private volatile boolean watchLost;
+
+    /**
+     * The lock the tailer waits on for a change when watching.
+     */
+    private final Object changeLock = new Object();
+
+    /**
+     * Whether a change was reported since the tailer last waited, guarded by {@link #changeLock}.
+     */
+    private boolean changed;
+
+    /**
+     * Run when the file may have changed or the tailer is stopped, used by {@link TailerGroup}.
+     */
+    private volatile Runnable changeCallback;
+
     /**
      * The tailer will run as long as this value is true.
      */
     private volatile boolean run = true;
 
+    /**
+     * The open file, null before it is opened or while it is closed between chunks.
+     */
+    private RandomAccessFile reader;
+
+    /**
+     * Whether the file has been opened at least once.
+     */
+    private boolean opened;
+
+    /**
+     * The last time the file was checked for changes.
+     */
+    private long last;
+
+    /**
+     * The position within the file.
+     */
+    private long position;
+
     /**
      * Creates a Tailer for the given file, starting from the beginning, with the default delay of 1.0s.
      * @param file The file to follow.
@@ -251,6 +325,24 @@ public Tailer(final File file, final TailerListener listener, final long delayMi
     public Tailer(final File file, final Charset charset, final TailerListener listener, final long delayMillis,
                   final boolean end, final boolean reOpen
             , final int bufSize) {
+        this(file, charset, listener, delayMillis, end, reOpen, bufSize, false);
+    }
+
+    /**
+     * Creates a Tailer for the given file, optionally waiting for file system events between checks of the file.
+     * @param file the file to follow.
+     * @param charset the Charset to be used for reading the file
+     * @param listener the TailerListener to use.
+     * @param delayMillis the delay between checks of the file for new content in milliseconds, or the maximum
+     * delay when watching.
+     * @param end Set to true to tail from the end of the file, false to tail from the beginning of the file.
+     * @param reOpen if true, close and reopen the file between reading chunks
+     * @param bufSize Buffer size
+     * @param watch if true, check the file as soon as a change is reported by a {@link WatchService}
+     * @since 2.7
+     */
+    public Tailer(final File file, final Charset charset, final TailerListener listener, final long delayMillis,
+                  final boolean end, final boolean reOpen, final int bufSize, final boolean watch) {
         this.file = file;
         this.delayMillis = delayMillis;
         this.end = end;
@@ -262,6 +354,7 @@ public Tailer(final File file, final Charset charset, final TailerListener liste
         listener.init(this);
         this.reOpen = reOpen;
         this.charset = charset;
+        this.watch = watch;
     }
 
     /**
@@ -311,7 +404,29 @@ public static Tailer create(final File file, final TailerListener listener, fina
     public static Tailer create(final File file, final Charset charset, final TailerListener listener,
                                 final long delayMillis, final boolean end, final boolean reOpen
             ,final int bufSize) {
-        final Tailer tailer = new Tailer(file, charset, listener, delayMillis, end, reOpen, bufSize);
+        return create(file, charset, listener, delayMillis, end, reOpen, bufSize, false);
+    }
+
+    /**
+     * Creates and starts a Tailer for the given file, optionally waiting for file system events between checks of
+     * the file.
+     *
+     * @param file the file to follow.
+     * @param charset the character set to use for reading the file
+     * @param listener the TailerListener to use.
+     * @param delayMillis the delay between checks of the file for new content in milliseconds, or the maximum
+     * delay when watching.
+     * @param end Set to true to tail from the end of the file, false to tail from the beginning of the file.
+     * @param reOpen whether to close/reopen the file between chunks
+     * @param bufSize buffer size.
+     * @param watch whether to check the file as soon as a change is reported by a {@link WatchService}
+     * @return The new tailer
+     * @since 2.7
+     */
+    public static Tailer create(final File file, final Charset charset, final TailerListener listener,
+                                final long delayMillis, final boolean end, final boolean reOpen,
+                                final int bufSize, final boolean watch) {
+        final Tailer tailer = new Tailer(file, charset, listener, delayMillis, end, reOpen, bufSize, watch);
         final Thread thread = new Thread(tailer);
         thread.setDaemon(true);
         thread.start();
@@ -404,77 +519,13 @@ public long getDelay() {
      */
     @Override
     public void run() {
-        RandomAccessFile reader = null;
         try {
-            long last = 0; // The last time the file was checked for changes
-            long position = 0; // position within the file
-            // Open the file
-            while (getRun() && reader == null) {
-                try {
-                    reader = new RandomAccessFile(file, RAF_MODE);
-                } catch (final FileNotFoundException e) {
-                    listener.fileNotFound();
-                }
-                if (reader == null) {
-                    Thread.sleep(delayMillis);
-                } else {
-                    // The current position in the file
-                    position = end ? file.length() : 0;
-                    last = file.lastModified();
-                    reader.seek(position);
-                }
+            if (watch) {
+                startWatching();
             }
             while (getRun()) {
-                final boolean newer = FileUtils.isFileNewer(file, last); // IO-279, must be done first
-                // Check the file length to see if it was rotated
-                final long length = file.length();
-                if (length < position) {
-                    // File was rotated
-                    listener.fileRotated();
-                    // Reopen the reader after rotation ensuring that the old file is closed iff we re-open it
-                    // successfully
-                    try (RandomAccessFile save = reader) {
-                        reader = new RandomAccessFile(file, RAF_MODE);
-                        // At this point, we're sure that the old file is rotated
-                        // Finish scanning the old file and then we'll start with the new one
-                        try {
-                            readLines(save);
-                        }  catch (final IOException ioe) {
-                            listener.handle(ioe);
-                        }
-                        position = 0;
-                    } catch (final FileNotFoundException e) {
-                        // in this case we continue to use the previous reader and position values
-                        listener.fileNotFound();
-                        Thread.sleep(delayMillis);
-                    }
-                    continue;
-                }
-                // File was not rotated
-                // See if the file needs to be read again
-                if (length > position) {
-                    // The file has more content than it did last time
-                    position = readLines(reader);
-                    last = file.lastModified();
-                } else if (newer) {
-                    /*
-                     * This can happen if the file is truncated or overwritten with the exact same length of
-                     * information. In cases like this, the file position needs to be reset
-                     */
-                    position = 0;
-                    reader.seek(position); // cannot be null here
-
-                    // Now we can read new lines
-                    position = readLines(reader);
-                    last = file.lastModified();
-                }
-                if (reOpen && reader != null) {
-                    reader.close();
-                }
-                Thread.sleep(delayMillis);
-                if (getRun() && reOpen) {
-                    reader = new RandomAccessFile(file, RAF_MODE);
-                    reader.seek(position);
+                if (!check()) {
+                    waitForChange();
                 }
             }
         } catch (final InterruptedException e) {
@@ -483,74 +534,338 @@ public void run() {
         } catch (final Exception e) {
             listener.handle(e);
         } finally {
-            try {
-                if (reader != null) {
-                    reader.close();
+            closeReader();
+            stop();
+            stopWatching();
+        }
+    }
+
+    /**
+     * Checks the file once, opening it or reading the new lines as needed.
+     * <p>
+     * This is one iteration of {@link #run()}, also used by {@link TailerGroup} to share threads between tailers.
+     * </p>
+     *
+     * @return true if the file should be checked again without waiting, false to wait for the delay first
+     * @throws IOException if an I/O error occurs, which ends the tailing
+     */
+    boolean check() throws IOException {
+        if (reader == null) {
+            if (opened) {
+                // closed between chunks (reOpen)
+                reader = new RandomAccessFile(file, RAF_MODE);
+                reader.seek(position);
+            } else {
+                // Open the file
+                try {
+                    reader = new RandomAccessFile(file, RAF_MODE);
+                } catch (final FileNotFoundException e) {
+                    listener.fileNotFound();
+                    return false;
+                }
+                opened = true;
+                // The current position in the file
+                position = end ? file.length() : 0;
+                last = file.lastModified();
+                reader.seek(position);
+                return true;
+            }
+        }
+        final boolean newer = FileUtils.isFileNewer(file, last); // IO-279, must be done first
+        // Check the file length to see if it was rotated
+        final long length = file.length();
+        if (length < position) {
+            // File was rotated
+            listener.fileRotated();
+            // Reopen the reader after rotation ensuring that the old file is closed iff we re-open it
+            // successfully
+            try (RandomAccessFile save = reader) {
+                reader = new RandomAccessFile(file, RAF_MODE);
+                // At this point, we're sure that the old file is rotated
+                // Finish scanning the old file and then we'll start with the new one
+                try {
+                    readLines(save);
+                }  catch (final IOException ioe) {
+                    listener.handle(ioe);
                 }
+                position = 0;
+            } catch (final FileNotFoundException e) {
+                // in this case we continue to use the previous reader and position values
+                listener.fileNotFound();
+                return false;
             }
-            catch (final IOException e) {
+            return true;
+        }
+        // File was not rotated
+        // See if the file needs to be read again
+        if (length > position) {
+            // The file has more content than it did last time
+            position = readLines(reader);
+            last = file.lastModified();
+        } else if (newer) {
+            /*
+             * This can happen if the file is truncated or overwritten with the exact same length of
+             * information. In cases like this, the file position needs to be reset
+             */
+            position = 0;
+            reader.seek(position);
+
+            // Now we can read new lines
+            position = readLines(reader);
+            last = file.lastModified();
+        }
+        if (reOpen) {
+            closeReader();
+        }
+        return false;
+    }
+
+    /**
+     * Closes the file if it is open, reporting a failure to the listener.
+     */
+    void closeReader() {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (final IOException e) {
                 listener.handle(e);
             }
-            stop();
+            reader = null;
         }
     }
 
+    /**
+     * Gets the listener to notify of events when tailing.
+     *
+     * @return the listener
+     */
+    TailerListener getListener() {
+        return listener;
+    }
+
     /**
      * Allows the tailer to complete its current loop and return.
      */
     public void stop() {
         this.run = false;
+        // wakes up the tailer if it is waiting for a change
+        fileChanged();
+    }
+
+    /**
+     * Tells whether the tailer was created with the <code>watch</code> option.
+     *
+     * @return true if the tailer waits for file system events between checks of the file
+     */
+    boolean isWatch() {
+        return watch;
+    }
+
+    /**
+     * Registers the directory of the file with the shared watcher, reporting a failure to the listener.
+     *
+     * @return true if the directory is watched
+     */
+    boolean startWatching() {
+        final File directory = file.getAbsoluteFile().getParentFile();
+        if (directory == null) {
+            return false;
+        }
+        try {
+            // the same directory may be reached through several paths
+            final Path path = directory.toPath().toRealPath();
+            TailerWatcher.register(this, path);
+            watchedDirectory = path;
+            return true;
+        } catch (final IOException | UnsupportedOperationException e) {
+            listener.handle(new IOException("Cannot watch " + directory + ", checking the file every " + delayMillis
+                    + " ms instead", e));
+            return false;
+        }
+    }
+
+    /**
+     * Unregisters the directory of the file from the shared watcher.
+     */
+    void stopWatching() {
+        final Path path = watchedDirectory;
+        if (path != null) {
+            watchedDirectory = null;
+            TailerWatcher.unregister(this, path);
+        }
+    }
+
+    /**
+     * Called by the {@link TailerWatcher} when the file may have changed.
+     */
+    void fileChanged() {
+        synchronized (changeLock) {
+            changed = true;
+            changeLock.notifyAll();
+        }
+        final Runnable callback = changeCallback;
+        if (callback != null) {
+            callback.run();
+        }
+    }
+
+    /**
+     * Sets the callback run when the file may have changed or the tailer is stopped.
+     *
+     * @param callback the callback, which must not block
+     */
+    void setChangeCallback(final Runnable callback) {
+        this.changeCallback = callback;
+    }
+
+    /**
+     * Reports to the listener that the directory of the file can no longer be watched, if it was lost since the
+     * last call.
+     *
+     * @return true if the watch was lost, in which case the file must now be checked every delay
+     */
+    boolean reportWatchLost() {
+        if (!watchLost) {
+            return false;
+        }
+        watchLost = false;
+        final Path path = watchedDirectory;
+        watchedDirectory = null;
+        listener.handle(new IOException("Stopped watching " + path + ", checking the file every " + delayMillis
+                + " ms instead"));
+        return true;
+    }
+
+    /**
+     * Called by the {@link TailerWatcher} when the directory of the file can no longer be watched.
+     */
+    void watchLost() {
+        watchLost = true;
+        fileChanged();
+    }
+
+    /**
+     * Waits until the file may have changed: sleeps for the delay, or when watching, waits at most the delay for an
+     * event about the file.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private void waitForChange() throws InterruptedException {
+        reportWatchLost();
+        if (watchedDirectory == null) {
+            Thread.sleep(delayMillis);
+            return;
+        }
+        synchronized (changeLock) {
+            if (!changed) {
+                // wait(0) would wait for a change forever
+                changeLock.wait(Math.max(1, delayMillis));
+            }
+            changed = false;
+        }
     }
 
     /**
      * Read new lines.
+     * <p>
+     * The buffer is scanned for line endings and each line is decoded straight from the buffer, or from the line
+     * buffer when it spans several reads. Listeners extending {@link TailerListenerAdapter} receive the lines of
+     * each read as one batch.
+     * </p>
      *
      * @param reader The file to read
      * @return The new position after the lines have been read
      * @throws java.io.IOException if an I/O error occurs.
      */
     private long readLines(final RandomAccessFile reader) throws IOException {
-        try (ByteArrayOutputStream lineBuf = new ByteArrayOutputStream(64)) {
-            long pos = reader.getFilePointer();
-            long rePos = pos; // position to re-read
-            int num;
-            boolean seenCR = false;
-            while (getRun() && ((num = reader.read(inbuf)) != EOF)) {
-                for (int i = 0; i < num; i++) {
-                    final byte ch = inbuf[i];
-                    switch ( ch ) {
-                        case '\n':
-                            seenCR = false; // swallow CR before LF
-                            listener.handle(new String(lineBuf.toByteArray(), charset));
-                            lineBuf.reset();
-                            rePos = pos + i + 1;
-                            break;
-                        case '\r':
-                            if (seenCR) {
-                                lineBuf.write('\r');
-                            }
-                            seenCR = true;
-                            break;
-                        default:
-                            if (seenCR) {
-                                seenCR = false; // swallow final CR
-                                listener.handle(new String(lineBuf.toByteArray(), charset));
-                                lineBuf.reset();
-                                rePos = pos + i + 1;
-                            }
-                            lineBuf.write(ch);
-                    }
+        final List<String> batch = listener instanceof TailerListenerAdapter ? new ArrayList<String>() : null;
+        long pos = reader.getFilePointer();
+        long rePos = pos; // position to re-read
+        int num;
+        boolean seenCR = false;
+        lineLength = 0;
+        while (getRun() && ((num = reader.read(inbuf)) != EOF)) {
+            int lineStart = 0; // start of the current line in the buffer
+            for (int i = 0; i < num; i++) {
+                final byte ch = inbuf[i];
+                if (ch == '\n') {
+                    // swallow CR before LF
+                    handleLine(lineStart, seenCR ? i - 1 : i, batch);
+                    seenCR = false;
+                    lineStart = i + 1;
+                    rePos = pos + i + 1;
+                } else if (ch == '\r') {
+                    // a CR followed by another CR is part of the line
+                    seenCR = true;
+                } else if (seenCR) {
+                    // swallow final CR
+                    handleLine(lineStart, i - 1, batch);
+                    seenCR = false;
+                    lineStart = i;
+                    rePos = pos + i;
                 }
-                pos = reader.getFilePointer();
             }
+            appendToLineBuffer(lineStart, num);
+            if (batch != null && !batch.isEmpty()) {
+                ((TailerListenerAdapter) listener).handle(batch);
+                batch.clear();
+            }
+            pos = reader.getFilePointer();
+        }
+
+        reader.seek(rePos); // Ensure we can re-read if necessary
 
-            reader.seek(rePos); // Ensure we can re-read if necessary
+        if (listener instanceof TailerListenerAdapter) {
+            ((TailerListenerAdapter) listener).endOfFileReached();
+        }
+
+        return rePos;
+    }
 
-            if (listener instanceof TailerListenerAdapter) {
-                ((TailerListenerAdapter) listener).endOfFileReached();
+    /**
+     * Decodes a complete line and passes it to the listener or adds it to the batch.
+     *
+     * @param lineStart the start of the line in the buffer
+     * @param lineEnd the end of the line in the buffer, exclusive, -1 if the line ended with the CR at the end of
+     * the previous read
+     * @param batch the batch of lines, null to pass the line to the listener
+     */
+    private void handleLine(final int lineStart, final int lineEnd, final List<String> batch) {
+        final String line;
+        if (lineLength == 0) {
+            line = new String(inbuf, lineStart, lineEnd - lineStart, charset);
+        } else {
+            // the line started in a previous read
+            if (lineEnd < 0) {
+                lineLength--;
+            } else {
+                appendToLineBuffer(lineStart, lineEnd);
             }
+            line = new String(lineBuf, 0, lineLength, charset);
+            lineLength = 0;
+        }
+        if (batch != null) {
+            batch.add(line);
+        } else {
+            listener.handle(line);
+        }
+    }
 
-            return rePos;
+    /**
+     * Appends bytes of the buffer to the line buffer.
+     *
+     * @param from the start in the buffer
+     * @param to the end in the buffer, exclusive
+     */
+    private void appendToLineBuffer(final int from, final int to) {
+        final int length = to - from;
+        if (length <= 0) {
+            return;
+        }
+        if (lineLength + length > lineBuf.length) {
+            lineBuf = Arrays.copyOf(lineBuf, Math.max(lineLength + length, lineBuf.length * 2));
         }
+        System.arraycopy(inbuf, from, lineBuf, lineLength, length);
+        lineLength += length;
     }
 }
@@ -0,0 +1,272 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.io.input;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tails many files on a shared, fixed number of threads.
+ * <p>
+ * Each {@link Tailer} added to the group is checked every {@link Tailer#getDelay() delay} by one of the threads of
+ * the group instead of running on its own thread. A check only reads from the file when it has grown or was
+ * modified, and follows rotations and reopens the file between chunks exactly like {@link Tailer#run()}.
+ * </p>
+ * <p>
+ * A tailer created with the <code>watch</code> option is in addition checked as soon as the watch service shared by
+ * the watching tailers reports a change of its file, so that a longer delay can be used. It is still checked every
+ * delay, as by {@link Tailer#run()}, for the file systems which do not report all the changes. If the directory of
+ * its file cannot be watched, or stops being watchable, the failure is reported to
+ * {@link TailerListener#handle(Exception)}.
+ * </p>
+ *
+ * <pre>
+ *      TailerGroup group = new TailerGroup(4);
+ *      for (File file : files) {
+ *          group.add(new Tailer(file, new MyTailerListener(), delay));
+ *      }
+ *      ...
+ *      group.close();
+ * </pre>
+ * <p>
+ * A tailer stops when {@link Tailer#stop()} is called or when {@link TailerListener#handle(Exception)} would end
+ * {@link Tailer#run()}; its file is then closed by a last check. Closing the group stops all its tailers.
+ * </p>
+ *
+ * @see Tailer
+ * @since 2.7
+ */
+public class TailerGroup implements Closeable {
+
+    /**
+     * The executor checking the tailers.
+     */
+    private final ScheduledExecutorService executor;
+
+    /**
+     * Whether the executor was created by this group and must be shut down when it is closed.
+     */
+    private final boolean shutdownExecutor;
+
+    /**
+     * The tailers of the group.
+     */
+    private final List<Tailer> tailers = new ArrayList<>();
+
+    /**
+     * Creates a group checking its tailers on the given number of daemon threads.
+     *
+     * @param threadCount the number of threads
+     */
+    public TailerGroup(final int threadCount) {
+        final ScheduledThreadPoolExecutor threadPool = new ScheduledThreadPoolExecutor(threadCount,
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(final Runnable runnable) {
+                        final Thread thread = new Thread(runnable, "TailerGroup");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        threadPool.setRemoveOnCancelPolicy(true);
+        // let each check run once more after close() to close its file
+        threadPool.setContinueExistingPeriodicTasksAfterShutdownPolicy(true);
+        this.executor = threadPool;
+        this.shutdownExecutor = true;
+    }
+
+    /**
+     * Creates a group checking its tailers on the given executor.
+     * <p>
+     * The executor is not shut down when the group is closed.
+     * </p>
+     *
+     * @param executor the executor to check the tailers on
+     */
+    public TailerGroup(final ScheduledExecutorService executor) {
+        if (executor == null) {
+            throw new NullPointerException("executor");
+        }
+        this.executor = executor;
+        this.shutdownExecutor = false;
+    }
+
+    /**
+     * Adds a tailer to the group and starts checking its file.
+     * <p>
+     * The tailer must not also be run on its own thread.
+     * </p>
+     *
+     * @param tailer the tailer to add
+     * @return the given tailer
+     */
+    public Tailer add(final Tailer tailer) {
+        final Check check = new Check(tailer);
+        synchronized (tailers) {
+            tailers.add(tailer);
+        }
+        tailer.setChangeCallback(check.requester);
+        if (tailer.isWatch() && tailer.startWatching()) {
+            // the first check, the next ones are requested by the changes of the file and every delay
+            check.request();
+            check.poll(tailer.getDelay());
+        } else {
+            check.poll(0);
+        }
+        return tailer;
+    }
+
+    /**
+     * Stops a tailer and removes it from the group.
+     *
+     * @param tailer the tailer to remove
+     * @return true if the tailer was in the group
+     */
+    public boolean remove(final Tailer tailer) {
+        tailer.stop();
+        synchronized (tailers) {
+            return tailers.remove(tailer);
+        }
+    }
+
+    /**
+     * Gets the number of tailers in the group.
+     *
+     * @return the number of tailers
+     */
+    public int size() {
+        synchronized (tailers) {
+            return tailers.size();
+        }
+    }
+
+    /**
+     * Stops all the tailers of the group, and shuts down the executor if it was created by the group.
+     * <p>
+     * The files are closed by the next scheduled check of each tailer.
+     * </p>
+     */
+    @Override
+    public void close() {
+        synchronized (tailers) {
+            for (final Tailer tailer : tailers) {
+                tailer.stop();
+            }
+            tailers.clear();
+        }
+        if (shutdownExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * The checks of one tailer, run one at a time when requested.
+     */
+    private final class Check implements Runnable {
+
+        private final Tailer tailer;
+
+        /**
+         * The number of checks requested since the running one started; a check is running while positive.
+         */
+        private final AtomicInteger requests = new AtomicInteger();
+
+        /**
+         * Requests a check, run when the file may have changed and every delay when polling.
+         */
+        private final Runnable requester = new Runnable() {
+            @Override
+            public void run() {
+                request();
+            }
+        };
+
+        private volatile ScheduledFuture<?> future;
+
+        Check(final Tailer tailer) {
+            this.tailer = tailer;
+        }
+
+        /**
+         * Runs a check on the executor, or once more after the running one.
+         */
+        void request() {
+            if (requests.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this);
+                } catch (final RejectedExecutionException e) {
+                    // shut down, check on this thread so that a stopped tailer closes its file
+                    run();
+                }
+            }
+        }
+
+        /**
+         * Starts checking the tailer every delay.
+         *
+         * @param initialDelay the delay before the first check, in milliseconds
+         */
+        void poll(final long initialDelay) {
+            future = executor.scheduleWithFixedDelay(requester, initialDelay, Math.max(1, tailer.getDelay()),
+                    TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void run() {
+            int count;
+            do {
+                count = requests.get();
+                check();
+            } while (requests.addAndGet(-count) != 0);
+        }
+
+        /**
+         * Checks the file until no more lines are read, and closes it once the tailer is stopped.
+         */
+        private void check() {
+            // already polled every delay
+            tailer.reportWatchLost();
+            try {
+                while (tailer.getRun() && tailer.check()) {
+                    // check again immediately, as Tailer.run() does
+                }
+            } catch (final Exception e) {
+                tailer.getListener().handle(e);
+                tailer.stop();
+            }
+            if (!tailer.getRun()) {
+                tailer.closeReader();
+                tailer.stopWatching();
+                synchronized (tailers) {
+                    tailers.remove(tailer);
+                }
+                final ScheduledFuture<?> scheduled = future;
+                if (scheduled != null) {
+                    scheduled.cancel(false);
+                }
+            }
+        }
+    }
+}
@@ -16,6 +16,8 @@
  */
 package org.apache.commons.io.input;
 
+import java.util.List;
+
 /**
  * {@link TailerListener} Adapter.
  *
@@ -61,6 +63,28 @@ public void handle(final String line) {
         // noop
     }
 
+    /**
+     * Handles the lines read from a Tailer by one read of its buffer, in order.
+     * <p>
+     * The default implementation calls {@link #handle(String)} for each line. Override this method to process lines
+     * in batches.
+     * </p>
+     *
+     * <b>Note:</b> this is called from the tailer thread, and the list is reused by the tailer after this method
+     * returns.
+     *
+     * Note: a future version of commons-io will pull this method up to the TailerListener interface,
+     * for now clients must subclass this class to use this feature.
+     *
+     * @param lines the lines, never empty.
+     * @since 2.7
+     */
+    public void handle(final List<String> lines) {
+        for (final String line : lines) {
+            handle(line);
+        }
+    }
+
     /**
      * Handles an Exception .
      * @param ex the exception.
@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.io.input;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link WatchService} shared by the watching tailers of a file system.
+ * <p>
+ * A watch service may hold an operating system resource, such as an inotify instance on Linux, of which a process
+ * can only have a few, so the tailers of a file system share one service and one thread dispatching its events.
+ * Each directory is registered once, whatever the number of tailers of files in it. The service is closed when
+ * the last tailer stops watching.
+ * </p>
+ *
+ * @since 2.7
+ */
+final class TailerWatcher implements Runnable {
+
+    /** The watcher of each file system, guarded by the class lock. */
+    private static final Map<FileSystem, TailerWatcher> WATCHERS = new HashMap<>();
+
+    private final FileSystem fileSystem;
+
+    private final WatchService service;
+
+    /** The key of each watched directory, guarded by the class lock. */
+    private final Map<Path, WatchKey> keys = new HashMap<>();
+
+    /** The tailers of the files of each watched directory, guarded by the class lock. */
+    private final Map<WatchKey, List<Tailer>> tailers = new HashMap<>();
+
+    private TailerWatcher(final FileSystem fileSystem) throws IOException {
+        this.fileSystem = fileSystem;
+        this.service = fileSystem.newWatchService();
+    }
+
+    /**
+     * Starts notifying a tailer of the changes in a directory.
+     *
+     * @param tailer the tailer, notified through {@link Tailer#fileChanged()} and {@link Tailer#watchLost()}
+     * @param directory the real path of the directory of the file of the tailer
+     * @throws IOException if the directory cannot be watched
+     * @throws UnsupportedOperationException if the file system cannot watch directories
+     */
+    static synchronized void register(final Tailer tailer, final Path directory) throws IOException {
+        final FileSystem fileSystem = directory.getFileSystem();
+        TailerWatcher watcher = WATCHERS.get(fileSystem);
+        final boolean created = watcher == null;
+        if (created) {
+            watcher = new TailerWatcher(fileSystem);
+        }
+        WatchKey key = watcher.keys.get(directory);
+        if (key == null) {
+            try {
+                key = directory.register(watcher.service, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            } catch (final IOException | RuntimeException e) {
+                if (created) {
+                    watcher.service.close();
+                }
+                throw e;
+            }
+            watcher.keys.put(directory, key);
+        }
+        // the key of a directory already registered under another path is shared
+        List<Tailer> list = watcher.tailers.get(key);
+        if (list == null) {
+            list = new ArrayList<>();
+            watcher.tailers.put(key, list);
+        }
+        list.add(tailer);
+        if (created) {
+            WATCHERS.put(fileSystem, watcher);
+            final Thread thread = new Thread(watcher, "Tailer watcher");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Stops notifying a tailer, cancelling the key of its directory and closing the service once unused.
+     *
+     * @param tailer the tailer
+     * @param directory the directory it was registered with
+     */
+    static synchronized void unregister(final Tailer tailer, final Path directory) {
+        final TailerWatcher watcher = WATCHERS.get(directory.getFileSystem());
+        if (watcher == null) {
+            return;
+        }
+        final WatchKey key = watcher.keys.get(directory);
+        if (key == null) {
+            return;
+        }
+        final List<Tailer> list = watcher.tailers.get(key);
+        list.remove(tailer);
+        if (list.isEmpty()) {
+            key.cancel();
+            watcher.remove(key);
+        }
+    }
+
+    /**
+     * Gets the number of open watch services.
+     *
+     * @return the number of file systems being watched
+     */
+    static synchronized int getServiceCount() {
+        return WATCHERS.size();
+    }
+
+    /**
+     * Forgets a directory, closing the service if it was the last one.
+     */
+    private void remove(final WatchKey key) {
+        keys.values().removeAll(Collections.singleton(key));
+        tailers.remove(key);
+        if (keys.isEmpty()) {
+            WATCHERS.remove(fileSystem);
+            try {
+                // ends the dispatching thread
+                service.close();
+            } catch (final IOException ignored) {
+                // nothing left to notify
+            }
+        }
+    }
+
+    /**
+     * Dispatches the events of the service to the tailers of the files they concern.
+     */
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                final WatchKey key = service.take();
+                final List<WatchEvent<?>> events = key.pollEvents();
+                final boolean valid = key.reset();
+                final List<Tailer> targets;
+                synchronized (TailerWatcher.class) {
+                    final List<Tailer> list = tailers.get(key);
+                    if (list == null) {
+                        // cancelled meanwhile
+                        continue;
+                    }
+                    targets = new ArrayList<>(list);
+                    if (!valid) {
+                        remove(key);
+                    }
+                }
+                for (final Tailer tailer : targets) {
+                    if (!valid) {
+                        tailer.watchLost();
+                        continue;
+                    }
+                    final String fileName = tailer.getFile().getName();
+                    for (final WatchEvent<?> event : events) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                                || fileName.equals(String.valueOf(event.context()))) {
+                            tailer.fileChanged();
+                            break;
+                        }
+                    }
+                }
+            }
+        } catch (final ClosedWatchServiceException | InterruptedException e) {
+            // no tailer left
+        }
+    }
+}
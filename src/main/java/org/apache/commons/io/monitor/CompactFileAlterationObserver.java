@@ -0,0 +1,301 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.io.monitor;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.util.Comparator;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOCase;
+
+/**
+ * A {@link FileAlterationObserver} which keeps the state of the files in compact arrays instead of a tree of
+ * {@link FileEntry} objects.
+ * <p>
+ * Each file costs 25 bytes of primitive arrays: the index of its name in a table of distinct names, its
+ * <code>exists</code> and <code>directory</code> flags, its <code>lastModified</code> time, its
+ * <code>length</code> and its number of descendants. Names shared by many files, such as those of the files of
+ * similar directories, are stored once. A {@link FileEntry} with its {@link File} and their strings typically
+ * costs about ten times more, which matters for trees of millions of files.
+ * </p>
+ * <p>
+ * The files are compared exactly as {@link FileEntry#refresh(File)} compares them, and listeners receive the same
+ * events in the same order as with a {@link FileAlterationObserver}. Custom {@link FileEntry} implementations can
+ * not be used with this observer.
+ * </p>
+ *
+ * @see FileAlterationObserver
+ * @since 2.7
+ */
+public class CompactFileAlterationObserver extends FileAlterationObserver {
+
+    private static final long serialVersionUID = 8427436419315796373L;
+
+    private FileSnapshot snapshot;
+
+    /**
+     * Construct an observer for the specified directory.
+     *
+     * @param directory the directory to observe
+     */
+    public CompactFileAlterationObserver(final File directory) {
+        this(directory, null);
+    }
+
+    /**
+     * Construct an observer for the specified directory and file filter.
+     *
+     * @param directory the directory to observe
+     * @param fileFilter The file filter or null if none
+     */
+    public CompactFileAlterationObserver(final File directory, final FileFilter fileFilter) {
+        this(directory, fileFilter, null);
+    }
+
+    /**
+     * Construct an observer for the specified directory, file filter and
+     * file comparator.
+     *
+     * @param directory the directory to observe
+     * @param fileFilter The file filter or null if none
+     * @param caseSensitivity  what case sensitivity to use comparing file names, null means system sensitive
+     */
+    public CompactFileAlterationObserver(final File directory, final FileFilter fileFilter,
+                                         final IOCase caseSensitivity) {
+        super(directory, fileFilter, caseSensitivity);
+    }
+
+    /**
+     * Return the current state of the files.
+     *
+     * @return the snapshot, or null if the observer is not initialized
+     */
+    FileSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Initialize the observer.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Override
+    public void initialize() throws Exception {
+        final File rootFile = getDirectory();
+        final FileSnapshot current = new FileSnapshot(new FileSnapshot.NameTable(),
+                snapshot == null ? 0 : snapshot.size());
+        final int root = current.add(rootFile);
+        for (final File file : listFiles(rootFile)) {
+            create(file, current, false);
+        }
+        current.endChildren(root);
+        snapshot = current.trim();
+    }
+
+    /**
+     * Check whether the file and its children have been created, modified or deleted.
+     */
+    @Override
+    public void checkAndNotify() {
+        if (snapshot == null) {
+            // not initialized, all the files are new
+            snapshot = new FileSnapshot(new FileSnapshot.NameTable(), 0);
+            snapshot.addUnchecked(getDirectory());
+        }
+
+        /* fire onStart() */
+        for (final FileAlterationListener listener : getListeners()) {
+            listener.onStart(this);
+        }
+
+        /* fire directory/file events */
+        final File rootFile = getDirectory();
+        final FileSnapshot previous = snapshot;
+        final FileSnapshot current = new FileSnapshot(previous.getNameTable(), previous.size());
+        final int root = current.add(previous, 0);
+        if (rootFile.exists()) {
+            checkAndNotify(previous, 0, rootFile, listFiles(rootFile), current);
+        } else if (previous.isExists(0)) {
+            checkAndNotify(previous, 0, rootFile, FileUtils.EMPTY_FILE_ARRAY, current);
+        } else {
+            // Didn't exist and still doesn't
+        }
+        current.endChildren(root);
+        snapshot = current.trim();
+
+        /* fire onStop() */
+        for (final FileAlterationListener listener : getListeners()) {
+            listener.onStop(this);
+        }
+    }
+
+    /**
+     * Write the entries of the snapshot to a checkpoint.
+     *
+     * @param out the checkpoint
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    void writeEntries(final DataOutputStream out) throws IOException {
+        writeEntry(out, snapshot, 0);
+    }
+
+    @Override
+    boolean isInitialized() {
+        return snapshot != null;
+    }
+
+    private static void writeEntry(final DataOutputStream out, final FileSnapshot snapshot, final int index)
+            throws IOException {
+        out.writeUTF(snapshot.getName(index));
+        out.writeByte((snapshot.isExists(index) ? CHECKPOINT_EXISTS : 0)
+                | (snapshot.isDirectory(index) ? CHECKPOINT_DIRECTORY : 0));
+        out.writeLong(snapshot.getLastModified(index));
+        out.writeLong(snapshot.getLength(index));
+        final int end = snapshot.next(index);
+        int count = 0;
+        for (int child = index + 1; child < end; child = snapshot.next(child)) {
+            count++;
+        }
+        out.writeInt(count);
+        for (int child = index + 1; child < end; child = snapshot.next(child)) {
+            writeEntry(out, snapshot, child);
+        }
+    }
+
+    /**
+     * Read the entries of a checkpoint into a new snapshot.
+     *
+     * @param in the checkpoint
+     * @throws IOException if an I/O error occurs or the checkpoint is corrupt
+     */
+    @Override
+    void readEntries(final DataInputStream in) throws IOException {
+        final FileSnapshot current = new FileSnapshot(new FileSnapshot.NameTable(), 0);
+        readEntry(in, current);
+        snapshot = current.trim();
+    }
+
+    private static void readEntry(final DataInputStream in, final FileSnapshot current) throws IOException {
+        final String name = in.readUTF();
+        final int flags = in.readByte();
+        final int index = current.add(name, (flags & CHECKPOINT_EXISTS) != 0, (flags & CHECKPOINT_DIRECTORY) != 0,
+                in.readLong(), in.readLong());
+        final int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Corrupt checkpoint");
+        }
+        for (int i = 0; i < count; i++) {
+            readEntry(in, current);
+        }
+        current.endChildren(index);
+    }
+
+    /**
+     * Compare the children of an entry of the previous snapshot with the current list of files, appending their
+     * current state to the new snapshot.
+     *
+     * @param previous The previous snapshot
+     * @param parent The index of the parent entry in the previous snapshot
+     * @param parentFile The parent file
+     * @param files  The current list of files
+     * @param current The new snapshot
+     */
+    private void checkAndNotify(final FileSnapshot previous, final int parent, final File parentFile,
+                                final File[] files, final FileSnapshot current) {
+        final Comparator<File> comparator = getComparator();
+        int c = 0;
+        final int end = previous.next(parent);
+        for (int entry = parent + 1; entry < end; entry = previous.next(entry)) {
+            final File file = new File(parentFile, previous.getName(entry));
+            while (c < files.length && comparator.compare(file, files[c]) > 0) {
+                create(files[c], current, true);
+                c++;
+            }
+            if (c < files.length && comparator.compare(file, files[c]) == 0) {
+                final int index = current.add(files[c]);
+                if (current.isChanged(index, previous, entry)) {
+                    for (final FileAlterationListener listener : getListeners()) {
+                        if (current.isDirectory(index)) {
+                            listener.onDirectoryChange(files[c]);
+                        } else {
+                            listener.onFileChange(files[c]);
+                        }
+                    }
+                }
+                checkAndNotify(previous, entry, files[c], listFiles(files[c]), current);
+                current.endChildren(index);
+                c++;
+            } else {
+                delete(previous, entry, file);
+            }
+        }
+        for (; c < files.length; c++) {
+            create(files[c], current, true);
+        }
+    }
+
+    /**
+     * Append a new file and the files below it to a snapshot, firing created events if required.
+     *
+     * @param file The new file
+     * @param current The new snapshot
+     * @param notify Whether to fire created events
+     */
+    private void create(final File file, final FileSnapshot current, final boolean notify) {
+        final int index = current.add(file);
+        if (notify) {
+            for (final FileAlterationListener listener : getListeners()) {
+                if (current.isDirectory(index)) {
+                    listener.onDirectoryCreate(file);
+                } else {
+                    listener.onFileCreate(file);
+                }
+            }
+        }
+        for (final File child : listFiles(file)) {
+            create(child, current, notify);
+        }
+        current.endChildren(index);
+    }
+
+    /**
+     * Fire deleted events for an entry of the previous snapshot, after those of its descendants.
+     *
+     * @param previous The previous snapshot
+     * @param entry The index of the deleted entry
+     * @param file The deleted file
+     */
+    private void delete(final FileSnapshot previous, final int entry, final File file) {
+        final int end = previous.next(entry);
+        for (int child = entry + 1; child < end; child = previous.next(child)) {
+            delete(previous, child, new File(file, previous.getName(child)));
+        }
+        for (final FileAlterationListener listener : getListeners()) {
+            if (previous.isDirectory(entry)) {
+                listener.onDirectoryDelete(file);
+            } else {
+                listener.onFileDelete(file);
+            }
+        }
+    }
+
+}
@@ -16,13 +16,27 @@
  */
 package org.apache.commons.io.monitor;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOCase;
@@ -114,6 +128,37 @@
  * method is used to determine if a file or directory has changed since the last
  * check and stores the current state of the {@link File}'s properties.
  *
+ * <h2>Parallel Scanning</h2>
+ * Large trees can be scanned in parallel by constructing the observer with a
+ * {@link ForkJoinPool}. The directories are then listed and the attributes of
+ * their files read with a single
+ * {@link Files#readAttributes(java.nio.file.Path, Class, java.nio.file.LinkOption...)}
+ * call per file by the threads of the pool, and
+ * {@link FileEntry#refresh(File, BasicFileAttributes)} is used instead of
+ * {@link FileEntry#refresh(File)}. The scanned tree is then compared with the
+ * previous state on the calling thread, so listeners receive exactly the same
+ * events, in the same order, as with a sequential scan.
+ * <pre>
+ *      ForkJoinPool pool = new ForkJoinPool();
+ *      FileAlterationObserver observer = new FileAlterationObserver(directory, filter, null, pool);
+ * </pre>
+ * The pool is not serialized: a deserialized observer scans sequentially.
+ *
+ * <h2>Checkpoints</h2>
+ * The state of the observer can be written to a compact binary checkpoint file with
+ * {@link #writeCheckpoint(File)}, for example every few checks from
+ * {@link FileAlterationListener#onStop(FileAlterationObserver)}, which runs on the
+ * thread checking the observer. After a restart, {@link #initialize(File)} restores
+ * that state instead of scanning the tree, and the next {@link #checkAndNotify()}
+ * reports the files created, changed and deleted while the observer was stopped:
+ * <pre>
+ *      File checkpoint = new File("observer.checkpoint");
+ *      observer.initialize(checkpoint);
+ *      ...
+ *      observer.checkAndNotify();
+ *      observer.writeCheckpoint(checkpoint);
+ * </pre>
+ *
  * @see FileAlterationListener
  * @see FileAlterationMonitor
  *
@@ -122,10 +167,27 @@
 public class FileAlterationObserver implements Serializable {
 
     private static final long serialVersionUID = 1185122225658782848L;
+
+    /** The first bytes of a checkpoint file, identifying its format. */
+    private static final int CHECKPOINT_MAGIC = 0x46414f01;
+
+    /** The flag of an entry of a checkpoint whose file exists. */
+    static final int CHECKPOINT_EXISTS = 1;
+
+    /** The flag of an entry of a checkpoint whose file is a directory. */
+    static final int CHECKPOINT_DIRECTORY = 2;
+
+    /** The smallest size of an entry of a checkpoint: an empty name, the flags, two longs and the child count. */
+    private static final int CHECKPOINT_MIN_ENTRY_SIZE = 2 + 1 + 8 + 8 + 4;
+
     private final List<FileAlterationListener> listeners = new CopyOnWriteArrayList<>();
     private final FileEntry rootEntry;
     private final FileFilter fileFilter;
     private final Comparator<File> comparator;
+    private final transient ForkJoinPool pool;
+
+    /** Whether the state was initialized or checked, so that it can be written to a checkpoint. */
+    private volatile boolean initialized;
 
     /**
      * Construct an observer for the specified directory.
@@ -190,6 +252,21 @@ public FileAlterationObserver(final File directory, final FileFilter fileFilter,
         this(new FileEntry(directory), fileFilter, caseSensitivity);
     }
 
+    /**
+     * Construct an observer for the specified directory, file filter,
+     * file comparator and pool to scan the directories in parallel.
+     *
+     * @param directory the directory to observe
+     * @param fileFilter The file filter or null if none
+     * @param caseSensitivity  what case sensitivity to use comparing file names, null means system sensitive
+     * @param pool the pool to scan the directories on, or null to scan them sequentially
+     * @since 2.7
+     */
+    public FileAlterationObserver(final File directory, final FileFilter fileFilter, final IOCase caseSensitivity,
+                                  final ForkJoinPool pool) {
+        this(new FileEntry(directory), fileFilter, caseSensitivity, pool);
+    }
+
     /**
      * Construct an observer for the specified directory, file filter and
      * file comparator.
@@ -200,6 +277,21 @@ public FileAlterationObserver(final File directory, final FileFilter fileFilter,
      */
     protected FileAlterationObserver(final FileEntry rootEntry, final FileFilter fileFilter,
                                      final IOCase caseSensitivity) {
+        this(rootEntry, fileFilter, caseSensitivity, null);
+    }
+
+    /**
+     * Construct an observer for the specified directory, file filter,
+     * file comparator and pool to scan the directories in parallel.
+     *
+     * @param rootEntry the root directory to observe
+     * @param fileFilter The file filter or null if none
+     * @param caseSensitivity  what case sensitivity to use comparing file names, null means system sensitive
+     * @param pool the pool to scan the directories on, or null to scan them sequentially
+     * @since 2.7
+     */
+    protected FileAlterationObserver(final FileEntry rootEntry, final FileFilter fileFilter,
+                                     final IOCase caseSensitivity, final ForkJoinPool pool) {
         if (rootEntry == null) {
             throw new IllegalArgumentException("Root entry is missing");
         }
@@ -215,6 +307,7 @@ protected FileAlterationObserver(final FileEntry rootEntry, final FileFilter fil
         } else {
             this.comparator = NameFileComparator.NAME_COMPARATOR;
         }
+        this.pool = pool;
     }
 
     /**
@@ -226,6 +319,24 @@ public File getDirectory() {
         return rootEntry.getFile();
     }
 
+    /**
+     * Return the entry of the directory being observed.
+     *
+     * @return the root entry
+     */
+    FileEntry getRootEntry() {
+        return rootEntry;
+    }
+
+    /**
+     * Return the comparator used to sort and match the files of a directory.
+     *
+     * @return the comparator
+     */
+    Comparator<File> getComparator() {
+        return comparator;
+    }
+
     /**
      * Return the fileFilter.
      *
@@ -274,9 +385,152 @@ public Iterable<FileAlterationListener> getListeners() {
      * @throws Exception if an error occurs
      */
     public void initialize() throws Exception {
+        if (pool != null) {
+            final ScannedFile root = scan(rootEntry.getFile());
+            rootEntry.refresh(root.file, root.attributes);
+            rootEntry.setChildren(doListFiles(root, rootEntry));
+            initialized = true;
+            return;
+        }
         rootEntry.refresh(rootEntry.getFile());
         final FileEntry[] children = doListFiles(rootEntry.getFile(), rootEntry);
         rootEntry.setChildren(children);
+        initialized = true;
+    }
+
+    /**
+     * Initialize the observer with the state saved in a checkpoint file, or from the file system if the
+     * checkpoint does not exist, is not readable or was written for another directory.
+     * <p>
+     * The next call to {@link #checkAndNotify()} reports the files created, changed or deleted since the
+     * checkpoint was written.
+     * </p>
+     *
+     * @param checkpoint the checkpoint file written by {@link #writeCheckpoint(File)}
+     * @return {@code true} if the state was restored from the checkpoint, {@code false} if the observer was
+     * initialized from the file system
+     * @throws Exception if an error occurs
+     * @since 2.7
+     */
+    public boolean initialize(final File checkpoint) throws Exception {
+        if (checkpoint.isFile()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    new FileInputStream(checkpoint)))) {
+                if (in.readInt() == CHECKPOINT_MAGIC && in.readUTF().equals(getDirectory().getPath())) {
+                    readEntries(in);
+                    return true;
+                }
+            } catch (final IOException e) {
+                // truncated or corrupt, scan the file system
+            }
+        }
+        initialize();
+        return false;
+    }
+
+    /**
+     * Write the state of the observer to a checkpoint file, replacing it atomically when the file system
+     * supports it.
+     * <p>
+     * The state must not be checked concurrently, so this method is best called from the thread invoking
+     * {@link #checkAndNotify()}.
+     * </p>
+     *
+     * @param checkpoint the checkpoint file
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalStateException if the observer has neither been initialized nor checked
+     * @since 2.7
+     */
+    public void writeCheckpoint(final File checkpoint) throws IOException {
+        if (!isInitialized()) {
+            throw new IllegalStateException("Observer is not initialized");
+        }
+        final File temp = new File(checkpoint.getPath() + ".tmp");
+        boolean moved = false;
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(temp)))) {
+                out.writeInt(CHECKPOINT_MAGIC);
+                out.writeUTF(getDirectory().getPath());
+                writeEntries(out);
+            }
+            try {
+                Files.move(temp.toPath(), checkpoint.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), checkpoint.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            moved = true;
+        } finally {
+            if (!moved) {
+                FileUtils.deleteQuietly(temp);
+            }
+        }
+    }
+
+    /**
+     * Tells whether the state of the observer was initialized, restored from a checkpoint or checked.
+     *
+     * @return {@code true} if the state can be written to a checkpoint
+     */
+    boolean isInitialized() {
+        return initialized;
+    }
+
+    /**
+     * Write the entries of a checkpoint, depth first: the name, flags, last modified time, length and number
+     * of children of each entry, followed by its children.
+     *
+     * @param out the checkpoint
+     * @throws IOException if an I/O error occurs
+     */
+    void writeEntries(final DataOutputStream out) throws IOException {
+        writeEntry(out, rootEntry);
+    }
+
+    private static void writeEntry(final DataOutputStream out, final FileEntry entry) throws IOException {
+        out.writeUTF(entry.getName());
+        out.writeByte((entry.isExists() ? CHECKPOINT_EXISTS : 0) | (entry.isDirectory() ? CHECKPOINT_DIRECTORY : 0));
+        out.writeLong(entry.getLastModified());
+        out.writeLong(entry.getLength());
+        final FileEntry[] children = entry.getChildren();
+        out.writeInt(children.length);
+        for (final FileEntry child : children) {
+            writeEntry(out, child);
+        }
+    }
+
+    /**
+     * Read the entries of a checkpoint written by {@link #writeEntries(DataOutputStream)}.
+     *
+     * @param in the checkpoint
+     * @throws IOException if an I/O error occurs or the checkpoint is corrupt
+     */
+    void readEntries(final DataInputStream in) throws IOException {
+        rootEntry.setName(in.readUTF());
+        readEntry(in, rootEntry);
+        initialized = true;
+    }
+
+    private static void readEntry(final DataInputStream in, final FileEntry entry) throws IOException {
+        final int flags = in.readByte();
+        entry.setExists((flags & CHECKPOINT_EXISTS) != 0);
+        entry.setDirectory((flags & CHECKPOINT_DIRECTORY) != 0);
+        entry.setLastModified(in.readLong());
+        entry.setLength(in.readLong());
+        final int count = in.readInt();
+        // the stream reads a file, so the available bytes are the rest of the checkpoint
+        if (count < 0 || count > in.available() / CHECKPOINT_MIN_ENTRY_SIZE) {
+            throw new IOException("Corrupt checkpoint");
+        }
+        final FileEntry[] children = count > 0 ? new FileEntry[count] : FileEntry.EMPTY_ENTRIES;
+        for (int i = 0; i < count; i++) {
+            final String name = in.readUTF();
+            children[i] = entry.newChildInstance(new File(entry.getFile(), name));
+            children[i].setName(name);
+            readEntry(in, children[i]);
+        }
+        entry.setChildren(children);
     }
 
     /**
@@ -300,13 +554,21 @@ public void checkAndNotify() {
 
         /* fire directory/file events */
         final File rootFile = rootEntry.getFile();
-        if (rootFile.exists()) {
+        if (pool != null) {
+            final ScannedFile root = scan(rootFile);
+            if (root.attributes != null) {
+                checkAndNotify(rootEntry, rootEntry.getChildren(), root.children);
+            } else if (rootEntry.isExists()) {
+                checkAndNotify(rootEntry, rootEntry.getChildren(), ScannedFile.EMPTY);
+            }
+        } else if (rootFile.exists()) {
             checkAndNotify(rootEntry, rootEntry.getChildren(), listFiles(rootFile));
         } else if (rootEntry.isExists()) {
             checkAndNotify(rootEntry, rootEntry.getChildren(), FileUtils.EMPTY_FILE_ARRAY);
         } else {
             // Didn't exist and still doesn't
         }
+        initialized = true;
 
         /* fire onStop() */
         for (final FileAlterationListener listener : listeners) {
@@ -321,7 +583,7 @@ public void checkAndNotify() {
      * @param previous The original list of files
      * @param files  The current list of files
      */
-    private void checkAndNotify(final FileEntry parent, final FileEntry[] previous, final File[] files) {
+    void checkAndNotify(final FileEntry parent, final FileEntry[] previous, final File[] files) {
         int c = 0;
         final FileEntry[] current = files.length > 0 ? new FileEntry[files.length] : FileEntry.EMPTY_ENTRIES;
         for (final FileEntry entry : previous) {
@@ -332,7 +594,9 @@ private void checkAndNotify(final FileEntry parent, final FileEntry[] previous,
             }
             if (c < files.length && comparator.compare(entry.getFile(), files[c]) == 0) {
                 doMatch(entry, files[c]);
-                checkAndNotify(entry, entry.getChildren(), listFiles(files[c]));
+                if (checkChildren(entry)) {
+                    checkAndNotify(entry, entry.getChildren(), listFiles(files[c]));
+                }
                 current[c] = entry;
                 c++;
             } else {
@@ -347,6 +611,43 @@ private void checkAndNotify(final FileEntry parent, final FileEntry[] previous,
         parent.setChildren(current);
     }
 
+    /**
+     * Whether the children of an existing entry must be compared with the current files when its parent is checked.
+     * <p>
+     * This implementation always compares them.
+     * </p>
+     *
+     * @param entry The entry, refreshed with the current state of its file
+     * @return true to check the children of the entry
+     */
+    boolean checkChildren(final FileEntry entry) {
+        return true;
+    }
+
+    /**
+     * Called when an entry is created for a new file, before its children are listed.
+     * <p>
+     * This implementation does nothing.
+     * </p>
+     *
+     * @param entry The new entry
+     */
+    void entryCreated(final FileEntry entry) {
+        // noop
+    }
+
+    /**
+     * Called when the entry of a deleted file is discarded, after its children.
+     * <p>
+     * This implementation does nothing.
+     * </p>
+     *
+     * @param entry The deleted entry
+     */
+    void entryDeleted(final FileEntry entry) {
+        // noop
+    }
+
     /**
      * Create a new file entry for the specified file.
      *
@@ -357,6 +658,7 @@ private void checkAndNotify(final FileEntry parent, final FileEntry[] previous,
     private FileEntry createFileEntry(final FileEntry parent, final File file) {
         final FileEntry entry = parent.newChildInstance(file);
         entry.refresh(file);
+        entryCreated(entry);
         final FileEntry[] children = doListFiles(file, entry);
         entry.setChildren(children);
         return entry;
@@ -402,16 +704,121 @@ private void doCreate(final FileEntry entry) {
      * @param entry The previous file system entry
      * @param file The current file
      */
-    private void doMatch(final FileEntry entry, final File file) {
+    void doMatch(final FileEntry entry, final File file) {
         if (entry.refresh(file)) {
-            for (final FileAlterationListener listener : listeners) {
-                if (entry.isDirectory()) {
-                    listener.onDirectoryChange(file);
-                } else {
-                    listener.onFileChange(file);
+            doChange(entry, file);
+        }
+    }
+
+    /**
+     * Fire directory/file change events to the registered listeners.
+     *
+     * @param entry The refreshed file entry
+     * @param file The current file
+     */
+    private void doChange(final FileEntry entry, final File file) {
+        for (final FileAlterationListener listener : listeners) {
+            if (entry.isDirectory()) {
+                listener.onDirectoryChange(file);
+            } else {
+                listener.onFileChange(file);
+            }
+        }
+    }
+
+    /**
+     * Compare two file lists for files which have been created, modified or deleted,
+     * using the files of a parallel scan.
+     *
+     * @param parent The parent entry
+     * @param previous The original list of files
+     * @param files  The scanned list of files
+     */
+    private void checkAndNotify(final FileEntry parent, final FileEntry[] previous, final ScannedFile[] files) {
+        int c = 0;
+        final FileEntry[] current = files.length > 0 ? new FileEntry[files.length] : FileEntry.EMPTY_ENTRIES;
+        for (final FileEntry entry : previous) {
+            while (c < files.length && comparator.compare(entry.getFile(), files[c].file) > 0) {
+                current[c] = createFileEntry(parent, files[c]);
+                doCreate(current[c]);
+                c++;
+            }
+            if (c < files.length && comparator.compare(entry.getFile(), files[c].file) == 0) {
+                if (entry.refresh(files[c].file, files[c].attributes)) {
+                    doChange(entry, files[c].file);
+                }
+                if (checkChildren(entry)) {
+                    checkAndNotify(entry, entry.getChildren(), files[c].children);
                 }
+                current[c] = entry;
+                c++;
+            } else {
+                checkAndNotify(entry, entry.getChildren(), ScannedFile.EMPTY);
+                doDelete(entry);
             }
         }
+        for (; c < files.length; c++) {
+            current[c] = createFileEntry(parent, files[c]);
+            doCreate(current[c]);
+        }
+        parent.setChildren(current);
+    }
+
+    /**
+     * Create a new file entry for a file of a parallel scan.
+     *
+     * @param parent The parent file entry
+     * @param file The scanned file to create an entry for
+     * @return A new file entry
+     */
+    private FileEntry createFileEntry(final FileEntry parent, final ScannedFile file) {
+        final FileEntry entry = parent.newChildInstance(file.file);
+        entry.refresh(file.file, file.attributes);
+        entryCreated(entry);
+        entry.setChildren(doListFiles(file, entry));
+        return entry;
+    }
+
+    /**
+     * Create the entries of the children of a file of a parallel scan.
+     *
+     * @param file The scanned file
+     * @param entry the parent entry
+     * @return The child entries
+     */
+    private FileEntry[] doListFiles(final ScannedFile file, final FileEntry entry) {
+        final ScannedFile[] files = file.children;
+        final FileEntry[] children = files.length > 0 ? new FileEntry[files.length] : FileEntry.EMPTY_ENTRIES;
+        for (int i = 0; i < files.length; i++) {
+            children[i] = createFileEntry(entry, files[i]);
+        }
+        return children;
+    }
+
+    /**
+     * Scan a file and all the files below it on the pool.
+     *
+     * @param file The file to scan
+     * @return The scanned file
+     */
+    private ScannedFile scan(final File file) {
+        final ScannedFile scanned = new ScannedFile(file, readAttributes(file));
+        pool.invoke(new ScanTask(scanned));
+        return scanned;
+    }
+
+    /**
+     * Read the attributes of a file with a single call.
+     *
+     * @param file The file
+     * @return the attributes, or null if the file does not exist or can not be read
+     */
+    private static BasicFileAttributes readAttributes(final File file) {
+        try {
+            return Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+        } catch (final IOException e) {
+            return null;
+        }
     }
 
     /**
@@ -427,6 +834,7 @@ private void doDelete(final FileEntry entry) {
                 listener.onFileDelete(entry.getFile());
             }
         }
+        entryDeleted(entry);
     }
 
     /**
@@ -436,7 +844,7 @@ private void doDelete(final FileEntry entry) {
      * @return the directory contents or a zero length array if
      * the empty or the file is not a directory
      */
-    private File[] listFiles(final File file) {
+    File[] listFiles(final File file) {
         File[] children = null;
         if (file.isDirectory()) {
             children = fileFilter == null ? file.listFiles() : file.listFiles(fileFilter);
@@ -450,6 +858,58 @@ private File[] listFiles(final File file) {
         return children;
     }
 
+    /**
+     * A file listed by a parallel scan, with its attributes and sorted children.
+     */
+    private static final class ScannedFile {
+
+        static final ScannedFile[] EMPTY = new ScannedFile[0];
+
+        final File file;
+        final BasicFileAttributes attributes;
+        ScannedFile[] children = EMPTY;
+
+        ScannedFile(final File file, final BasicFileAttributes attributes) {
+            this.file = file;
+            this.attributes = attributes;
+        }
+    }
+
+    /**
+     * Lists a scanned directory, reads the attributes of its files and forks the scan of its subdirectories.
+     */
+    private final class ScanTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ScannedFile directory;
+
+        ScanTask(final ScannedFile directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        protected void compute() {
+            if (directory.attributes == null || !directory.attributes.isDirectory()) {
+                return;
+            }
+            final File[] files = listFiles(directory.file);
+            if (files.length == 0) {
+                return;
+            }
+            final ScannedFile[] children = new ScannedFile[files.length];
+            final List<ScanTask> tasks = new ArrayList<>();
+            for (int i = 0; i < files.length; i++) {
+                children[i] = new ScannedFile(files[i], readAttributes(files[i]));
+                if (children[i].attributes != null && children[i].attributes.isDirectory()) {
+                    tasks.add(new ScanTask(children[i]));
+                }
+            }
+            directory.children = children;
+            invokeAll(tasks);
+        }
+    }
+
     /**
      * Provide a String representation of this observer.
      *
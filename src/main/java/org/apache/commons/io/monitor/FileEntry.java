@@ -18,6 +18,7 @@
 
 import java.io.File;
 import java.io.Serializable;
+import java.nio.file.attribute.BasicFileAttributes;
 
 /**
  * The state of a file or directory, capturing the following {@link File} attributes at a point in time.
@@ -115,6 +116,42 @@ public boolean refresh(final File file) {
                 length != origLength;
     }
 
+    /**
+     * Refresh the attributes from attributes read from the {@link File}, indicating
+     * whether the file has changed.
+     * <p>
+     * This method refreshes and compares the same properties as {@link #refresh(File)},
+     * taking them from attributes read with a single call, such as
+     * {@link java.nio.file.Files#readAttributes(java.nio.file.Path, Class, java.nio.file.LinkOption...)},
+     * instead of querying the file for each of them.
+     *
+     * @param file the file instance to compare to
+     * @param attributes the attributes of the file, or {@code null} if it does not exist
+     * @return {@code true} if the file has changed, otherwise {@code false}
+     * @since 2.7
+     */
+    public boolean refresh(final File file, final BasicFileAttributes attributes) {
+
+        // cache original values
+        final boolean origExists       = exists;
+        final long    origLastModified = lastModified;
+        final boolean origDirectory    = directory;
+        final long    origLength       = length;
+
+        // refresh the values
+        name         = file.getName();
+        exists       = attributes != null;
+        directory    = exists && attributes.isDirectory();
+        lastModified = exists ? attributes.lastModifiedTime().toMillis() : 0;
+        length       = exists && !directory ? attributes.size() : 0;
+
+        // Return if there are changes
+        return exists != origExists ||
+                lastModified != origLastModified ||
+                directory != origDirectory ||
+                length != origLength;
+    }
+
     /**
      * Create a new child instance.
      * <p>
@@ -0,0 +1,329 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.io.monitor;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The state of a tree of files at a point in time, stored in parallel primitive arrays.
+ * <p>
+ * The entries are stored in depth first order: the children of an entry follow it, each one followed by its own
+ * descendants. An entry records the index of its name in a {@link NameTable} shared by the snapshots of an
+ * observer, the same <code>exists</code>, <code>directory</code>, <code>lastModified</code> and
+ * <code>length</code> properties as a {@link FileEntry}, and its number of descendants, which takes
+ * {@link #BYTES_PER_ENTRY} bytes per entry instead of a {@link FileEntry}, its {@link File} and their strings.
+ * </p>
+ *
+ * @see CompactFileAlterationObserver
+ * @since 2.7
+ */
+final class FileSnapshot implements Serializable {
+
+    private static final long serialVersionUID = 3453592315578361452L;
+
+    /** The number of bytes of the arrays per entry. */
+    static final int BYTES_PER_ENTRY = 4 + 1 + 8 + 8 + 4;
+
+    private static final byte EXISTS = 1;
+    private static final byte DIRECTORY = 2;
+
+    private final NameTable nameTable;
+    private int size;
+    private int[] names;
+    private byte[] flags;
+    private long[] lastModified;
+    private long[] lengths;
+    private int[] descendants;
+
+    /**
+     * Construct an empty snapshot.
+     *
+     * @param nameTable the table of the names
+     * @param capacity the initial number of entries
+     */
+    FileSnapshot(final NameTable nameTable, final int capacity) {
+        this.nameTable = nameTable;
+        final int length = Math.max(capacity, 16);
+        names = new int[length];
+        flags = new byte[length];
+        lastModified = new long[length];
+        lengths = new long[length];
+        descendants = new int[length];
+    }
+
+    /**
+     * Append an entry with the current state of a file, as {@link FileEntry#refresh(File)} reads it.
+     *
+     * @param file the file
+     * @return the index of the entry
+     */
+    int add(final File file) {
+        final boolean exists = file.exists();
+        final boolean directory = exists && file.isDirectory();
+        return add(nameTable.getId(file.getName()), (byte) ((exists ? EXISTS : 0) | (directory ? DIRECTORY : 0)),
+                exists ? file.lastModified() : 0, exists && !directory ? file.length() : 0);
+    }
+
+    /**
+     * Append an entry for a file which was never checked, like a new {@link FileEntry}.
+     *
+     * @param file the file
+     * @return the index of the entry
+     */
+    int addUnchecked(final File file) {
+        return add(nameTable.getId(file.getName()), (byte) 0, 0, 0);
+    }
+
+    /**
+     * Append an entry with the given state.
+     *
+     * @param name the file name
+     * @param exists whether the file exists
+     * @param directory whether the file is a directory
+     * @param modified the last modified time
+     * @param length the length
+     * @return the index of the entry
+     */
+    int add(final String name, final boolean exists, final boolean directory, final long modified,
+            final long length) {
+        return add(nameTable.getId(name), (byte) ((exists ? EXISTS : 0) | (directory ? DIRECTORY : 0)), modified,
+                length);
+    }
+
+    /**
+     * Append a copy of an entry of another snapshot sharing the same name table, without its descendants.
+     *
+     * @param snapshot the snapshot
+     * @param index the index of the entry in the snapshot
+     * @return the index of the new entry
+     */
+    int add(final FileSnapshot snapshot, final int index) {
+        return add(snapshot.names[index], snapshot.flags[index], snapshot.lastModified[index],
+                snapshot.lengths[index]);
+    }
+
+    private int add(final int name, final byte flag, final long modified, final long length) {
+        if (size == names.length) {
+            resize(Math.max(size + (size >> 1), 16));
+        }
+        names[size] = name;
+        flags[size] = flag;
+        lastModified[size] = modified;
+        lengths[size] = length;
+        descendants[size] = 0;
+        return size++;
+    }
+
+    /**
+     * Record that the entries appended since an entry are its descendants.
+     *
+     * @param index the index of the entry
+     */
+    void endChildren(final int index) {
+        descendants[index] = size - index - 1;
+    }
+
+    /**
+     * Release the unused capacity, and rebuild the name table when it mostly holds names no longer used.
+     *
+     * @return a snapshot with the same entries, this one or a new one with a new name table
+     */
+    FileSnapshot trim() {
+        if (size < names.length) {
+            resize(size);
+        }
+        if (nameTable.size() <= 2 * size + 1024) {
+            return this;
+        }
+        final NameTable table = new NameTable();
+        final FileSnapshot snapshot = new FileSnapshot(table, 0);
+        snapshot.size = size;
+        snapshot.names = new int[size];
+        for (int i = 0; i < size; i++) {
+            snapshot.names[i] = table.getId(nameTable.getName(names[i]));
+        }
+        snapshot.flags = flags;
+        snapshot.lastModified = lastModified;
+        snapshot.lengths = lengths;
+        snapshot.descendants = descendants;
+        return snapshot;
+    }
+
+    private void resize(final int length) {
+        names = Arrays.copyOf(names, length);
+        flags = Arrays.copyOf(flags, length);
+        lastModified = Arrays.copyOf(lastModified, length);
+        lengths = Arrays.copyOf(lengths, length);
+        descendants = Arrays.copyOf(descendants, length);
+    }
+
+    /**
+     * Compare an entry with an entry of a previous snapshot, as {@link FileEntry#refresh(File)} does.
+     *
+     * @param index the index of the entry
+     * @param previous the previous snapshot
+     * @param previousIndex the index of the entry in the previous snapshot
+     * @return {@code true} if the file has changed, otherwise {@code false}
+     */
+    boolean isChanged(final int index, final FileSnapshot previous, final int previousIndex) {
+        return flags[index] != previous.flags[previousIndex] ||
+                lastModified[index] != previous.lastModified[previousIndex] ||
+                lengths[index] != previous.lengths[previousIndex];
+    }
+
+    /**
+     * Return the table of the names.
+     *
+     * @return the name table
+     */
+    NameTable getNameTable() {
+        return nameTable;
+    }
+
+    /**
+     * Return the number of entries.
+     *
+     * @return the number of entries
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Return the number of bytes used by the arrays of this snapshot, not including the name table.
+     *
+     * @return the number of bytes
+     */
+    long getMemoryUsage() {
+        return (long) names.length * BYTES_PER_ENTRY;
+    }
+
+    /**
+     * Return the name of an entry.
+     *
+     * @param index the index of the entry
+     * @return the file name
+     */
+    String getName(final int index) {
+        return nameTable.getName(names[index]);
+    }
+
+    /**
+     * Return whether the file of an entry existed.
+     *
+     * @param index the index of the entry
+     * @return whether the file existed
+     */
+    boolean isExists(final int index) {
+        return (flags[index] & EXISTS) != 0;
+    }
+
+    /**
+     * Return whether the file of an entry was a directory.
+     *
+     * @param index the index of the entry
+     * @return whether the file was a directory
+     */
+    boolean isDirectory(final int index) {
+        return (flags[index] & DIRECTORY) != 0;
+    }
+
+    /**
+     * Return the last modified time of the file of an entry.
+     *
+     * @param index the index of the entry
+     * @return the last modified time
+     */
+    long getLastModified(final int index) {
+        return lastModified[index];
+    }
+
+    /**
+     * Return the length of the file of an entry.
+     *
+     * @param index the index of the entry
+     * @return the length
+     */
+    long getLength(final int index) {
+        return lengths[index];
+    }
+
+    /**
+     * Return the index following an entry and its descendants, which is the index of its next sibling if it
+     * has one.
+     *
+     * @param index the index of the entry
+     * @return the index after the descendants
+     */
+    int next(final int index) {
+        return index + descendants[index] + 1;
+    }
+
+    /**
+     * The distinct file names of snapshots, each stored once.
+     */
+    static final class NameTable implements Serializable {
+
+        private static final long serialVersionUID = -2021637744498325466L;
+
+        private final Map<String, Integer> ids = new HashMap<>();
+        private String[] names = new String[64];
+
+        /**
+         * Return the id of a name, adding it to the table if needed.
+         *
+         * @param name the name
+         * @return the id of the name
+         */
+        int getId(final String name) {
+            final Integer id = ids.get(name);
+            if (id != null) {
+                return id.intValue();
+            }
+            final int newId = ids.size();
+            if (newId == names.length) {
+                names = Arrays.copyOf(names, newId * 2);
+            }
+            names[newId] = name;
+            ids.put(name, Integer.valueOf(newId));
+            return newId;
+        }
+
+        /**
+         * Return the name with an id.
+         *
+         * @param id the id
+         * @return the name
+         */
+        String getName(final int id) {
+            return names[id];
+        }
+
+        /**
+         * Return the number of names.
+         *
+         * @return the number of names
+         */
+        int size() {
+            return ids.size();
+        }
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.io.monitor;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.IOCase;
+
+/**
+ * A {@link FileAlterationObserver} which only rescans the directories the file system reported changes in.
+ * <p>
+ * Every directory below the root directory accepted by the file filter is registered with a
+ * {@link WatchService} when the observer is initialized, or when the directory is created. Each call to
+ * {@link #checkAndNotify()} then collects the pending watch events and compares only the directories they were
+ * reported for with their previous state, instead of listing the whole tree. Listeners receive the same
+ * create, change and delete events, in the same order for a given directory, as with a
+ * {@link FileAlterationObserver}; a check without pending events costs almost nothing, whatever the size of the
+ * tree.
+ * </p>
+ * <p>
+ * The whole tree is rescanned, as by {@link FileAlterationObserver}, when the watch service reports that events
+ * were lost, and while the root directory is not watched, for example because it does not exist yet. If the watch
+ * service can not be created or a directory can not be registered, for example because a limit of the operating
+ * system is reached, the observer falls back to rescanning the whole tree on every check.
+ * </p>
+ * <p>
+ * The watch service is closed by {@link #destroy()}.
+ * </p>
+ *
+ * @see FileAlterationObserver
+ * @since 2.7
+ */
+public class WatchingFileAlterationObserver extends FileAlterationObserver {
+
+    private static final long serialVersionUID = -4574632932627218036L;
+
+    /** Orders directories parents first. */
+    private static final Comparator<FileEntry> LEVEL_COMPARATOR = new Comparator<FileEntry>() {
+        @Override
+        public int compare(final FileEntry entry1, final FileEntry entry2) {
+            return Integer.compare(entry1.getLevel(), entry2.getLevel());
+        }
+    };
+
+    private transient WatchService watchService;
+    private transient Map<WatchKey, FileEntry> entries;
+    private transient Map<FileEntry, WatchKey> keys;
+
+    /** Whether the whole tree is being rescanned. */
+    private transient boolean scanning;
+
+    /** Whether the next check must rescan the whole tree, as the state was restored from a checkpoint. */
+    private transient boolean restored;
+
+    /**
+     * Construct an observer for the specified directory.
+     *
+     * @param directory the directory to observe
+     */
+    public WatchingFileAlterationObserver(final File directory) {
+        this(directory, null);
+    }
+
+    /**
+     * Construct an observer for the specified directory and file filter.
+     *
+     * @param directory the directory to observe
+     * @param fileFilter The file filter or null if none
+     */
+    public WatchingFileAlterationObserver(final File directory, final FileFilter fileFilter) {
+        this(directory, fileFilter, null);
+    }
+
+    /**
+     * Construct an observer for the specified directory, file filter and
+     * file comparator.
+     *
+     * @param directory the directory to observe
+     * @param fileFilter The file filter or null if none
+     * @param caseSensitivity  what case sensitivity to use comparing file names, null means system sensitive
+     */
+    public WatchingFileAlterationObserver(final File directory, final FileFilter fileFilter,
+                                          final IOCase caseSensitivity) {
+        super(directory, fileFilter, caseSensitivity);
+    }
+
+    /**
+     * Initialize the observer and register the directories with a new watch service.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Override
+    public void initialize() throws Exception {
+        openWatchService();
+        super.initialize();
+    }
+
+    /**
+     * Read the entries of a checkpoint and open a new watch service; the directories are registered by the
+     * next check, which rescans the whole tree.
+     *
+     * @param in the checkpoint
+     * @throws IOException if an I/O error occurs or the checkpoint is corrupt
+     */
+    @Override
+    void readEntries(final DataInputStream in) throws IOException {
+        super.readEntries(in);
+        openWatchService();
+        restored = true;
+    }
+
+    /**
+     * Open a new watch service and register the root directory.
+     *
+     * @throws IOException if an I/O error occurs closing the previous watch service
+     */
+    private void openWatchService() throws IOException {
+        destroy();
+        entries = new HashMap<>();
+        keys = new HashMap<>();
+        try {
+            watchService = getDirectory().toPath().getFileSystem().newWatchService();
+        } catch (final IOException | UnsupportedOperationException e) {
+            watchService = null;
+        }
+        registerRoot();
+    }
+
+    /**
+     * Close the watch service.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void destroy() throws IOException {
+        final WatchService service = watchService;
+        watchService = null;
+        if (keys != null) {
+            keys.clear();
+            entries.clear();
+        }
+        if (service != null) {
+            service.close();
+        }
+    }
+
+    /**
+     * Check the directories with pending watch events for files which have been created, modified or deleted.
+     */
+    @Override
+    public void checkAndNotify() {
+        if (watchService == null) {
+            // not initialized, or polling
+            super.checkAndNotify();
+            return;
+        }
+        final FileEntry rootEntry = getRootEntry();
+        boolean rescan = false;
+        final Set<FileEntry> changed = new HashSet<>();
+        WatchKey key;
+        while (watchService != null && (key = watchService.poll()) != null) {
+            for (final WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    rescan = true;
+                }
+            }
+            final FileEntry entry = entries.get(key);
+            if (entry != null) {
+                if (key.reset()) {
+                    changed.add(entry);
+                } else {
+                    // the directory is gone, its parent reports the deletion
+                    unregister(entry);
+                }
+            }
+        }
+        if (watchService == null || rescan || restored || !keys.containsKey(rootEntry)) {
+            restored = false;
+            registerRoot();
+            scanning = true;
+            try {
+                super.checkAndNotify();
+            } finally {
+                scanning = false;
+            }
+            return;
+        }
+
+        /* fire onStart() */
+        for (final FileAlterationListener listener : getListeners()) {
+            listener.onStart(this);
+        }
+
+        /* fire directory/file events */
+        final List<FileEntry> directories = new ArrayList<>(changed);
+        Collections.sort(directories, LEVEL_COMPARATOR);
+        for (final FileEntry entry : directories) {
+            if (!keys.containsKey(entry)) {
+                // deleted while checking its parent
+                continue;
+            }
+            final File directory = entry.getFile();
+            if (entry != rootEntry) {
+                doMatch(entry, directory);
+                if (!entry.isDirectory()) {
+                    unregister(entry);
+                }
+            }
+            checkAndNotify(entry, entry.getChildren(), listFiles(directory));
+        }
+
+        /* fire onStop() */
+        for (final FileAlterationListener listener : getListeners()) {
+            listener.onStop(this);
+        }
+    }
+
+    /**
+     * Check the children of an entry if they are not watched, registering the directory for the next checks.
+     *
+     * @param entry The entry, refreshed with the current state of its file
+     * @return true to check the children of the entry
+     */
+    @Override
+    boolean checkChildren(final FileEntry entry) {
+        if (!entry.isDirectory()) {
+            unregister(entry);
+            return true;
+        }
+        final boolean watched = keys != null && keys.containsKey(entry);
+        if (!watched) {
+            register(entry);
+        }
+        return scanning || !watched;
+    }
+
+    /**
+     * Register a new directory.
+     *
+     * @param entry The new entry
+     */
+    @Override
+    void entryCreated(final FileEntry entry) {
+        if (entry.isDirectory()) {
+            register(entry);
+        }
+    }
+
+    /**
+     * Unregister a deleted directory.
+     *
+     * @param entry The deleted entry
+     */
+    @Override
+    void entryDeleted(final FileEntry entry) {
+        unregister(entry);
+    }
+
+    /**
+     * Register the root directory if it exists and is not registered yet.
+     */
+    private void registerRoot() {
+        final FileEntry rootEntry = getRootEntry();
+        if (watchService != null && !keys.containsKey(rootEntry) && rootEntry.getFile().isDirectory()) {
+            register(rootEntry);
+        }
+    }
+
+    /**
+     * Register a directory with the watch service, falling back to polling if it fails.
+     *
+     * @param entry The directory entry
+     */
+    private void register(final FileEntry entry) {
+        if (watchService == null) {
+            return;
+        }
+        final WatchKey key;
+        try {
+            key = entry.getFile().toPath().register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+        } catch (final IOException | RuntimeException e) {
+            try {
+                destroy();
+            } catch (final IOException ignored) {
+                // ignore
+            }
+            return;
+        }
+        final FileEntry previous = entries.put(key, entry);
+        if (previous != null && previous != entry) {
+            keys.remove(previous);
+        }
+        keys.put(entry, key);
+    }
+
+    /**
+     * Cancel the registration of a directory.
+     *
+     * @param entry The directory entry
+     */
+    private void unregister(final FileEntry entry) {
+        if (keys == null) {
+            return;
+        }
+        final WatchKey key = keys.remove(entry);
+        if (key != null) {
+            if (entries.get(key) == entry) {
+                entries.remove(key);
+                key.cancel();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,413 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.io.output;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.Executor;
+
+/**
+ * A {@link TeeOutputStream} variant which writes to the branch stream in the background, so that a slow branch
+ * does not slow down the main stream.
+ * <p>
+ * The bytes written to the main stream are copied to a ring buffer of a fixed capacity, which a task run by the
+ * executor drains into the branch stream. When the ring buffer can not hold the bytes of a write, the
+ * {@link FullPolicy} of the stream decides whether the write waits, is dropped for the branch, or fails.
+ * </p>
+ * <p>
+ * If writing to the branch fails, the following bytes are dropped for the branch and the error is thrown by
+ * {@link #close()}. Flushing this stream flushes the main stream, and asks for the branch to be flushed once the
+ * bytes buffered so far have been written to it. Closing this stream closes the main stream, then waits for the
+ * buffered bytes to be written to the branch and closes it.
+ * </p>
+ *
+ * @since 2.7
+ */
+public class AsyncTeeOutputStream extends ProxyOutputStream {
+
+    /**
+     * What to do when the ring buffer can not hold the bytes of a write.
+     */
+    public enum FullPolicy {
+
+        /** Wait until the branch has consumed enough bytes. */
+        BLOCK,
+
+        /** Do not write the bytes to the branch, and count them as dropped. */
+        DROP,
+
+        /** Throw an <code>IOException</code> after writing the bytes to the main stream. */
+        FAIL
+    }
+
+    /** The second OutputStream to write to. */
+    private final OutputStream branch;
+
+    private final Executor executor;
+
+    private final FullPolicy policy;
+
+    /** Guards the state shared with the drain task. */
+    private final Object lock = new Object();
+
+    /** The bytes waiting to be written to the branch. */
+    private final byte[] ring;
+
+    /** The total number of bytes written to the ring buffer. */
+    private long writePosition;
+
+    /** The total number of bytes taken from the ring buffer. */
+    private long readPosition;
+
+    /** Whether a drain task is running. */
+    private boolean draining;
+
+    /** Whether the branch should be flushed once the ring buffer is empty. */
+    private boolean flushRequested;
+
+    /** The number of bytes which were not written to the branch. */
+    private long droppedByteCount;
+
+    /** The error of the branch. */
+    private IOException error;
+
+    private boolean closed;
+
+    /**
+     * Drains the ring buffer into the branch.
+     */
+    private final Runnable drainer = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    /**
+     * Constructs an AsyncTeeOutputStream.
+     *
+     * @param out the main OutputStream
+     * @param branch the second OutputStream, written to by the background tasks
+     * @param capacity the capacity of the ring buffer, in bytes
+     * @param executor the executor running the tasks writing to the branch
+     * @param policy what to do when the ring buffer is full
+     */
+    public AsyncTeeOutputStream(final OutputStream out, final OutputStream branch, final int capacity,
+            final Executor executor, final FullPolicy policy) {
+        super(out);
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        if (branch == null || executor == null || policy == null) {
+            throw new NullPointerException();
+        }
+        this.branch = branch;
+        this.executor = executor;
+        this.policy = policy;
+        this.ring = new byte[capacity];
+    }
+
+    /**
+     * Write the bytes to the main stream, and queue them for the branch.
+     * @param b the bytes to write
+     * @throws IOException if an I/O error occurs, or the ring buffer is full and the policy is
+     *         {@link FullPolicy#FAIL}
+     */
+    @Override
+    public void write(final byte[] b) throws IOException {
+        write(b, 0, b.length);
+    }
+
+    /**
+     * Write the specified bytes to the main stream, and queue them for the branch.
+     * @param b the bytes to write
+     * @param off The start offset
+     * @param len The number of bytes to write
+     * @throws IOException if an I/O error occurs, or the ring buffer is full and the policy is
+     *         {@link FullPolicy#FAIL}
+     */
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        super.write(b, off, len);
+        enqueue(b, off, len);
+    }
+
+    /**
+     * Write a byte to the main stream, and queue it for the branch.
+     * @param b the byte to write
+     * @throws IOException if an I/O error occurs, or the ring buffer is full and the policy is
+     *         {@link FullPolicy#FAIL}
+     */
+    @Override
+    public void write(final int b) throws IOException {
+        super.write(b);
+        enqueue(b);
+    }
+
+    /**
+     * Flushes the main stream, and asks for the branch to be flushed in the background.
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void flush() throws IOException {
+        super.flush();
+        synchronized (lock) {
+            if (error == null && !closed) {
+                flushRequested = true;
+                startDraining();
+            }
+        }
+    }
+
+    /**
+     * Closes the main stream, then waits for the queued bytes to be written to the branch and closes it.
+     *
+     * @throws IOException if an I/O error occurs, including an error of the branch
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            boolean interrupted = false;
+            synchronized (lock) {
+                closed = true;
+                while (draining) {
+                    try {
+                        lock.wait();
+                    } catch (final InterruptedException e) {
+                        interrupted = true;
+                        break;
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for the branch");
+            }
+            try {
+                branch.close();
+            } finally {
+                synchronized (lock) {
+                    if (error != null) {
+                        throw new IOException("Branch write failed", error);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of bytes which were not written to the branch, because the ring buffer was full or the
+     * branch failed.
+     *
+     * @return the number of bytes dropped
+     */
+    public long getDroppedByteCount() {
+        synchronized (lock) {
+            return droppedByteCount;
+        }
+    }
+
+    /**
+     * Gets the number of bytes waiting to be written to the branch.
+     *
+     * @return the number of bytes queued
+     */
+    public int getQueuedByteCount() {
+        synchronized (lock) {
+            return (int) (writePosition - readPosition);
+        }
+    }
+
+    /**
+     * Copies bytes to the ring buffer.
+     *
+     * @param b the bytes
+     * @param off The start offset
+     * @param len The number of bytes
+     * @throws IOException if the ring buffer is full and the policy is {@link FullPolicy#FAIL}, or the current
+     *         thread is interrupted while waiting
+     */
+    private void enqueue(final byte[] b, final int off, final int len) throws IOException {
+        synchronized (lock) {
+            if (!accept(len)) {
+                return;
+            }
+            int pos = off;
+            int remaining = len;
+            while (remaining > 0) {
+                final int free = awaitFree(remaining);
+                if (free == 0) {
+                    return;
+                }
+                final int start = (int) (writePosition % ring.length);
+                final int n = Math.min(Math.min(remaining, free), ring.length - start);
+                System.arraycopy(b, pos, ring, start, n);
+                writePosition += n;
+                pos += n;
+                remaining -= n;
+            }
+            startDraining();
+        }
+    }
+
+    /**
+     * Copies a byte to the ring buffer.
+     *
+     * @param b the byte
+     * @throws IOException if the ring buffer is full and the policy is {@link FullPolicy#FAIL}, or the current
+     *         thread is interrupted while waiting
+     */
+    private void enqueue(final int b) throws IOException {
+        synchronized (lock) {
+            if (!accept(1) || awaitFree(1) == 0) {
+                return;
+            }
+            ring[(int) (writePosition % ring.length)] = (byte) b;
+            writePosition++;
+            startDraining();
+        }
+    }
+
+    /**
+     * Applies the policy to a write to the branch; called with the lock held.
+     *
+     * @param len The number of bytes to write
+     * @return true if the bytes are to be copied to the ring buffer, false if they are dropped
+     * @throws IOException if the ring buffer is full and the policy is {@link FullPolicy#FAIL}
+     */
+    private boolean accept(final int len) throws IOException {
+        if (error != null || closed) {
+            droppedByteCount += len;
+            return false;
+        }
+        if (len > ring.length - (writePosition - readPosition)) {
+            if (policy == FullPolicy.DROP) {
+                droppedByteCount += len;
+                return false;
+            }
+            if (policy == FullPolicy.FAIL) {
+                droppedByteCount += len;
+                throw new IOException("Branch buffer full, " + len + " bytes dropped");
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Waits until the ring buffer has free space; called with the lock held.
+     *
+     * @param remaining The number of bytes left to copy, dropped if the branch fails meanwhile
+     * @return the number of free bytes, or 0 if the branch failed
+     * @throws InterruptedIOException if the current thread is interrupted while waiting
+     */
+    private int awaitFree(final int remaining) throws InterruptedIOException {
+        int free = (int) (ring.length - (writePosition - readPosition));
+        while (free == 0) {
+            startDraining();
+            try {
+                lock.wait();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                droppedByteCount += remaining;
+                throw new InterruptedIOException("Interrupted waiting for the branch");
+            }
+            if (error != null) {
+                droppedByteCount += remaining;
+                return 0;
+            }
+            free = (int) (ring.length - (writePosition - readPosition));
+        }
+        return free;
+    }
+
+    /**
+     * Starts a drain task unless one is running; called with the lock held.
+     */
+    private void startDraining() {
+        if (draining) {
+            return;
+        }
+        draining = true;
+        try {
+            executor.execute(drainer);
+        } catch (final RuntimeException e) {
+            draining = false;
+            fail(new IOException("Branch write rejected", e));
+        }
+    }
+
+    /**
+     * Records the error of the branch, dropping the queued bytes; called with the lock held.
+     *
+     * @param e the error
+     */
+    private void fail(final IOException e) {
+        if (error == null) {
+            error = e;
+        }
+        droppedByteCount += writePosition - readPosition;
+        readPosition = writePosition;
+        lock.notifyAll();
+    }
+
+    /**
+     * Writes the queued bytes to the branch until the ring buffer is empty.
+     */
+    private void drain() {
+        while (true) {
+            final int start;
+            final int len;
+            final boolean flush;
+            synchronized (lock) {
+                final int queued = (int) (writePosition - readPosition);
+                if (queued == 0 && !flushRequested) {
+                    draining = false;
+                    lock.notifyAll();
+                    return;
+                }
+                start = (int) (readPosition % ring.length);
+                len = Math.min(queued, ring.length - start);
+                flush = queued == len && flushRequested;
+                if (flush) {
+                    flushRequested = false;
+                }
+            }
+            try {
+                // the bytes between start and start + len are not overwritten until the read position moves
+                branch.write(ring, start, len);
+                if (flush) {
+                    branch.flush();
+                }
+            } catch (final IOException | RuntimeException e) {
+                synchronized (lock) {
+                    fail(e instanceof IOException ? (IOException) e : new IOException(e));
+                    draining = false;
+                    lock.notifyAll();
+                }
+                return;
+            }
+            synchronized (lock) {
+                readPosition += len;
+                lock.notifyAll();
+            }
+        }
+    }
+
+}
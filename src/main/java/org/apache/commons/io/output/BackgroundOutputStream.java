@@ -0,0 +1,267 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.io.output;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+/**
+ * A double-buffered output stream writing to its underlying stream on a background thread.
+ * <p>
+ * Bytes are collected in a buffer; once it is full, the buffer is handed to a task run by the executor and the
+ * writes continue into a second buffer. A writer only waits when both buffers are full. At most one task writes to
+ * the underlying stream at any time, so the writes happen in order.
+ * </p>
+ * <p>
+ * The first error of a background write is thrown by the next call to a method of this stream, and again by
+ * {@link #close()}, which waits for the pending writes and then closes the underlying stream.
+ * </p>
+ *
+ * @since 2.7
+ */
+class BackgroundOutputStream extends OutputStream {
+
+    /** The default size of each of the two buffers. */
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream out;
+    private final Executor executor;
+
+    /** Guards {@link #busy} and {@link #spare}. */
+    private final Object lock = new Object();
+
+    /** The buffer being filled. */
+    private byte[] buffer;
+
+    /** The number of bytes in the buffer. */
+    private int count;
+
+    /** The buffer last written in the background, free for reuse. */
+    private byte[] spare;
+
+    /** Whether a background task is running. */
+    private boolean busy;
+
+    /** The first error of a background task. */
+    private volatile IOException error;
+
+    private boolean closed;
+
+    /**
+     * Constructs a stream.
+     *
+     * @param out the underlying stream, written to by the background tasks only
+     * @param executor the executor running the background tasks
+     * @param bufferSize the size of each of the two buffers
+     */
+    BackgroundOutputStream(final OutputStream out, final Executor executor, final int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        this.out = out;
+        this.executor = executor;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Runs a task writing to the underlying stream in the background, once the previous task completes.
+     *
+     * @param task the task
+     * @throws IOException if a previous task failed, or the current thread is interrupted while waiting
+     */
+    void submit(final Callable<Void> task) throws IOException {
+        await();
+        synchronized (lock) {
+            busy = true;
+        }
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    IOException failure = null;
+                    try {
+                        task.call();
+                    } catch (final IOException e) {
+                        failure = e;
+                    } catch (final Exception e) {
+                        failure = new IOException(e);
+                    }
+                    synchronized (lock) {
+                        if (failure != null && error == null) {
+                            error = failure;
+                        }
+                        busy = false;
+                        lock.notifyAll();
+                    }
+                }
+            });
+        } catch (final RuntimeException e) {
+            synchronized (lock) {
+                busy = false;
+            }
+            throw new IOException("Background write rejected", e);
+        }
+    }
+
+    /**
+     * Waits for the running background task, if any.
+     *
+     * @throws IOException if a background task failed, or the current thread is interrupted while waiting
+     */
+    private void await() throws IOException {
+        synchronized (lock) {
+            while (busy) {
+                try {
+                    lock.wait();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted waiting for a background write");
+                }
+            }
+        }
+        checkError();
+    }
+
+    private void checkError() throws IOException {
+        final IOException e = error;
+        if (e != null) {
+            throw new IOException("Background write failed", e);
+        }
+    }
+
+    /**
+     * Hands the buffer to a background task and continues with the spare buffer.
+     *
+     * @throws IOException if a previous task failed, or the current thread is interrupted while waiting
+     */
+    private void writeBuffer() throws IOException {
+        if (count == 0) {
+            return;
+        }
+        final byte[] data = buffer;
+        final int len = count;
+        submit(new Callable<Void>() {
+            @Override
+            public Void call() throws IOException {
+                out.write(data, 0, len);
+                synchronized (lock) {
+                    spare = data;
+                }
+                return null;
+            }
+        });
+        synchronized (lock) {
+            buffer = spare != null ? spare : new byte[data.length];
+            spare = null;
+        }
+        count = 0;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        checkError();
+        if (count == buffer.length) {
+            writeBuffer();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        if (off < 0 || len < 0 || off + len > b.length || off + len < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        checkError();
+        int pos = off;
+        int remaining = len;
+        while (remaining > 0) {
+            if (count == buffer.length) {
+                writeBuffer();
+            }
+            final int n = Math.min(remaining, buffer.length - count);
+            System.arraycopy(b, pos, buffer, count, n);
+            count += n;
+            pos += n;
+            remaining -= n;
+        }
+    }
+
+    /**
+     * Writes the buffered bytes, waits for the background writes to complete and flushes the underlying stream.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void flush() throws IOException {
+        writeBuffer();
+        await();
+        out.flush();
+    }
+
+    /**
+     * Writes the buffered bytes, waits for the background writes to complete and closes the underlying stream.
+     * <p>
+     * If the current thread is interrupted while waiting, the underlying stream is left open, since a background
+     * write may still be running, and this method can be called again to complete the close.
+     * </p>
+     *
+     * @throws IOException if an I/O error occurs, including one of a previous background write
+     * @throws InterruptedIOException if the current thread is interrupted while waiting
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            checkError();
+            return;
+        }
+        IOException failure = null;
+        try {
+            if (error == null) {
+                writeBuffer();
+            }
+            synchronized (lock) {
+                while (busy) {
+                    lock.wait();
+                }
+            }
+        } catch (final InterruptedIOException e) {
+            // the buffer was kept, and the interrupt flag restored
+            throw e;
+        } catch (final IOException e) {
+            failure = e;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a background write");
+        }
+        closed = true;
+        try {
+            out.close();
+        } catch (final IOException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+        // the error of a background write comes first
+        checkError();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,388 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.io.output;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.Charsets;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * FileWriter that holds a {@link FileLock} on the file it writes to, to
+ * coordinate the writers of several threads or processes.
+ * <p>
+ * This class is an alternative to {@link LockableFileWriter} which locks the
+ * file itself through its channel instead of creating a lock file: the lock is
+ * released by the operating system if the process dies, and the constructor can
+ * wait for the lock to become available. The lock is exclusive by default, or
+ * shared so that several processes can append to the file together, while no
+ * process holds an exclusive lock on it. A shared writer only appends: each
+ * write goes to the current end of the file, so the bytes of the writers are
+ * interleaved but none is overwritten.
+ * <p>
+ * The locks of one Java virtual machine can not overlap, even when they are
+ * shared: while another writer of the same virtual machine holds a lock on the
+ * file, {@link FileChannel#tryLock(long, long, boolean)} throws an
+ * {@link OverlappingFileLockException}, and this writer waits for that writer
+ * to be closed, within the timeout, as for a conflicting lock of another
+ * process. Shared writers of the same virtual machine therefore write one
+ * after the other; threads meant to append together should share one writer
+ * instead.
+ * <p>
+ * The lock is acquired before the file is truncated, or before the end of the
+ * file is looked up when appending, and released by {@link #close()}.
+ * <p>
+ * The characters are encoded with a single encoder into a buffer, which is
+ * written to the channel when it is full and when the writer is flushed. File
+ * locks are advisory on some platforms: they only coordinate programs which
+ * lock the file too.
+ *
+ * @since 2.7
+ */
+public class ChannelLockableFileWriter extends Writer {
+
+    /** The size of the character buffer. */
+    private static final int BUFFER_SIZE = 8192;
+
+    /** The longest wait between two attempts to lock the file, in milliseconds. */
+    private static final long MAX_RETRY_DELAY = 100;
+
+    /** The channel holding the lock. */
+    private final FileChannel lockChannel;
+    /** The channel the bytes are written to, the lock channel unless the lock is shared. */
+    private final FileChannel channel;
+    /** The lock of the file. */
+    private final FileLock fileLock;
+    /** The encoder of the characters. */
+    private final CharsetEncoder encoder;
+    /** The characters to encode. */
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+    /** The encoded bytes to write. */
+    private final ByteBuffer bytes;
+
+    private boolean closed;
+
+    /**
+     * Constructs a ChannelLockableFileWriter holding an exclusive lock, which
+     * fails if the file is already locked.
+     *
+     * @param file  the file to write to, not null
+     * @param encoding  the encoding to use, null means platform default
+     * @param append  true if content should be appended, false to overwrite
+     * @throws NullPointerException if the file is null
+     * @throws IOException in case of an I/O error, or if the file is locked
+     */
+    public ChannelLockableFileWriter(final File file, final Charset encoding, final boolean append)
+            throws IOException {
+        this(file, encoding, append, false, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Constructs a ChannelLockableFileWriter.
+     *
+     * @param file  the file to write to, not null
+     * @param encoding  the encoding to use, null means platform default
+     * @param append  true if content should be appended, false to overwrite
+     * @param shared  true for a shared lock, which requires appending, false
+     *                for an exclusive lock
+     * @param timeout  how long to wait for the lock: zero to fail at once if the
+     *                 file is locked, negative to wait without limit
+     * @param unit  the unit of the timeout
+     * @throws NullPointerException if the file is null
+     * @throws IllegalArgumentException if the lock is shared and the file is
+     *                                  overwritten
+     * @throws IOException in case of an I/O error, or if the lock can not be
+     *                     acquired within the timeout
+     */
+    public ChannelLockableFileWriter(final File file, final Charset encoding, final boolean append,
+            final boolean shared, final long timeout, final TimeUnit unit) throws IOException {
+        if (shared && !append) {
+            throw new IllegalArgumentException("A shared lock requires appending");
+        }
+        final File absFile = file.getAbsoluteFile();
+        FileUtils.forceMkdirParent(absFile);
+        if (absFile.isDirectory()) {
+            throw new IOException("File specified is a directory");
+        }
+        encoder = Charsets.toCharset(encoding).newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        bytes = ByteBuffer.allocate((int) Math.ceil(BUFFER_SIZE * encoder.maxBytesPerChar()));
+        // a shared lock needs a channel open for reading, which can not be opened for appending too
+        lockChannel = FileChannel.open(absFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ);
+        try {
+            fileLock = lock(lockChannel, shared, unit.toMillis(timeout), absFile);
+            if (shared) {
+                // the other holders of shared locks write too: each write must go to the end of the file
+                channel = FileChannel.open(absFile.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            } else {
+                channel = lockChannel;
+                if (append) {
+                    channel.position(channel.size());
+                } else {
+                    channel.truncate(0);
+                }
+            }
+        } catch (final IOException | RuntimeException e) {
+            lockChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Locks the file, retrying until the timeout elapses.
+     *
+     * @param channel  the channel of the file
+     * @param shared  true for a shared lock
+     * @param timeout  the timeout in milliseconds, negative to wait without limit
+     * @param file  the file, for the error message
+     * @return the lock
+     * @throws IOException if the lock can not be acquired
+     */
+    private static FileLock lock(final FileChannel channel, final boolean shared, final long timeout,
+            final File file) throws IOException {
+        final long deadline = System.currentTimeMillis() + timeout;
+        long delay = 1;
+        while (true) {
+            try {
+                final FileLock lock = channel.tryLock(0, Long.MAX_VALUE, shared);
+                if (lock != null) {
+                    return lock;
+                }
+            } catch (final OverlappingFileLockException e) {
+                // locked by this virtual machine
+            }
+            final long remaining = deadline - System.currentTimeMillis();
+            if (timeout >= 0 && remaining <= 0) {
+                throw new IOException("Can't write file, " + file + " is locked");
+            }
+            try {
+                Thread.sleep(timeout >= 0 ? Math.min(delay, remaining) : delay);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for the lock of " + file);
+            }
+            delay = Math.min(delay * 2, MAX_RETRY_DELAY);
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Write a character.
+     * @param idx the character to write
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void write(final int idx) throws IOException {
+        synchronized (lock) {
+            ensureOpen();
+            if (!chars.hasRemaining()) {
+                encode(false);
+            }
+            chars.put((char) idx);
+        }
+    }
+
+    /**
+     * Write the characters from an array.
+     * @param chr the characters to write
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void write(final char[] chr) throws IOException {
+        write(chr, 0, chr.length);
+    }
+
+    /**
+     * Write the specified characters from an array.
+     * @param chr the characters to write
+     * @param st The start offset
+     * @param end The number of characters to write
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void write(final char[] chr, final int st, final int end) throws IOException {
+        if (st < 0 || end < 0 || st + end > chr.length || st + end < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        synchronized (lock) {
+            ensureOpen();
+            int pos = st;
+            int remaining = end;
+            while (remaining > 0) {
+                if (!chars.hasRemaining()) {
+                    encode(false);
+                }
+                final int n = Math.min(remaining, chars.remaining());
+                chars.put(chr, pos, n);
+                pos += n;
+                remaining -= n;
+            }
+        }
+    }
+
+    /**
+     * Write the characters from a string.
+     * @param str the string to write
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void write(final String str) throws IOException {
+        write(str, 0, str.length());
+    }
+
+    /**
+     * Write the specified characters from a string.
+     * @param str the string to write
+     * @param st The start offset
+     * @param end The number of characters to write
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void write(final String str, final int st, final int end) throws IOException {
+        if (st < 0 || end < 0 || st + end > str.length() || st + end < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        synchronized (lock) {
+            ensureOpen();
+            int pos = st;
+            int remaining = end;
+            while (remaining > 0) {
+                if (!chars.hasRemaining()) {
+                    encode(false);
+                }
+                final int n = Math.min(remaining, chars.remaining());
+                chars.put(str, pos, pos + n);
+                pos += n;
+                remaining -= n;
+            }
+        }
+    }
+
+    /**
+     * Write the buffered characters to the file.
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void flush() throws IOException {
+        synchronized (lock) {
+            ensureOpen();
+            encode(false);
+        }
+    }
+
+    /**
+     * Write the buffered characters to the file, release the lock and close
+     * the file.
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                encode(true);
+            } finally {
+                try {
+                    if (channel != lockChannel) {
+                        channel.close();
+                    }
+                } finally {
+                    try {
+                        fileLock.release();
+                    } finally {
+                        lockChannel.close();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that the writer is open.
+     *
+     * @throws IOException if the writer is closed
+     */
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Writer closed");
+        }
+    }
+
+    /**
+     * Encodes the buffered characters and writes them to the channel; the
+     * last character is kept if it is the first of a surrogate pair.
+     *
+     * @param endOfInput true when closing
+     * @throws IOException if an I/O error occurs
+     */
+    private void encode(final boolean endOfInput) throws IOException {
+        // cast for Java 8 compatibility, Java 9 overrides the method with a covariant return type
+        ((Buffer) chars).flip();
+        while (true) {
+            final CoderResult result = encoder.encode(chars, bytes, endOfInput);
+            if (result.isOverflow()) {
+                writeBytes();
+            } else if (result.isUnderflow()) {
+                break;
+            } else {
+                // the encoder replaces malformed input and unmappable characters
+                result.throwException();
+            }
+        }
+        chars.compact();
+        if (endOfInput) {
+            while (encoder.flush(bytes).isOverflow()) {
+                writeBytes();
+            }
+        }
+        writeBytes();
+    }
+
+    /**
+     * Writes the encoded bytes to the channel.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeBytes() throws IOException {
+        ((Buffer) bytes).flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        ((Buffer) bytes).clear();
+    }
+
+}
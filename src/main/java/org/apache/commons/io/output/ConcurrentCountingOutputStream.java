@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.io.output;
+
+import java.io.OutputStream;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link CountingOutputStream} whose count is held by a {@link LongAdder}
+ * instead of a field guarded by the stream's lock.
+ * <p>
+ * Counting a write costs an uncontended update of one of the adder's cells,
+ * even when many threads write through streams sharing the same counter. Pass
+ * the same <code>LongAdder</code> to several streams to account for the bytes
+ * written by all of them, for example per tenant: the count of each stream is
+ * then the count of the whole group.
+ * </p>
+ * <p>
+ * As with <code>LongAdder</code>, {@link #getByteCount()} is not an atomic
+ * snapshot while bytes are being written, and {@link #resetByteCount()} may
+ * miss bytes written concurrently.
+ * </p>
+ *
+ * @since 2.7
+ */
+public class ConcurrentCountingOutputStream extends CountingOutputStream {
+
+    /** The count of bytes that have passed. */
+    private final LongAdder counter;
+
+    /**
+     * Constructs a new ConcurrentCountingOutputStream with its own counter.
+     *
+     * @param out  the OutputStream to write to
+     */
+    public ConcurrentCountingOutputStream(final OutputStream out) {
+        this(out, new LongAdder());
+    }
+
+    /**
+     * Constructs a new ConcurrentCountingOutputStream adding to a shared counter.
+     *
+     * @param out  the OutputStream to write to
+     * @param counter  the counter, which may be shared with other streams
+     */
+    public ConcurrentCountingOutputStream(final OutputStream out, final LongAdder counter) {
+        super(out);
+        if (counter == null) {
+            throw new NullPointerException("counter");
+        }
+        this.counter = counter;
+    }
+
+    /**
+     * Updates the count with the number of bytes that are being written.
+     *
+     * @param n number of bytes to be written to the stream
+     */
+    @Override
+    protected void beforeWrite(final int n) {
+        counter.add(n);
+    }
+
+    /**
+     * The number of bytes that have passed through this stream, and any other
+     * stream sharing its counter.
+     *
+     * @return the number of bytes accumulated
+     */
+    @Override
+    public long getByteCount() {
+        return counter.sum();
+    }
+
+    /**
+     * Set the byte count back to 0.
+     *
+     * @return the count previous to resetting
+     */
+    @Override
+    public long resetByteCount() {
+        return counter.sumThenReset();
+    }
+
+    /**
+     * Gets the counter of this stream.
+     *
+     * @return the counter
+     */
+    public LongAdder getCounter() {
+        return counter;
+    }
+
+}
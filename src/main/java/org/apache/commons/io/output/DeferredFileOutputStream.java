@@ -20,7 +20,14 @@
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -36,6 +43,27 @@
  * not know in advance the size of the file being uploaded. If the file is small
  * you want to store it in memory (for speed), but if the file is large you want
  * to store it to file (to avoid memory issues).
+ * <p>
+ * When a {@link DirectBufferPool} is given, the data is retained outside of the
+ * Java heap, in direct buffers acquired from the pool. The pool caps the memory
+ * used by all the streams sharing it: when its budget is exhausted, the stream
+ * commits its data to disk before reaching its own threshold, as if the
+ * threshold had been reached. The buffers return to the pool when the data is
+ * committed to disk, when the data of the closed stream is consumed by
+ * {@link #getData()} or {@link #writeTo(OutputStream)}, when
+ * {@link #releaseMemory()} is called, or at the latest when the stream is
+ * garbage collected. The data of a closed stream retained in direct buffers
+ * can therefore only be consumed once.
+ * <p>
+ * When an {@link Executor} is given, the data is committed to disk in the
+ * background: once the threshold is reached, the data retained in memory and
+ * the data written afterwards are written to the file by tasks run by the
+ * executor, while the writing thread fills the next of two buffers. Closing the
+ * stream waits for the pending writes, and throws the error of a failed one.
+ * <p>
+ * When a compression level is given, the data committed to disk is compressed
+ * in the ZLIB format; {@link #writeTo(OutputStream)} decompresses it, and
+ * {@link #getStoredByteCount()} reports the size of the compressed data.
  */
 public class DeferredFileOutputStream
     extends ThresholdingOutputStream
@@ -43,6 +71,13 @@
     // ----------------------------------------------------------- Data members
 
 
+    /**
+     * The compression level of the data committed to disk when it is not
+     * compressed.
+     */
+    private static final int UNCOMPRESSED = -2;
+
+
     /**
      * The output stream to which data will be written prior to the threshold
      * being reached.
@@ -50,6 +85,13 @@
     private ByteArrayOutputStream memoryOutputStream;
 
 
+    /**
+     * The output stream to which data will be written prior to the threshold
+     * being reached, when direct buffers are used.
+     */
+    private DirectBufferOutputStream directOutputStream;
+
+
     /**
      * The output stream to which data will be written at any given time. This
      * will always be one of <code>memoryOutputStream</code> or
@@ -79,11 +121,43 @@
     private final File directory;
 
 
+    /**
+     * The executor writing to disk in the background, or null.
+     */
+    private final Executor executor;
+
+
+    /**
+     * Whether the data committed to disk is compressed.
+     */
+    private final boolean compressed;
+
+
+    /**
+     * The compression level of the data committed to disk.
+     */
+    private final int compressionLevel;
+
+
     /**
      * True when close() has been called successfully.
      */
     private boolean closed = false;
 
+
+    /**
+     * True once the direct buffers retaining the data have been returned to
+     * their pool.
+     */
+    private boolean memoryReleased = false;
+
+
+    /**
+     * True once the budget of the pool forced the data to disk before the
+     * threshold was reached.
+     */
+    private boolean spilledEarly = false;
+
     // ----------------------------------------------------------- Constructors
 
 
@@ -97,7 +171,63 @@
      */
     public DeferredFileOutputStream(final int threshold, final File outputFile)
     {
-        this(threshold,  outputFile, null, null, null, ByteArrayOutputStream.DEFAULT_SIZE);
+        this(threshold,  outputFile, null, null, null, ByteArrayOutputStream.DEFAULT_SIZE, null, null, UNCOMPRESSED);
+    }
+
+    /**
+     * Constructs an instance of this class which will trigger an event at the
+     * specified threshold, and save data to a file beyond that point or once the
+     * budget of the pool is exhausted.
+     *
+     * @param threshold  The number of bytes at which to trigger an event.
+     * @param outputFile The file to which data is saved beyond the threshold.
+     * @param pool The pool of the direct buffers retaining the data in memory.
+     *
+     * @since 2.7
+     */
+    public DeferredFileOutputStream(final int threshold, final File outputFile, final DirectBufferPool pool)
+    {
+        this(threshold, outputFile, null, null, null, 0, pool, null, UNCOMPRESSED);
+        if (pool == null) {
+            throw new IllegalArgumentException("Buffer pool is missing");
+        }
+    }
+
+    /**
+     * Constructs an instance of this class which will trigger an event at the
+     * specified threshold, and save data to a file beyond that point, writing
+     * to disk in the background.
+     *
+     * @param threshold  The number of bytes at which to trigger an event.
+     * @param outputFile The file to which data is saved beyond the threshold.
+     * @param executor The executor running the writes to disk.
+     *
+     * @since 2.7
+     */
+    public DeferredFileOutputStream(final int threshold, final File outputFile, final Executor executor)
+    {
+        this(threshold, outputFile, null, null, null, ByteArrayOutputStream.DEFAULT_SIZE, null, executor, UNCOMPRESSED);
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor is missing");
+        }
+    }
+
+    /**
+     * Constructs an instance of this class which will trigger an event at the
+     * specified threshold, and save compressed data to a file beyond that
+     * point.
+     *
+     * @param threshold  The number of bytes at which to trigger an event.
+     * @param outputFile The file to which data is saved beyond the threshold.
+     * @param compressionLevel The compression level (0-9), or
+     *        {@link Deflater#DEFAULT_COMPRESSION}.
+     *
+     * @since 2.7
+     */
+    public DeferredFileOutputStream(final int threshold, final File outputFile, final int compressionLevel)
+    {
+        this(threshold, outputFile, null, null, null, ByteArrayOutputStream.DEFAULT_SIZE, null, null,
+                checkCompressionLevel(compressionLevel));
     }
 
     /**
@@ -112,7 +242,7 @@ public DeferredFileOutputStream(final int threshold, final File outputFile)
      */
     public DeferredFileOutputStream(final int threshold, final int initialBufferSize, final File outputFile)
     {
-        this(threshold, outputFile, null, null, null, initialBufferSize);
+        this(threshold, outputFile, null, null, null, initialBufferSize, null, null, UNCOMPRESSED);
         if (initialBufferSize < 0) {
             throw new IllegalArgumentException("Initial buffer size must be atleast 0.");
         }
@@ -132,7 +262,81 @@ public DeferredFileOutputStream(final int threshold, final int initialBufferSize
      */
     public DeferredFileOutputStream(final int threshold, final String prefix, final String suffix, final File directory)
     {
-        this(threshold, null, prefix, suffix, directory, ByteArrayOutputStream.DEFAULT_SIZE);
+        this(threshold, null, prefix, suffix, directory, ByteArrayOutputStream.DEFAULT_SIZE, null, null, UNCOMPRESSED);
+        if (prefix == null) {
+            throw new IllegalArgumentException("Temporary file prefix is missing");
+        }
+    }
+
+    /**
+     * Constructs an instance of this class which will trigger an event at the
+     * specified threshold, and save data to a temporary file beyond that point
+     * or once the budget of the pool is exhausted.
+     *
+     * @param threshold  The number of bytes at which to trigger an event.
+     * @param prefix Prefix to use for the temporary file.
+     * @param suffix Suffix to use for the temporary file.
+     * @param directory Temporary file directory.
+     * @param pool The pool of the direct buffers retaining the data in memory.
+     *
+     * @since 2.7
+     */
+    public DeferredFileOutputStream(final int threshold, final String prefix, final String suffix,
+                                    final File directory, final DirectBufferPool pool)
+    {
+        this(threshold, null, prefix, suffix, directory, 0, pool, null, UNCOMPRESSED);
+        if (prefix == null) {
+            throw new IllegalArgumentException("Temporary file prefix is missing");
+        }
+        if (pool == null) {
+            throw new IllegalArgumentException("Buffer pool is missing");
+        }
+    }
+
+    /**
+     * Constructs an instance of this class which will trigger an event at the
+     * specified threshold, and save data to a temporary file beyond that point,
+     * writing to disk in the background.
+     *
+     * @param threshold  The number of bytes at which to trigger an event.
+     * @param prefix Prefix to use for the temporary file.
+     * @param suffix Suffix to use for the temporary file.
+     * @param directory Temporary file directory.
+     * @param executor The executor running the writes to disk.
+     *
+     * @since 2.7
+     */
+    public DeferredFileOutputStream(final int threshold, final String prefix, final String suffix,
+                                    final File directory, final Executor executor)
+    {
+        this(threshold, null, prefix, suffix, directory, ByteArrayOutputStream.DEFAULT_SIZE, null, executor, UNCOMPRESSED);
+        if (prefix == null) {
+            throw new IllegalArgumentException("Temporary file prefix is missing");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor is missing");
+        }
+    }
+
+    /**
+     * Constructs an instance of this class which will trigger an event at the
+     * specified threshold, and save compressed data to a temporary file beyond
+     * that point.
+     *
+     * @param threshold  The number of bytes at which to trigger an event.
+     * @param prefix Prefix to use for the temporary file.
+     * @param suffix Suffix to use for the temporary file.
+     * @param directory Temporary file directory.
+     * @param compressionLevel The compression level (0-9), or
+     *        {@link Deflater#DEFAULT_COMPRESSION}.
+     *
+     * @since 2.7
+     */
+    public DeferredFileOutputStream(final int threshold, final String prefix, final String suffix,
+                                    final File directory, final int compressionLevel)
+    {
+        this(threshold, null, prefix, suffix, directory, ByteArrayOutputStream.DEFAULT_SIZE, null, null,
+                checkCompressionLevel(compressionLevel));
         if (prefix == null) {
             throw new IllegalArgumentException("Temporary file prefix is missing");
         }
@@ -153,7 +357,7 @@ public DeferredFileOutputStream(final int threshold, final String prefix, final
     public DeferredFileOutputStream(final int threshold, final int initialBufferSize, final String prefix,
                                     final String suffix, final File directory)
     {
-        this(threshold, null, prefix, suffix, directory, initialBufferSize);
+        this(threshold, null, prefix, suffix, directory, initialBufferSize, null, null, UNCOMPRESSED);
         if (prefix == null) {
             throw new IllegalArgumentException("Temporary file prefix is missing");
         }
@@ -172,23 +376,92 @@ public DeferredFileOutputStream(final int threshold, final int initialBufferSize
      * @param suffix Suffix to use for the temporary file.
      * @param directory Temporary file directory.
      * @param initialBufferSize The initial size of the in memory buffer.
+     * @param pool The pool of the direct buffers, or null to retain the data on the heap.
+     * @param executor The executor writing to disk in the background, or null to write synchronously.
+     * @param compressionLevel The compression level of the data committed to disk, or UNCOMPRESSED.
      */
     private DeferredFileOutputStream(final int threshold, final File outputFile, final String prefix,
-                                     final String suffix, final File directory, final int initialBufferSize) {
+                                     final String suffix, final File directory, final int initialBufferSize,
+                                     final DirectBufferPool pool, final Executor executor,
+                                     final int compressionLevel) {
         super(threshold);
+        this.executor = executor;
+        this.compressed = compressionLevel != UNCOMPRESSED;
+        this.compressionLevel = compressionLevel;
         this.outputFile = outputFile;
         this.prefix = prefix;
         this.suffix = suffix;
         this.directory = directory;
 
-        memoryOutputStream = new ByteArrayOutputStream(initialBufferSize);
-        currentOutputStream = memoryOutputStream;
+        if (pool != null) {
+            directOutputStream = new DirectBufferOutputStream(pool);
+            currentOutputStream = directOutputStream;
+        } else {
+            memoryOutputStream = new ByteArrayOutputStream(initialBufferSize);
+            currentOutputStream = memoryOutputStream;
+        }
+    }
+
+
+    /**
+     * Checks a compression level given to a public constructor.
+     *
+     * @param compressionLevel The compression level (0-9), or
+     *        {@link Deflater#DEFAULT_COMPRESSION}.
+     * @return The compression level.
+     * @throws IllegalArgumentException if the level is out of range.
+     */
+    private static int checkCompressionLevel(final int compressionLevel)
+    {
+        if (compressionLevel < Deflater.DEFAULT_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + compressionLevel);
+        }
+        return compressionLevel;
     }
 
 
     // --------------------------------------- ThresholdingOutputStream methods
 
 
+    /**
+     * Checks the threshold, and reserves the direct buffers needed to write
+     * the bytes; the data is committed to disk if the budget of the pool is
+     * exhausted.
+     *
+     * @param count The number of bytes about to be written to the underlying
+     *              output stream.
+     *
+     * @throws IOException if an error occurs.
+     */
+    @Override
+    protected void checkThreshold(final int count) throws IOException
+    {
+        if (spilledEarly) {
+            return;
+        }
+        super.checkThreshold(count);
+        if (currentOutputStream == directOutputStream && directOutputStream != null
+                && !directOutputStream.reserve(count)) {
+            thresholdReached();
+            spilledEarly = true;
+        }
+    }
+
+
+    /**
+     * Returns whether the threshold has been exceeded, or the data committed
+     * to disk because the budget of the pool was exhausted.
+     *
+     * @return {@code true} if the threshold has been reached or the data
+     *         committed to disk; {@code false} otherwise.
+     */
+    @Override
+    public boolean isThresholdExceeded()
+    {
+        return spilledEarly || super.isThresholdExceeded();
+    }
+
+
     /**
      * Returns the current output stream. This may be memory based or disk
      * based, depending on the current state with respect to the threshold.
@@ -220,14 +493,70 @@ protected void thresholdReached() throws IOException
         }
         FileUtils.forceMkdirParent(outputFile);
         final FileOutputStream fos = new FileOutputStream(outputFile);
-        try {
-            memoryOutputStream.writeTo(fos);
-        } catch (final IOException e){
-            fos.close();
-            throw e;
+        final OutputStream diskOutputStream = compressed ? new SpillDeflaterOutputStream(fos, compressionLevel) : fos;
+        final ByteArrayOutputStream memory = memoryOutputStream;
+        final DirectBufferOutputStream direct = directOutputStream;
+        if (executor != null) {
+            final BackgroundOutputStream bos =
+                    new BackgroundOutputStream(diskOutputStream, executor, BackgroundOutputStream.DEFAULT_BUFFER_SIZE);
+            try {
+                bos.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException {
+                        try {
+                            spill(memory, direct, fos, diskOutputStream);
+                        } finally {
+                            if (direct != null) {
+                                direct.release();
+                            }
+                        }
+                        return null;
+                    }
+                });
+            } catch (final IOException e) {
+                diskOutputStream.close();
+                throw e;
+            }
+            currentOutputStream = bos;
+        } else {
+            try {
+                spill(memory, direct, fos, diskOutputStream);
+            } catch (final IOException e){
+                diskOutputStream.close();
+                throw e;
+            }
+            currentOutputStream = diskOutputStream;
+            if (direct != null) {
+                direct.release();
+            }
         }
-        currentOutputStream = fos;
         memoryOutputStream = null;
+        directOutputStream = null;
+    }
+
+
+    /**
+     * Writes the data retained in memory to disk.
+     *
+     * @param memory The data retained on the heap, or null.
+     * @param direct The data retained in direct buffers, or null.
+     * @param fos The output file stream.
+     * @param diskOutputStream The stream writing to the output file, which
+     *        may compress the data.
+     *
+     * @throws IOException if an error occurs.
+     */
+    private static void spill(final ByteArrayOutputStream memory, final DirectBufferOutputStream direct,
+                              final FileOutputStream fos, final OutputStream diskOutputStream) throws IOException
+    {
+        if (direct == null) {
+            memory.writeTo(diskOutputStream);
+        } else if (diskOutputStream == fos) {
+            final FileChannel channel = fos.getChannel();
+            direct.writeTo(channel);
+        } else {
+            direct.writeTo(diskOutputStream);
+        }
     }
 
 
@@ -243,7 +572,7 @@ protected void thresholdReached() throws IOException
      */
     public boolean isInMemory()
     {
-        return !isThresholdExceeded();
+        return memoryOutputStream != null || directOutputStream != null;
     }
 
 
@@ -251,9 +580,15 @@ public boolean isInMemory()
      * Returns the data for this output stream as an array of bytes, assuming
      * that the data has been retained in memory. If the data was written to
      * disk, this method returns {@code null}.
+     * <p>
+     * If the stream is closed and the data is retained in direct buffers,
+     * the buffers are returned to their pool, so that the data can not be
+     * consumed again.
      *
      * @return The data for this output stream, or {@code null} if no such
      *         data is available.
+     * @throws IllegalStateException if the direct buffers retaining the data
+     *         have been returned to their pool.
      */
     public byte[] getData()
     {
@@ -261,10 +596,95 @@ public byte[] getData()
         {
             return memoryOutputStream.toByteArray();
         }
+        if (directOutputStream != null)
+        {
+            checkMemoryNotReleased();
+            final byte[] data = directOutputStream.toByteArray();
+            if (closed)
+            {
+                releaseMemory();
+            }
+            return data;
+        }
         return null;
     }
 
 
+    /**
+     * Returns the direct buffers retaining the data in memory to their pool,
+     * discarding the data. This method has no effect if the data is not
+     * retained in direct buffers. The buffers are also returned once the data
+     * is consumed, so this method is only needed to discard the data of a
+     * closed stream without consuming it, so that other streams can use the
+     * budget of the pool.
+     *
+     * @throws IllegalStateException if the stream is not closed.
+     *
+     * @since 2.7
+     */
+    public void releaseMemory()
+    {
+        if (directOutputStream != null && !memoryReleased)
+        {
+            if (!closed)
+            {
+                throw new IllegalStateException("Stream not closed");
+            }
+            memoryReleased = true;
+            directOutputStream.release();
+        }
+    }
+
+
+    /**
+     * Checks that the direct buffers retaining the data have not been
+     * returned to their pool.
+     *
+     * @throws IllegalStateException if they have been returned.
+     */
+    private void checkMemoryNotReleased()
+    {
+        if (memoryReleased)
+        {
+            throw new IllegalStateException("Data already consumed or released");
+        }
+    }
+
+
+    /**
+     * Returns the number of bytes retained in memory or stored on disk, which
+     * is less than the number of bytes written, {@link #getByteCount()}, if
+     * the data committed to disk is compressed. The number of bytes on disk is
+     * only complete once the stream has been closed.
+     *
+     * @return The number of bytes retained in memory or stored on disk.
+     *
+     * @since 2.7
+     */
+    public long getStoredByteCount()
+    {
+        if (isInMemory())
+        {
+            return getByteCount();
+        }
+        return outputFile.length();
+    }
+
+
+    /**
+     * Determines whether or not the data committed to disk is compressed.
+     *
+     * @return {@code true} if the file holds compressed data;
+     *         {@code false} otherwise.
+     *
+     * @since 2.7
+     */
+    public boolean isCompressed()
+    {
+        return compressed;
+    }
+
+
     /**
      * Returns either the output file specified in the constructor or
      * the temporary file created or null.
@@ -300,10 +720,14 @@ public void close() throws IOException
 
     /**
      * Writes the data from this output stream to the specified output stream,
-     * after it has been closed.
+     * after it has been closed. Compressed data is decompressed. Data retained
+     * in direct buffers is consumed: the buffers are then returned to their
+     * pool.
      *
      * @param out output stream to write to.
      * @throws IOException if this stream is not yet closed or an error occurs.
+     * @throws IllegalStateException if the direct buffers retaining the data
+     *         have been returned to their pool.
      */
     public void writeTo(final OutputStream out) throws IOException
     {
@@ -314,12 +738,48 @@ public void writeTo(final OutputStream out) throws IOException
             throw new IOException("Stream not closed");
         }
 
-        if (isInMemory()) {
+        if (memoryOutputStream != null) {
             memoryOutputStream.writeTo(out);
+        } else if (directOutputStream != null) {
+            checkMemoryNotReleased();
+            try {
+                directOutputStream.writeTo(out);
+            } finally {
+                releaseMemory();
+            }
         } else {
-            try (FileInputStream fis = new FileInputStream(outputFile)) {
+            try (InputStream fis = compressed ? new InflaterInputStream(new FileInputStream(outputFile))
+                    : new FileInputStream(outputFile)) {
                 IOUtils.copy(fis, out);
             }
         }
     }
+
+
+    // --------------------------------------------------------- Nested classes
+
+
+    /**
+     * A stream compressing the data committed to disk, which releases its
+     * deflater when closed.
+     */
+    private static class SpillDeflaterOutputStream extends DeflaterOutputStream
+    {
+        private static final int BUFFER_SIZE = 8192;
+
+        SpillDeflaterOutputStream(final OutputStream out, final int level)
+        {
+            super(out, new Deflater(level), BUFFER_SIZE);
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            try {
+                super.close();
+            } finally {
+                def.end();
+            }
+        }
+    }
 }
@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.io.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+
+/**
+ * An output stream writing into direct buffers acquired from a {@link DirectBufferPool}.
+ * <p>
+ * The space for the data must be {@link #reserve(int) reserved} before it is written.
+ * </p>
+ *
+ * @since 2.7
+ */
+class DirectBufferOutputStream extends OutputStream {
+
+    private final DirectBufferPool pool;
+
+    /** The buffers, all full except the last one, returned to the pool if this stream is garbage collected. */
+    private final List<ByteBuffer> buffers;
+
+    /** The number of bytes written. */
+    private long count;
+
+    /**
+     * Constructs a stream.
+     *
+     * @param pool the pool to acquire the buffers from
+     */
+    DirectBufferOutputStream(final DirectBufferPool pool) {
+        this.pool = pool;
+        this.buffers = pool.newHolder(this);
+    }
+
+    /**
+     * Acquires the buffers needed to write more bytes.
+     *
+     * @param len the number of bytes to write
+     * @return true if the bytes can be written, false if the budget of the pool is exhausted
+     */
+    boolean reserve(final int len) {
+        long capacity = (long) buffers.size() * pool.getBufferSize();
+        while (capacity < count + len) {
+            final ByteBuffer buffer = pool.acquire();
+            if (buffer == null) {
+                return false;
+            }
+            buffers.add(buffer);
+            capacity += pool.getBufferSize();
+        }
+        return true;
+    }
+
+    @Override
+    public void write(final int b) {
+        buffers.get((int) (count / pool.getBufferSize())).put((byte) b);
+        count++;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) {
+        if (off < 0 || len < 0 || off + len > b.length || off + len < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        int pos = off;
+        int remaining = len;
+        while (remaining > 0) {
+            final ByteBuffer buffer = buffers.get((int) (count / pool.getBufferSize()));
+            final int n = Math.min(remaining, buffer.remaining());
+            buffer.put(b, pos, n);
+            pos += n;
+            remaining -= n;
+            count += n;
+        }
+    }
+
+    /**
+     * Gets the number of bytes written.
+     *
+     * @return the number of bytes
+     */
+    long size() {
+        return count;
+    }
+
+    /**
+     * Writes the contents to a channel, leaving the buffers unchanged.
+     *
+     * @param channel the channel to write to
+     * @throws IOException if an I/O error occurs
+     */
+    void writeTo(final WritableByteChannel channel) throws IOException {
+        for (final ByteBuffer buffer : buffers) {
+            final ByteBuffer data = flipped(buffer);
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+        }
+    }
+
+    /**
+     * Writes the contents to a stream, leaving the buffers unchanged.
+     *
+     * @param out the stream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    void writeTo(final OutputStream out) throws IOException {
+        final byte[] chunk = new byte[(int) Math.min(count, pool.getBufferSize())];
+        for (final ByteBuffer buffer : buffers) {
+            final ByteBuffer data = flipped(buffer);
+            while (data.hasRemaining()) {
+                final int n = Math.min(chunk.length, data.remaining());
+                data.get(chunk, 0, n);
+                out.write(chunk, 0, n);
+            }
+        }
+    }
+
+    /**
+     * Gets the contents as a new byte array.
+     *
+     * @return the contents
+     */
+    byte[] toByteArray() {
+        final byte[] result = new byte[(int) count];
+        int pos = 0;
+        for (final ByteBuffer buffer : buffers) {
+            final ByteBuffer data = flipped(buffer);
+            final int n = data.remaining();
+            data.get(result, pos, n);
+            pos += n;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the buffers to the pool and discards the contents.
+     */
+    void release() {
+        for (final ByteBuffer buffer : buffers) {
+            pool.release(buffer);
+        }
+        buffers.clear();
+        count = 0;
+    }
+
+    /**
+     * Gets a view of the bytes written to a buffer.
+     *
+     * @param buffer the buffer
+     * @return a new buffer sharing the contents
+     */
+    private static ByteBuffer flipped(final ByteBuffer buffer) {
+        final ByteBuffer data = buffer.duplicate();
+        // cast for Java 8 compatibility, Java 9 overrides the method with a covariant return type
+        ((Buffer) data).flip();
+        return data;
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.io.output;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of direct byte buffers of a fixed size, sharing a memory budget between the streams using it.
+ * <p>
+ * Buffers are allocated outside of the Java heap on demand, and reused once released. At most
+ * <code>capacity</code> bytes are allocated: {@link #acquire()} returns {@code null} when the whole budget is
+ * in use, so that a {@link DeferredFileOutputStream} using the pool writes to disk instead.
+ * </p>
+ * <p>
+ * The buffers of a stream which is garbage collected without returning them are reclaimed by the next
+ * acquisition, so that a stream which is dropped does not hold its part of the budget forever.
+ * </p>
+ * <p>
+ * This class is thread-safe; a single pool is meant to be shared by all the streams of an application.
+ * </p>
+ *
+ * @see DeferredFileOutputStream#DeferredFileOutputStream(int, java.io.File, DirectBufferPool)
+ * @since 2.7
+ */
+public class DirectBufferPool {
+
+    private final long capacity;
+    private final int bufferSize;
+
+    /** The number of bytes of the buffers currently acquired. */
+    private final AtomicLong used = new AtomicLong();
+
+    /** The released buffers, ready for reuse. */
+    private final Queue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+
+    /** The buffer lists of the owners still reachable. */
+    private final Set<Holder> holders = ConcurrentHashMap.newKeySet();
+
+    /** The buffer lists of the owners garbage collected. */
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+    /**
+     * Constructs a pool.
+     *
+     * @param capacity the maximum number of bytes of all the buffers
+     * @param bufferSize the size of each buffer
+     * @throws IllegalArgumentException if the buffer size is not positive or the capacity is negative
+     */
+    public DirectBufferPool(final long capacity, final int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+        }
+        this.capacity = capacity;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Acquires a cleared buffer of {@link #getBufferSize()} bytes.
+     *
+     * @return the buffer, or {@code null} if the budget of the pool is exhausted
+     */
+    public ByteBuffer acquire() {
+        reclaim();
+        long current;
+        do {
+            current = used.get();
+            if (current + bufferSize > capacity) {
+                return null;
+            }
+        } while (!used.compareAndSet(current, current + bufferSize));
+        final ByteBuffer buffer = free.poll();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Returns a buffer acquired from this pool.
+     *
+     * @param buffer the buffer, which must not be used afterwards
+     */
+    public void release(final ByteBuffer buffer) {
+        // cast for Java 8 compatibility, Java 9 overrides the method with a covariant return type
+        ((Buffer) buffer).clear();
+        free.offer(buffer);
+        used.addAndGet(-bufferSize);
+    }
+
+    /**
+     * Creates the list holding the buffers acquired by an owner, whose buffers are returned to the pool if the
+     * owner is garbage collected.
+     *
+     * @param owner the owner, which must not be referenced by the buffers
+     * @return a new list, which must only be used by the owner
+     */
+    List<ByteBuffer> newHolder(final Object owner) {
+        final Holder holder = new Holder(owner, collected);
+        holders.add(holder);
+        return holder.buffers;
+    }
+
+    /**
+     * Returns the buffers of the owners garbage collected.
+     */
+    private void reclaim() {
+        Reference<?> reference;
+        while ((reference = collected.poll()) != null) {
+            final Holder holder = (Holder) reference;
+            holders.remove(holder);
+            for (final ByteBuffer buffer : holder.buffers) {
+                release(buffer);
+            }
+            holder.buffers.clear();
+        }
+    }
+
+    /**
+     * Gets the maximum number of bytes of all the buffers.
+     *
+     * @return the capacity
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the size of each buffer.
+     *
+     * @return the buffer size
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Gets the number of bytes of the buffers currently acquired.
+     *
+     * @return the number of bytes in use
+     */
+    public long getUsed() {
+        return used.get();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[capacity=" + capacity + ", bufferSize=" + bufferSize + ", used="
+                + getUsed() + "]";
+    }
+
+    /**
+     * The buffers of an owner, enqueued once the owner is garbage collected.
+     */
+    private static class Holder extends PhantomReference<Object> {
+
+        private final List<ByteBuffer> buffers = new ArrayList<>();
+
+        Holder(final Object owner, final ReferenceQueue<Object> queue) {
+            super(owner, queue);
+        }
+    }
+}
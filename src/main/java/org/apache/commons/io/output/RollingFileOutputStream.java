@@ -0,0 +1,433 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.io.output;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * An output stream writing to a sequence of segment files, rolling to the next segment when a number of bytes
+ * has been written to the current one, or when it has been open for a given time.
+ * <p>
+ * The segments are named from a prefix, a sequence number and a suffix, in a directory; subclasses can name them
+ * differently by overriding {@link #getSegmentFile(int)}. The numbering continues after the highest segment left in
+ * the directory by a previous stream, or starts at 0. Existing files are never overwritten: a segment whose file
+ * already exists is skipped for the next sequence number. A write never spans two segments: the
+ * stream rolls before a write which would make the current segment exceed the segment size, so a segment is only
+ * larger than that size if a single write is.
+ * </p>
+ * <p>
+ * The age of a segment is only checked by the writes: a segment which is not written to is not rolled when it
+ * becomes too old, but by the next write. Callers needing idle segments to roll on time can call {@link #roll()}
+ * themselves.
+ * </p>
+ * <p>
+ * When an {@link Executor} is given, the next segment is created and opened in the background as soon as the
+ * current one is opened, so that rolling does not wait for the file system. The pre-opened segment is deleted
+ * when the stream is closed.
+ * </p>
+ * <p>
+ * The data can be forced to the storage device in groups: with a sync interval, {@link #flush()} forces the
+ * segment only if the interval has elapsed since the last time, so that many flushes share one sync. A segment
+ * is always forced before it is closed, by a roll or by {@link #close()}. A flush within the interval does not
+ * force the segment later on its own: the data it flushed is only forced by the next flush after the interval, a
+ * roll or {@link #close()}, so callers needing a bound on the time to durability must keep flushing.
+ * </p>
+ *
+ * @since 2.7
+ */
+public class RollingFileOutputStream extends ThresholdingOutputStream {
+
+    /** No sync interval: the data is never forced to the storage device. */
+    public static final long NO_SYNC = -1;
+
+    private final File directory;
+    private final String prefix;
+    private final String suffix;
+
+    /** The time after which a segment is rolled, in nanoseconds, or 0. */
+    private final long maxSegmentAge;
+
+    /** The executor opening the next segment, or null. */
+    private final Executor executor;
+
+    /** The minimum time between two syncs, in nanoseconds, or negative. */
+    private final long syncInterval;
+
+    /** The current segment. */
+    private Segment current;
+
+    /** The next segment, being opened in the background. */
+    private FutureTask<Segment> next;
+
+    /** The sequence number of the next segment, taken by the executor's threads too. */
+    private final AtomicInteger sequence;
+
+    /** The number of segments opened so far, including the current one. */
+    private int segmentCount;
+
+    /** When the current segment was opened, from {@link System#nanoTime()}. */
+    private long segmentStart;
+
+    /** When the current segment was last forced, from {@link System#nanoTime()}. */
+    private long lastSync;
+
+    private boolean closed;
+
+    /**
+     * Constructs a stream rolling to a new segment after a number of bytes, without background opening or syncing.
+     *
+     * @param segmentSize the size of a segment, in bytes
+     * @param directory the directory of the segments
+     * @param prefix the prefix of the segment file names
+     * @param suffix the suffix of the segment file names, may be null
+     * @throws IOException if the first segment can not be opened
+     */
+    public RollingFileOutputStream(final int segmentSize, final File directory, final String prefix,
+            final String suffix) throws IOException {
+        this(segmentSize, 0, TimeUnit.MILLISECONDS, directory, prefix, suffix, null, NO_SYNC);
+    }
+
+    /**
+     * Constructs a stream.
+     *
+     * @param segmentSize the size of a segment, in bytes
+     * @param maxSegmentAge how long a segment is written to before the next write rolls to the next segment, 0 for
+     *            no limit
+     * @param unit the unit of the maximum segment age and of the sync interval
+     * @param directory the directory of the segments
+     * @param prefix the prefix of the segment file names
+     * @param suffix the suffix of the segment file names, may be null
+     * @param executor the executor opening the next segment in the background, or null to open it when rolling
+     * @param syncInterval the minimum time between two syncs on flush, 0 to sync on every flush, or
+     *            {@link #NO_SYNC}; a skipped sync is only done by a later flush, roll or close
+     * @throws IOException if the first segment can not be opened
+     */
+    public RollingFileOutputStream(final int segmentSize, final long maxSegmentAge, final TimeUnit unit,
+            final File directory, final String prefix, final String suffix, final Executor executor,
+            final long syncInterval) throws IOException {
+        super(segmentSize);
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("Segment size must be positive: " + segmentSize);
+        }
+        if (maxSegmentAge < 0) {
+            throw new IllegalArgumentException("Maximum segment age must not be negative: " + maxSegmentAge);
+        }
+        if (prefix == null) {
+            throw new IllegalArgumentException("Segment file prefix is missing");
+        }
+        this.directory = directory;
+        this.prefix = prefix;
+        this.suffix = suffix != null ? suffix : "";
+        this.maxSegmentAge = unit.toNanos(maxSegmentAge);
+        this.executor = executor;
+        this.syncInterval = syncInterval < 0 ? NO_SYNC : unit.toNanos(syncInterval);
+        sequence = new AtomicInteger(findNextSequence());
+        current = openSegment();
+        segmentCount = 1;
+        segmentStart = System.nanoTime();
+        lastSync = segmentStart;
+        prepareNext();
+    }
+
+    /**
+     * Gets the file of a segment. This method is called by the constructor, for the first segment, and by the
+     * executor's threads if there is one.
+     *
+     * @param sequence the sequence number of the segment, starting at 0
+     * @return the file
+     */
+    protected File getSegmentFile(final int sequence) {
+        return new File(directory, prefix + sequence + suffix);
+    }
+
+    /**
+     * Gets the file of the current segment.
+     *
+     * @return the file
+     */
+    public File getFile() {
+        return current.file;
+    }
+
+    /**
+     * Gets the number of segments opened so far, including the current one.
+     *
+     * @return the number of segments
+     */
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    @Override
+    protected OutputStream getStream() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        return current.out;
+    }
+
+    /**
+     * Rolls to the next segment if the current one has been open for too long, then checks the size threshold.
+     * This is the only time the age of the segment is checked. Unlike the superclass, the threshold is checked
+     * before every write, so that a roll which failed is tried again by the next write.
+     *
+     * @param count The number of bytes about to be written to the underlying output stream.
+     * @throws IOException if an error occurs.
+     */
+    @Override
+    protected void checkThreshold(final int count) throws IOException {
+        if (maxSegmentAge > 0 && getByteCount() > 0 && System.nanoTime() - segmentStart >= maxSegmentAge) {
+            roll();
+        }
+        if (getByteCount() + count > getThreshold()) {
+            thresholdReached();
+        }
+    }
+
+    /**
+     * Rolls to the next segment, unless the current one is empty.
+     *
+     * @throws IOException if an error occurs.
+     */
+    @Override
+    protected void thresholdReached() throws IOException {
+        if (getByteCount() == 0) {
+            // a single write larger than a segment
+            resetByteCount();
+            return;
+        }
+        roll();
+    }
+
+    /**
+     * Closes the current segment and continues with the next one. If the next segment can not be opened, the
+     * current one is kept, and the next roll tries to open a segment again.
+     *
+     * @throws IOException if an error occurs.
+     */
+    public void roll() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        final Segment segment;
+        if (next != null) {
+            try {
+                segment = await(next);
+            } catch (final InterruptedIOException e) {
+                // still opening, taken by the next roll or deleted by close()
+                throw e;
+            } catch (final IOException e) {
+                next = null;
+                throw e;
+            }
+            next = null;
+        } else {
+            segment = openSegment();
+        }
+        final Segment previous = current;
+        current = segment;
+        segmentCount++;
+        segmentStart = System.nanoTime();
+        lastSync = segmentStart;
+        resetByteCount();
+        prepareNext();
+        closeSegment(previous);
+    }
+
+    /**
+     * Flushes the current segment, forcing it to the storage device if the sync interval has elapsed. Otherwise
+     * the segment is not forced until the next flush after the interval, a roll or {@link #close()}.
+     *
+     * @throws IOException if an error occurs.
+     */
+    @Override
+    public void flush() throws IOException {
+        final OutputStream out = getStream();
+        out.flush();
+        if (syncInterval >= 0) {
+            final long now = System.nanoTime();
+            if (now - lastSync >= syncInterval) {
+                current.channel.force(true);
+                lastSync = now;
+            }
+        }
+    }
+
+    /**
+     * Closes the current segment, and deletes the next one if it was created in the background.
+     *
+     * @throws IOException if an error occurs.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            closeSegment(current);
+        } finally {
+            if (next != null) {
+                final Segment segment = await(next);
+                next = null;
+                segment.out.close();
+                FileUtils.deleteQuietly(segment.file);
+            }
+        }
+    }
+
+    /**
+     * Starts opening the next segment in the background, if there is an executor.
+     */
+    private void prepareNext() {
+        if (executor == null) {
+            return;
+        }
+        final FutureTask<Segment> task = new FutureTask<>(new Callable<Segment>() {
+            @Override
+            public Segment call() throws IOException {
+                return openSegment();
+            }
+        });
+        try {
+            executor.execute(task);
+        } catch (final RuntimeException e) {
+            // open it when rolling
+            task.run();
+        }
+        next = task;
+    }
+
+    /**
+     * Finds the sequence number following the highest one of the segments in the directory, named with the prefix,
+     * a number and the suffix.
+     *
+     * @return the sequence number of the first segment
+     */
+    private int findNextSequence() {
+        // a null directory is the current directory, as for the segment files
+        final String[] names = (directory != null ? directory : new File("")).getAbsoluteFile().list();
+        int next = 0;
+        if (names != null) {
+            for (final String name : names) {
+                if (name.length() > prefix.length() + suffix.length() && name.startsWith(prefix)
+                        && name.endsWith(suffix)) {
+                    try {
+                        final int n = Integer.parseInt(name.substring(prefix.length(),
+                                name.length() - suffix.length()));
+                        if (n >= next && n < Integer.MAX_VALUE) {
+                            next = n + 1;
+                        }
+                    } catch (final NumberFormatException e) {
+                        // not a segment
+                    }
+                }
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Creates the segment of the next sequence number whose file does not exist yet.
+     *
+     * @return the segment
+     * @throws IOException if an error occurs.
+     */
+    private Segment openSegment() throws IOException {
+        while (true) {
+            final int segmentSequence = sequence.getAndIncrement();
+            final File file = getSegmentFile(segmentSequence);
+            FileUtils.forceMkdirParent(file);
+            try {
+                final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW,
+                        StandardOpenOption.WRITE);
+                return new Segment(file, channel);
+            } catch (final FileAlreadyExistsException e) {
+                // left by another stream, try the next number
+            }
+        }
+    }
+
+    /**
+     * Flushes, forces if syncing and closes a segment.
+     *
+     * @param segment the segment
+     * @throws IOException if an error occurs.
+     */
+    private void closeSegment(final Segment segment) throws IOException {
+        try {
+            segment.out.flush();
+            if (syncInterval >= 0) {
+                segment.channel.force(true);
+            }
+        } finally {
+            segment.out.close();
+        }
+    }
+
+    /**
+     * Waits for a segment being opened in the background.
+     *
+     * @param task the task opening the segment
+     * @return the segment
+     * @throws IOException if the segment can not be opened
+     */
+    private static Segment await(final FutureTask<Segment> task) throws IOException {
+        try {
+            return task.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted opening the next segment");
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * A segment file, created by this stream, and its stream.
+     */
+    private static class Segment {
+        final File file;
+        final FileChannel channel;
+        final OutputStream out;
+
+        Segment(final File file, final FileChannel channel) {
+            this.file = file;
+            this.channel = channel;
+            this.out = Channels.newOutputStream(channel);
+        }
+    }
+}
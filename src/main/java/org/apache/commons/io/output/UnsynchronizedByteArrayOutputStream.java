@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.io.output;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * An unsynchronized version of {@link ByteArrayOutputStream}, for streams used by a single thread at a time.
+ * <p>
+ * A stream created with {@link #UnsynchronizedByteArrayOutputStream()} writes into segments of
+ * {@link #SEGMENT_SIZE} bytes drawn from a pool of the current thread, holding at most
+ * {@link #MAX_POOLED_SEGMENTS} segments, instead of allocating new arrays. The segments return to the pool of
+ * the calling thread when the stream is {@link #reset() reset}, so short-lived streams reset once their contents
+ * have been used stop allocating once the pool is warm. As for a {@link ByteArrayOutputStream}, closing the
+ * stream has no effect: a stream which is closed without being reset keeps its contents, and its segments are
+ * reclaimed by the garbage collector. Segments exposed by {@link #toInputStream()} or {@link #toByteBuffers()}
+ * are never returned to the pool.
+ * </p>
+ * <p>
+ * A stream created with {@link #UnsynchronizedByteArrayOutputStream(int)} allocates its arrays and behaves
+ * exactly like a {@link ByteArrayOutputStream}, without the locking.
+ * </p>
+ *
+ * @since 2.7
+ */
+public final class UnsynchronizedByteArrayOutputStream extends AbstractByteArrayOutputStream {
+
+    /** The size of the pooled segments. */
+    public static final int SEGMENT_SIZE = 8192;
+
+    /** The maximum number of free segments pooled by a thread. */
+    public static final int MAX_POOLED_SEGMENTS = 32;
+
+    /** The free segments of each thread. */
+    private static final ThreadLocal<ArrayDeque<byte[]>> POOL = new ThreadLocal<ArrayDeque<byte[]>>() {
+        @Override
+        protected ArrayDeque<byte[]> initialValue() {
+            return new ArrayDeque<>();
+        }
+    };
+
+    /** Whether the segments are drawn from the pool. */
+    private final boolean pooled;
+
+    /**
+     * Creates a new byte array output stream writing into pooled segments of {@link #SEGMENT_SIZE} bytes.
+     */
+    public UnsynchronizedByteArrayOutputStream() {
+        this.pooled = true;
+        needNewBuffer(SEGMENT_SIZE);
+    }
+
+    /**
+     * Creates a new byte array output stream, with a buffer capacity of
+     * the specified size, in bytes, which does not use the pool.
+     *
+     * @param size  the initial size
+     * @throws IllegalArgumentException if size is negative
+     */
+    public UnsynchronizedByteArrayOutputStream(final int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException(
+                "Negative initial size: " + size);
+        }
+        this.pooled = false;
+        needNewBuffer(size);
+    }
+
+    /**
+     * Gets a segment from the pool of the current thread if the stream is pooled.
+     *
+     * @param size the requested size
+     * @return a new buffer
+     */
+    @Override
+    byte[] newBuffer(final int size) {
+        if (!pooled) {
+            return super.newBuffer(size);
+        }
+        final byte[] segment = POOL.get().pollLast();
+        return segment != null ? segment : new byte[SEGMENT_SIZE];
+    }
+
+    /**
+     * Returns segments to the pool of the current thread.
+     *
+     * @param released the buffers
+     */
+    @Override
+    void releaseBuffers(final List<byte[]> released) {
+        final ArrayDeque<byte[]> pool = POOL.get();
+        for (final byte[] segment : released) {
+            if (pool.size() >= MAX_POOLED_SEGMENTS) {
+                return;
+            }
+            if (segment.length == SEGMENT_SIZE) {
+                pool.addLast(segment);
+            }
+        }
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) {
+        if ((off < 0)
+                || (off > b.length)
+                || (len < 0)
+                || ((off + len) > b.length)
+                || ((off + len) < 0)) {
+            throw new IndexOutOfBoundsException();
+        } else if (len == 0) {
+            return;
+        }
+        writeImpl(b, off, len);
+    }
+
+    @Override
+    public void write(final int b) {
+        writeImpl(b);
+    }
+
+    @Override
+    public int write(final InputStream in) throws IOException {
+        return writeImpl(in);
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Discards the contents; a pooled stream returns its segments to the pool.
+     *
+     * @see java.io.ByteArrayOutputStream#reset()
+     */
+    @Override
+    public void reset() {
+        if (pooled) {
+            releaseImpl();
+        } else {
+            resetImpl();
+        }
+    }
+
+    /**
+     * Closing a <b>UnsynchronizedByteArrayOutputStream</b> has no effect; the contents are kept, and the segments
+     * of a pooled stream are only returned to the pool by {@link #reset()}. The methods in this class can be
+     * called after the stream has been closed without generating an {@code IOException}.
+     */
+    @Override
+    public void close() {
+        // nop
+    }
+
+    @Override
+    public void writeTo(final OutputStream out) throws IOException {
+        writeToImpl(out);
+    }
+
+    @Override
+    public long writeTo(final GatheringByteChannel channel) throws IOException {
+        return writeToImpl(channel);
+    }
+
+    /**
+     * Gets the current contents of this byte stream as read-only byte buffers backed by its segments, which are
+     * then never returned to the pool.
+     *
+     * @return the current contents of this output stream
+     */
+    @Override
+    public ByteBuffer[] toByteBuffers() {
+        return toByteBuffersImpl();
+    }
+
+    @Override
+    public InputStream toInputStream() {
+        return toInputStreamImpl();
+    }
+
+    @Override
+    public byte[] toByteArray() {
+        return toByteArrayImpl();
+    }
+
+    /**
+     * Fetches entire contents of an <code>InputStream</code> and represent
+     * same data as result InputStream.
+     * <p>
+     * This method is useful where,
+     * <ul>
+     * <li>Source InputStream is slow.</li>
+     * <li>It has network resources associated, so we cannot keep it open for
+     * long time.</li>
+     * <li>It has network timeout associated.</li>
+     * </ul>
+     * It can be used in favor of {@link #toByteArray()}, since it
+     * avoids unnecessary allocation and copy of byte[].<br>
+     * This method buffers the input internally, so there is no need to use a
+     * <code>BufferedInputStream</code>.
+     *
+     * @param input Stream to be fully buffered.
+     * @return A fully buffered stream.
+     * @throws IOException if an I/O error occurs
+     */
+    public static InputStream toBufferedInputStream(final InputStream input) throws IOException {
+        // It does not matter if the stream is not closed, as its segments are exposed
+        @SuppressWarnings("resource")
+        final UnsynchronizedByteArrayOutputStream output = new UnsynchronizedByteArrayOutputStream();
+        output.write(input);
+        return output.toInputStream();
+    }
+
+}
@@ -19,6 +19,7 @@
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Writer;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
@@ -64,6 +65,12 @@
  * API only accepts an {@link OutputStream} object, but where the stream is known to represent
  * character data that must be decoded for further use.
  * <p>
+ * Large writes are decoded straight from the caller's array, without going
+ * through the internal input buffer, and the output buffer grows up to
+ * {@value #MAX_BUFFER_SIZE} characters to decode them in fewer, larger chunks.
+ * When the target is a {@link StringBuilderWriter}, the decoded characters are
+ * appended to its builder, whose capacity is extended up front for large writes.
+ * <p>
  * Instances of {@link WriterOutputStream} are not thread safe.
  *
  * @see org.apache.commons.io.input.ReaderInputStream
@@ -73,6 +80,13 @@
 public class WriterOutputStream extends OutputStream {
     private static final int DEFAULT_BUFFER_SIZE = 1024;
 
+    /**
+     * The size the output buffer may grow to, in characters.
+     *
+     * @since 2.7
+     */
+    public static final int MAX_BUFFER_SIZE = 8192;
+
     private final Writer writer;
     private final CharsetDecoder decoder;
     private final boolean writeImmediately;
@@ -89,7 +103,12 @@ public class WriterOutputStream extends OutputStream {
      * somewhat larger as we write from this buffer to the
      * underlying Writer.
      */
-    private final CharBuffer decoderOut;
+    private CharBuffer decoderOut;
+
+    /**
+     * The builder of the target, if it is a {@link StringBuilderWriter}.
+     */
+    private final StringBuilder builder;
 
     /**
      * Constructs a new {@link WriterOutputStream} with a default output buffer size of
@@ -124,6 +143,7 @@ public WriterOutputStream(final Writer writer, final CharsetDecoder decoder, fin
         this.decoder = decoder;
         this.writeImmediately = writeImmediately;
         decoderOut = CharBuffer.allocate(bufferSize);
+        builder = writer.getClass() == StringBuilderWriter.class ? ((StringBuilderWriter) writer).getBuilder() : null;
     }
 
     /**
@@ -213,13 +233,24 @@ public WriterOutputStream(final Writer writer) {
      */
     @Override
     public void write(final byte[] b, int off, int len) throws IOException {
-        while (len > 0) {
-            final int c = Math.min(len, decoderIn.remaining());
+        // complete a character left incomplete by the previous write
+        while (len > 0 && decoderIn.position() > 0) {
+            int c = Math.min(len, decoderIn.remaining());
             decoderIn.put(b, off, c);
             processInput(false);
+            final int unread = decoderIn.position();
+            if (unread < c) {
+                // the unread bytes are the last ones of the array, decode them in place
+                // cast for Java 8 compatibility, Java 9 overrides the method with a covariant return type
+                ((Buffer) decoderIn).clear();
+                c -= unread;
+            }
             len -= c;
             off += c;
         }
+        if (len > 0) {
+            processInput(ByteBuffer.wrap(b, off, len));
+        }
         if (writeImmediately) {
             flushOutput();
         }
@@ -244,7 +275,11 @@ public void write(final byte[] b) throws IOException {
      */
     @Override
     public void write(final int b) throws IOException {
-        write(new byte[] { (byte)b }, 0, 1);
+        decoderIn.put((byte) b);
+        processInput(false);
+        if (writeImmediately) {
+            flushOutput();
+        }
     }
 
     /**
@@ -298,6 +333,41 @@ private void processInput(final boolean endOfInput) throws IOException {
         decoderIn.compact();
     }
 
+    /**
+     * Decode the bytes of a large write in place, keeping the bytes of an
+     * incomplete character for the next write.
+     *
+     * @param in the bytes to decode
+     * @throws IOException if an I/O error occurs
+     */
+    private void processInput(final ByteBuffer in) throws IOException {
+        final int len = in.remaining();
+        if (len > decoderOut.capacity() && decoderOut.capacity() < MAX_BUFFER_SIZE) {
+            flushOutput();
+            final int size = (int) Math.min(MAX_BUFFER_SIZE, (long) len * (long) Math.ceil(decoder.maxCharsPerByte()));
+            if (size > decoderOut.capacity()) {
+                decoderOut = CharBuffer.allocate(size);
+            }
+        }
+        if (builder != null) {
+            builder.ensureCapacity(builder.length() + decoderOut.position()
+                    + (int) Math.min(Integer.MAX_VALUE / 2, (long) (len * decoder.averageCharsPerByte())));
+        }
+        while (true) {
+            final CoderResult coderResult = decoder.decode(in, decoderOut, false);
+            if (coderResult.isOverflow()) {
+                flushOutput();
+            } else if (coderResult.isUnderflow()) {
+                break;
+            } else {
+                // The decoder is configured to replace malformed input and unmappable characters,
+                // so we should not get here.
+                throw new IOException("Unexpected coder result");
+            }
+        }
+        decoderIn.put(in);
+    }
+
     /**
      * Flush the output.
      *
@@ -305,7 +375,11 @@ private void processInput(final boolean endOfInput) throws IOException {
      */
     private void flushOutput() throws IOException {
         if (decoderOut.position() > 0) {
-            writer.write(decoderOut.array(), 0, decoderOut.position());
+            if (builder != null) {
+                builder.append(decoderOut.array(), 0, decoderOut.position());
+            } else {
+                writer.write(decoderOut.array(), 0, decoderOut.position());
+            }
             decoderOut.rewind();
         }
     }
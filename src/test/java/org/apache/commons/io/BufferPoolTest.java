@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.apache.commons.io.output.ByteArrayOutputStream;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests {@link BufferPool} and its use by {@link IOUtils}.
+ */
+public class BufferPoolTest {
+
+    @After
+    public void restoreDefaultPool() {
+        IOUtils.setBufferPool(null);
+    }
+
+    @Test
+    public void testThreadLocal() {
+        final BufferPool pool = BufferPool.threadLocal(16);
+        final byte[] first = pool.acquireBytes();
+        // in use, so the second one is allocated
+        final byte[] second = pool.acquireBytes();
+        assertNotSame(first, second);
+        pool.releaseBytes(second);
+        pool.releaseBytes(first);
+        assertSame(first, pool.acquireBytes());
+        assertEquals(16, pool.acquireChars().length);
+        assertEquals(1, pool.getHitCount());
+        assertEquals(3, pool.getMissCount());
+        pool.resetCounts();
+        assertEquals(0, pool.getHitCount());
+        assertEquals(0, pool.getMissCount());
+    }
+
+    @Test
+    public void testThreadLocalPerThread() throws InterruptedException {
+        final BufferPool pool = BufferPool.threadLocal(16);
+        final char[] chars = pool.acquireChars();
+        pool.releaseChars(chars);
+        final char[][] other = new char[1][];
+        final Thread thread = new Thread() {
+            @Override
+            public void run() {
+                other[0] = pool.acquireChars();
+            }
+        };
+        thread.start();
+        thread.join();
+        assertNotSame(chars, other[0]);
+        assertSame(chars, pool.acquireChars());
+    }
+
+    @Test
+    public void testBounded() {
+        final BufferPool pool = BufferPool.bounded(1, 16);
+        final char[] first = pool.acquireChars();
+        final char[] second = pool.acquireChars();
+        pool.releaseChars(first);
+        // the pool is full
+        pool.releaseChars(second);
+        assertSame(first, pool.acquireChars());
+        assertNotSame(second, pool.acquireChars());
+        assertEquals(1, pool.getHitCount());
+        assertEquals(3, pool.getMissCount());
+    }
+
+    @Test
+    public void testUnpooled() {
+        final BufferPool pool = BufferPool.unpooled(16);
+        final byte[] bytes = pool.acquireBytes();
+        pool.releaseBytes(bytes);
+        assertNotSame(bytes, pool.acquireBytes());
+        assertEquals(0, pool.getHitCount());
+        assertEquals(2, pool.getMissCount());
+    }
+
+    @Test
+    public void testOtherSizeIgnored() {
+        final BufferPool pool = BufferPool.bounded(4, 16);
+        pool.releaseBytes(new byte[8]);
+        pool.releaseBytes(null);
+        assertEquals(16, pool.acquireBytes().length);
+        assertEquals(0, pool.getHitCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSize() {
+        BufferPool.threadLocal(0);
+    }
+
+    @Test
+    public void testUsedByIOUtils() throws IOException {
+        final BufferPool pool = BufferPool.bounded(2, 7);
+        IOUtils.setBufferPool(pool);
+        assertSame(pool, IOUtils.getBufferPool());
+        final byte[] data = new byte[100];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IOUtils.copy(new ByteArrayInputStream(data), out);
+        assertArrayEquals(data, out.toByteArray());
+        assertEquals(1, pool.getMissCount());
+
+        final ByteArrayInputStream in = new ByteArrayInputStream(data);
+        assertEquals(50, IOUtils.skip(in, 50));
+        assertEquals(50, in.read());
+        assertTrue(IOUtils.contentEquals(new ByteArrayInputStream(data), new ByteArrayInputStream(data)));
+        assertEquals("abcdefghijklmnopqrstuvwxyz", IOUtils.toString(new StringReader("abcdefghijklmnopqrstuvwxyz")));
+        assertEquals(3, IOUtils.skip(new StringReader("abcdef"), 3));
+
+        // one more byte array for the second stream of contentEquals, and one char array for toString
+        assertEquals(3, pool.getMissCount());
+        assertEquals(3, pool.getHitCount());
+    }
+}
@@ -16,6 +16,7 @@
  */
 package org.apache.commons.io;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -34,7 +35,9 @@
 import java.io.OutputStream;
 import java.math.BigInteger;
 import java.net.URL;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -45,6 +48,11 @@
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.zip.CRC32;
 import java.util.zip.Checksum;
 
@@ -52,6 +60,7 @@
 import org.apache.commons.io.filefilter.WildcardFileFilter;
 import org.apache.commons.io.testtools.TestUtils;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Rule;
@@ -626,6 +635,43 @@ public void testContentEquals() throws Exception {
         assertTrue(FileUtils.contentEquals(file, file2));
     }
 
+    @Test
+    public void testContentEqualsLargeFiles() throws Exception {
+        final byte[] data = new byte[(int) (3 * FileUtils.ONE_MB) + 17];
+        new java.util.Random(1).nextBytes(data);
+        final File file1 = new File(getTestDirectory(), getName() + ".1");
+        final File file2 = new File(getTestDirectory(), getName() + ".2");
+        FileUtils.writeByteArrayToFile(file1, data);
+        FileUtils.writeByteArrayToFile(file2, data);
+        assertTrue(FileUtils.contentEquals(file1, file2));
+        assertTrue(FileUtils.contentEquals(file1, file2, 8));
+        assertTrue(FileUtils.contentEquals(file1, file2, 0, true));
+
+        // a difference in the last byte, not sampled
+        data[data.length - 1]++;
+        FileUtils.writeByteArrayToFile(file2, data);
+        assertFalse(FileUtils.contentEquals(file1, file2));
+        assertFalse(FileUtils.contentEquals(file1, file2, 8));
+        assertFalse(FileUtils.contentEquals(file1, file2, 0, true));
+        data[data.length - 1]--;
+
+        // a difference between the samples
+        data[data.length / 3 + 5]++;
+        FileUtils.writeByteArrayToFile(file2, data);
+        assertFalse(FileUtils.contentEquals(file1, file2));
+        assertFalse(FileUtils.contentEquals(file1, file2, 1));
+        assertFalse(FileUtils.contentEquals(file1, file2, 1, true));
+
+        // small files
+        final byte[] small = Arrays.copyOf(data, 100000);
+        FileUtils.writeByteArrayToFile(file1, small);
+        FileUtils.writeByteArrayToFile(file2, small);
+        assertTrue(FileUtils.contentEquals(file1, file2, 4));
+        small[99999]++;
+        FileUtils.writeByteArrayToFile(file2, small);
+        assertFalse(FileUtils.contentEquals(file1, file2, 4));
+    }
+
     @Test
     public void testContentEqualsIgnoreEOL() throws Exception {
         // Non-existent files
@@ -1483,6 +1529,94 @@ public void testCopyDirectoryToGrandChild() throws Exception {
         assertTrue("Size > 0", expectedSize > 0);
     }
 
+    @Test
+    public void testCopyDirectoryParallel() throws Exception {
+        final File grandParentDir = new File(getTestDirectory(), "grandparent");
+        final File parentDir = new File(grandParentDir, "parent");
+        final File childDir = new File(parentDir, "child");
+        createFilesForTestCopyDirectory(grandParentDir, parentDir, childDir);
+        final File manyDir = new File(grandParentDir, "many");
+        manyDir.mkdirs();
+        for (int i = 0; i < 200; i++) {
+            FileUtils.writeStringToFile(new File(manyDir, "file" + i + ".txt"), "File " + i, "UTF8");
+        }
+
+        final File destDir = new File(getTestDirectory(), "copydest");
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final CopyStatistics statistics = FileUtils.copyDirectory(grandParentDir, destDir, null, true, pool);
+            assertEquals(7, statistics.getDirectoryCount());
+            assertEquals(206, statistics.getFileCount());
+            assertEquals(FileUtils.sizeOfDirectory(grandParentDir), statistics.getByteCount());
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(LIST_WALKER.list(grandParentDir).size(), LIST_WALKER.list(destDir).size());
+        assertEquals(FileUtils.sizeOfDirectory(grandParentDir), FileUtils.sizeOfDirectory(destDir));
+        assertEquals("File 5 in grandChild",
+                FileUtils.readFileToString(new File(destDir, "parent/child/grandChild/file5.txt"), "UTF8"));
+        assertEquals(grandParentDir.lastModified(), destDir.lastModified());
+    }
+
+    @Test
+    public void testCopyDirectoryParallelFiltered() throws Exception {
+        final File grandParentDir = new File(getTestDirectory(), "grandparent");
+        final File parentDir = new File(grandParentDir, "parent");
+        final File childDir = new File(parentDir, "child");
+        createFilesForTestCopyDirectory(grandParentDir, parentDir, childDir);
+
+        final NameFileFilter filter = new NameFileFilter(new String[]{"parent", "child", "file3.txt"});
+        final File destDir = new File(getTestDirectory(), "copydest");
+
+        final CopyStatistics statistics = FileUtils.copyDirectory(grandParentDir, destDir, filter, false, null);
+        assertEquals(3, statistics.getDirectoryCount());
+        assertEquals(1, statistics.getFileCount());
+        final List<File> files = LIST_WALKER.list(destDir);
+        assertEquals(3, files.size());
+        assertEquals("parent", files.get(0).getName());
+        assertEquals("child", files.get(1).getName());
+        assertEquals("file3.txt", files.get(2).getName());
+    }
+
+    /* Test for IO-141 */
+    @Test
+    public void testCopyDirectoryParallelToGrandChild() throws Exception {
+        final File grandParentDir = new File(getTestDirectory(), "grandparent");
+        final File parentDir = new File(grandParentDir, "parent");
+        final File childDir = new File(parentDir, "child");
+        createFilesForTestCopyDirectory(grandParentDir, parentDir, childDir);
+
+        final long expectedCount = LIST_WALKER.list(grandParentDir).size() * 2;
+        final long expectedSize = FileUtils.sizeOfDirectory(grandParentDir) * 2;
+        FileUtils.copyDirectory(grandParentDir, childDir, null, false, null);
+        assertEquals(expectedCount, LIST_WALKER.list(grandParentDir).size());
+        assertEquals(expectedSize, FileUtils.sizeOfDirectory(grandParentDir));
+    }
+
+    @Test
+    public void testCopyDirectoryParallelErrors() throws Exception {
+        try {
+            FileUtils.copyDirectory(testFile1, new File("a"), null, false, null);
+            fail();
+        } catch (final IOException ignore) {
+        }
+        try {
+            FileUtils.copyDirectory(getTestDirectory(), getTestDirectory(), null, false, null);
+            fail();
+        } catch (final IOException ignore) {
+        }
+        final File srcDir = new File(getTestDirectory(), "source");
+        srcDir.mkdirs();
+        FileUtils.writeStringToFile(new File(srcDir, "file.txt"), "File", "UTF8");
+        final File destDir = new File(getTestDirectory(), "copydest");
+        FileUtils.forceMkdir(new File(destDir, "file.txt"));
+        try {
+            FileUtils.copyDirectory(srcDir, destDir, null, false, null);
+            fail();
+        } catch (final IOException ignore) {
+        }
+    }
+
     /* Test for IO-217 FileUtils.copyDirectoryToDirectory makes infinite loops */
     @Test
     public void testCopyDirectoryToItself() throws Exception {
@@ -1980,6 +2114,21 @@ public void testReadFileToStringWithDefaultEncoding() throws Exception {
         assertEquals("Hello /u1234", data);
     }
 
+    @Test
+    public void testReadFileToStringNonAscii() throws Exception {
+        final File file = new File(getTestDirectory(), "read-utf8.txt");
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            expected.append("line ").append(i).append(i % 10 == 0 ? " \u00e9\u4e2d\ud83d\ude00\n" : "\n");
+        }
+        FileUtils.write(file, expected, "UTF-8");
+        assertEquals(expected.toString(), FileUtils.readFileToString(file, StandardCharsets.UTF_8));
+        // the bytes of the non-ASCII characters are replaced
+        final String ascii = FileUtils.readFileToString(file, StandardCharsets.US_ASCII);
+        assertTrue(ascii.startsWith("line 0 \ufffd"));
+        assertTrue(ascii.contains("\nline 1\n"));
+    }
+
     @Test
     public void testReadFileToStringWithEncoding() throws Exception {
         final File file = new File(getTestDirectory(), "read.obj");
@@ -2008,6 +2157,97 @@ public void testReadFileToByteArray() throws Exception {
         assertEquals(31, data[2]);
     }
 
+    @Test
+    public void testReadFileToByteArrayLarge() throws Exception {
+        final File file = new File(getTestDirectory(), "read-large.bin");
+        final byte[] expected = new byte[100000];
+        new Random(1).nextBytes(expected);
+        FileUtils.writeByteArrayToFile(file, expected);
+        assertArrayEquals(expected, FileUtils.readFileToByteArray(file));
+
+        final File empty = new File(getTestDirectory(), "read-empty.bin");
+        FileUtils.touch(empty);
+        assertEquals(0, FileUtils.readFileToByteArray(empty).length);
+    }
+
+    @Test
+    public void testLines() throws Exception {
+        final File file = new File(getTestDirectory(), "lines.txt");
+        final List<String> expected = new ArrayList<>();
+        final StringBuilder content = new StringBuilder();
+        final String[] separators = {"\n", "\r\n", "\r"};
+        for (int i = 0; i < 5000; i++) {
+            final String line = i % 7 == 0 ? "" : "line " + i + " \u00e9\u4e2d\ud83d\ude00";
+            expected.add(line);
+            // an empty line after a carriage return would merge with it if it ended with a line feed
+            content.append(line).append(line.isEmpty() ? "\r\n" : separators[i % separators.length]);
+        }
+        FileUtils.write(file, content, "UTF-8");
+
+        try (Stream<String> lines = FileUtils.lines(file, StandardCharsets.UTF_8)) {
+            assertEquals(expected, lines.collect(Collectors.toList()));
+        }
+        try (Stream<String> lines = FileUtils.lines(file, StandardCharsets.UTF_8)) {
+            assertEquals(expected, lines.parallel().collect(Collectors.toList()));
+        }
+        // not splittable
+        FileUtils.write(file, content, "UTF-16");
+        try (Stream<String> lines = FileUtils.lines(file, StandardCharsets.UTF_16)) {
+            assertEquals(expected, lines.parallel().collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void testLinesSplitAtLineFeeds() throws Exception {
+        final File file = new File(getTestDirectory(), "lines-split.txt");
+        final StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            content.append("line ").append(i).append('\n');
+        }
+        FileUtils.write(file, content, "US-ASCII");
+        try (FileChannel channel = FileChannel.open(file.toPath())) {
+            final Spliterator<String> suffix =
+                    new FileLineSpliterator(channel, StandardCharsets.US_ASCII, 0, channel.size());
+            final Spliterator<String> prefix = suffix.trySplit();
+            assertNotNull(prefix);
+            final List<String> lines = new ArrayList<>();
+            prefix.forEachRemaining(lines::add);
+            final int split = lines.size();
+            suffix.forEachRemaining(lines::add);
+            assertEquals(10000, lines.size());
+            assertEquals("line " + split, lines.get(split));
+            for (int i = 0; i < lines.size(); i++) {
+                assertEquals("line " + i, lines.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testLinesSizeZero() throws Exception {
+        final File empty = new File(getTestDirectory(), "lines-empty.txt");
+        FileUtils.touch(empty);
+        try (Stream<String> lines = FileUtils.lines(empty, StandardCharsets.UTF_8)) {
+            assertEquals(0, lines.count());
+        }
+        // procfs files report a size of 0, IO-453
+        final File status = new File("/proc/self/status");
+        Assume.assumeTrue(status.isFile() && status.length() == 0);
+        try (Stream<String> lines = FileUtils.lines(status, StandardCharsets.UTF_8)) {
+            assertTrue(lines.anyMatch(line -> line.startsWith("Name:")));
+        }
+    }
+
+        @Test
+    public void testLinesClosesFile() throws Exception {
+        final File file = new File(getTestDirectory(), "lines-close.txt");
+        FileUtils.write(file, "a\nb\n", "UTF-8");
+        final Stream<String> lines = FileUtils.lines(file, StandardCharsets.UTF_8);
+        assertEquals("a", lines.findFirst().get());
+        lines.close();
+        // a closed file can be deleted on all platforms
+        assertTrue(file.delete());
+    }
+
     @Test
     public void testReadLines() throws Exception {
         final File file = TestUtils.newFile(getTestDirectory(), "lines.txt");
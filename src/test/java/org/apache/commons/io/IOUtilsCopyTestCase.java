@@ -20,6 +20,10 @@
 import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
@@ -36,7 +40,10 @@
 import org.apache.commons.io.testtools.TestUtils;
 import org.apache.commons.io.testtools.YellOnCloseInputStream;
 import org.apache.commons.io.testtools.YellOnFlushAndCloseOutputStream;
+import org.junit.Assume;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 /**
  * JUnit tests for IOUtils copy methods.
@@ -57,6 +64,9 @@ public class IOUtilsCopyTestCase {
 
     private final byte[] inData = TestUtils.generateTestData(FILE_SIZE);
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     //-----------------------------------------------------------------------
     @SuppressWarnings("resource") // 'in' is deliberately not closed
     @Test
@@ -94,6 +104,87 @@ public void testCopy_inputStreamToOutputStream_IO84() throws Exception {
         assertEquals("copyLarge()", size, IOUtils.copyLarge(in, out));
     }
 
+    @Test
+    public void testCopy_fileInputStreamToFileOutputStream() throws Exception {
+        final File src = temporaryFolder.newFile("copy-src.bin");
+        final File dest = temporaryFolder.newFile("copy-dest.bin");
+        FileUtils.writeByteArrayToFile(src, inData);
+
+        try (final FileInputStream in = new FileInputStream(src);
+                final FileOutputStream out = new FileOutputStream(dest)) {
+            assertEquals(inData.length, IOUtils.copyLarge(in, out));
+            assertEquals("Not all bytes were read", 0, in.available());
+            assertEquals(IOUtils.EOF, in.read());
+        }
+        assertTrue("Content differs", Arrays.equals(inData, FileUtils.readFileToByteArray(dest)));
+    }
+
+    @Test
+    public void testCopy_fileInputStreamToFileOutputStream_afterPartialRead() throws Exception {
+        final File src = temporaryFolder.newFile("copy-src.bin");
+        final File dest = temporaryFolder.newFile("copy-dest.bin");
+        FileUtils.writeByteArrayToFile(src, inData);
+        FileUtils.writeByteArrayToFile(dest, new byte[] { 1, 2, 3 });
+
+        try (final FileInputStream in = new FileInputStream(src);
+                final FileOutputStream out = new FileOutputStream(dest, true)) {
+            assertEquals(10, in.read(new byte[10]));
+            assertEquals(inData.length - 10, IOUtils.copyLarge(in, out));
+        }
+        final byte[] expected = new byte[3 + inData.length - 10];
+        expected[0] = 1;
+        expected[1] = 2;
+        expected[2] = 3;
+        System.arraycopy(inData, 10, expected, 3, inData.length - 10);
+        assertTrue("Content differs", Arrays.equals(expected, FileUtils.readFileToByteArray(dest)));
+    }
+
+    @Test
+    public void testCopyLarge_fileInputStreamToFileOutputStream_offsetAndLength() throws Exception {
+        final File src = temporaryFolder.newFile("copy-src.bin");
+        final File dest = temporaryFolder.newFile("copy-dest.bin");
+        FileUtils.writeByteArrayToFile(src, inData);
+
+        try (final FileInputStream in = new FileInputStream(src);
+                final FileOutputStream out = new FileOutputStream(dest)) {
+            assertEquals(100, IOUtils.copyLarge(in, out, 5, 100));
+            assertEquals(inData[105], (byte) in.read());
+        }
+        assertTrue("Content differs",
+                Arrays.equals(Arrays.copyOfRange(inData, 5, 105), FileUtils.readFileToByteArray(dest)));
+    }
+
+    @Test
+    public void testCopy_fifoToFileOutputStream() throws Exception {
+        final File fifo = new File(temporaryFolder.getRoot(), "copy-fifo");
+        final Process mkfifo;
+        try {
+            mkfifo = new ProcessBuilder("mkfifo", fifo.getAbsolutePath()).start();
+        } catch (final IOException e) {
+            Assume.assumeNoException("mkfifo is not available", e);
+            return;
+        }
+        Assume.assumeTrue("mkfifo failed", mkfifo.waitFor() == 0);
+        final File dest = temporaryFolder.newFile("copy-dest.bin");
+        final Thread writer = new Thread() {
+            @Override
+            public void run() {
+                try (final FileOutputStream out = new FileOutputStream(fifo)) {
+                    out.write(inData);
+                } catch (final IOException e) {
+                    // the copy fails with fewer bytes
+                }
+            }
+        };
+        writer.start();
+        try (final FileInputStream in = new FileInputStream(fifo);
+                final FileOutputStream out = new FileOutputStream(dest)) {
+            assertEquals(inData.length, IOUtils.copyLarge(in, out));
+        }
+        writer.join();
+        assertTrue("Content differs", Arrays.equals(inData, FileUtils.readFileToByteArray(dest)));
+    }
+
     @Test(expected = NullPointerException.class)
     public void testCopy_inputStreamToOutputStream_nullIn() throws Exception {
         final OutputStream out = new ByteArrayOutputStream();
@@ -16,6 +16,7 @@
  */
 package org.apache.commons.io;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -54,10 +55,14 @@
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.Selector;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.apache.commons.io.input.ProxyInputStream;
 import org.apache.commons.io.testtools.TestUtils;
 import org.junit.Assert;
 import org.junit.Before;
@@ -920,6 +925,54 @@ public synchronized void close() throws IOException {
         }
     }
 
+    @Test public void testLines_InputStream() throws Exception {
+        final byte[] data = "a\r\nb\n\nc\rd".getBytes("UTF-8");
+        final boolean[] closed = new boolean[1];
+        final InputStream in = new ByteArrayInputStream(data) {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+        try (Stream<String> lines = IOUtils.lines(in, StandardCharsets.UTF_8)) {
+            assertEquals(Arrays.asList("a", "b", "", "c", "d"), lines.collect(Collectors.toList()));
+        }
+        assertTrue(closed[0]);
+    }
+
+    @Test public void testToByteArray_InputStream_WrongAvailable() throws Exception {
+        final byte[] data = new byte[10000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        // fewer bytes available than the stream holds
+        final byte[] longer = IOUtils.toByteArray(new ByteArrayInputStream(data) {
+            @Override
+            public synchronized int available() {
+                return Math.min(super.available(), 100);
+            }
+        });
+        assertArrayEquals(data, longer);
+        // more bytes available than the stream holds
+        final byte[] shorter = IOUtils.toByteArray(new ByteArrayInputStream(data) {
+            @Override
+            public synchronized int available() {
+                return super.available() + 100;
+            }
+        });
+        assertArrayEquals(data, shorter);
+        // exactly as many
+        assertArrayEquals(data, IOUtils.toByteArray(new ByteArrayInputStream(data)));
+        // an estimate far too large is not used to allocate the array
+        final byte[] estimated = IOUtils.toByteArray(new ProxyInputStream(new ByteArrayInputStream(data)) {
+            @Override
+            public int available() {
+                return Integer.MAX_VALUE - 8;
+            }
+        });
+        assertArrayEquals(data, estimated);
+    }
+
     @Test public void testToByteArray_InputStream_NegativeSize() throws Exception {
 
         try (FileInputStream fin = new FileInputStream(m_testFile)) {
@@ -1108,6 +1161,24 @@ public synchronized void close() throws IOException {
         }
     }
 
+    @Test public void testToString_InputStream_DecodedAtOnce() throws Exception {
+        final String ascii = "Hello, World!\r\n";
+        final String text = "caf\u00e9 \u4e2d\u6587 \ud83d\ude00";
+        final byte[] malformed = {'a', (byte) 0xc3, 'b', (byte) 0xff, (byte) 0xe4, (byte) 0xb8};
+        final Charset[] charsets = {StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1,
+            StandardCharsets.US_ASCII, StandardCharsets.UTF_16, Charset.forName("windows-1252")};
+        for (final Charset charset : charsets) {
+            for (final byte[] bytes : new byte[][] {ascii.getBytes(charset), text.getBytes(charset), malformed}) {
+                // a proxy stream is decoded as it is read
+                final String streamed = IOUtils.toString(new ProxyInputStream(new ByteArrayInputStream(bytes)) {
+                    // no overrides
+                }, charset);
+                assertEquals(charset.name(), streamed, IOUtils.toString(new ByteArrayInputStream(bytes), charset));
+            }
+        }
+        assertEquals(text, IOUtils.toString(new ByteArrayInputStream(text.getBytes("UTF-8")), "UTF-8"));
+    }
+
     @Test public void testToString_Reader() throws Exception {
         try (FileReader fin = new FileReader(m_testFile)) {
             final String out = IOUtils.toString(fin);
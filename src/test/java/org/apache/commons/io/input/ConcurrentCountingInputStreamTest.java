@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.io.input;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+/**
+ * Tests the ConcurrentCountingInputStream.
+ */
+public class ConcurrentCountingInputStreamTest {
+
+    @Test
+    public void testCounting() throws Exception {
+        final byte[] bytes = "A piece of text".getBytes();
+        try (final ConcurrentCountingInputStream cis =
+                new ConcurrentCountingInputStream(new ByteArrayInputStream(bytes))) {
+            assertEquals(1, cis.read(new byte[1]));
+            cis.read();
+            assertEquals(2, cis.getCount());
+            assertEquals(3, cis.skip(3));
+            assertEquals(5, cis.getByteCount());
+            assertEquals(5, cis.resetByteCount());
+            assertEquals(0, cis.getByteCount());
+            IOUtils.toByteArray(cis);
+            assertEquals(bytes.length - 5, cis.getByteCount());
+        }
+    }
+
+    @Test
+    public void testSharedCounter() throws Exception {
+        final LongAdder counter = new LongAdder();
+        final int threads = 4;
+        final int size = 100000;
+        final List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            readers.add(new Thread() {
+                @Override
+                public void run() {
+                    try (final ConcurrentCountingInputStream cis =
+                            new ConcurrentCountingInputStream(new ByteArrayInputStream(new byte[size]), counter)) {
+                        while (cis.read() != -1) {
+                            // read byte by byte
+                        }
+                    } catch (final Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+        }
+        for (final Thread reader : readers) {
+            reader.start();
+        }
+        for (final Thread reader : readers) {
+            reader.join();
+        }
+        assertEquals(threads * size, counter.sum());
+        final ConcurrentCountingInputStream cis =
+                new ConcurrentCountingInputStream(new ByteArrayInputStream(new byte[0]), counter);
+        assertEquals(threads * size, cis.getByteCount());
+        cis.close();
+    }
+}
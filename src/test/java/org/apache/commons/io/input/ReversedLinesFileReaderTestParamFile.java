@@ -30,6 +30,7 @@
 import com.google.common.jimfs.Configuration;
 import com.google.common.jimfs.Jimfs;
 import org.junit.After;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -114,6 +115,30 @@ public void testDataIntegrityWithBufferedReader() throws IOException {
         }
     }
 
+    @Test
+    public void testDataIntegrityWithBufferedReaderMemoryMapped() throws IOException {
+        // the in-memory file system does not support mapping
+        Assume.assumeFalse(useNonDefaultFileSystem);
+        reversedLinesFileReader = new ReversedLinesFileReader(file, blockSize == null ? 4096 : blockSize, encoding,
+                true);
+
+        final Stack<String> lineStack = new Stack<>();
+
+        bufferedReader = Files.newBufferedReader(file, encoding);
+        String line;
+
+        // read all lines in normal order
+        while ((line = bufferedReader.readLine()) != null) {
+            lineStack.push(line);
+        }
+
+        // read in reverse order and compare with lines from stack
+        while ((line = reversedLinesFileReader.readLine()) != null) {
+            final String lineFromBufferedReader = lineStack.pop();
+            assertEquals(lineFromBufferedReader, line);
+        }
+    }
+
     @After
     public void releaseResources() {
         try {
@@ -17,11 +17,20 @@
 package org.apache.commons.io.input;
 
 import static org.apache.commons.io.input.ReversedLinesFileReaderTestParamBlockSize.assertEqualsAndNoLineBreaks;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
 
 import org.junit.After;
 import org.junit.Test;
@@ -50,6 +59,36 @@ public void testFileSizeIsExactMultipleOfBlockSize() throws URISyntaxException,
         assertEqualsAndNoLineBreaks(testLine, reversedLinesFileReader.readLine());
     }
 
+    @Test
+    public void testReadLines() throws URISyntaxException, IOException {
+        final File testFile20Bytes = new File(this.getClass().getResource("/test-file-20byteslength.bin").toURI());
+        reversedLinesFileReader = new ReversedLinesFileReader(testFile20Bytes, 10, "ISO-8859-1");
+        final List<String> lines = reversedLinesFileReader.readLines(1);
+        assertEquals(1, lines.size());
+        assertEqualsAndNoLineBreaks("123456789", lines.get(0));
+        assertEquals(Collections.singletonList("123456789"), reversedLinesFileReader.readLines(5));
+        assertTrue(reversedLinesFileReader.readLines(5).isEmpty());
+    }
+
+    @Test
+    public void testReadLinesMemoryMapped() throws URISyntaxException, IOException {
+        final Path testFile = Paths.get(this.getClass().getResource("/test-file-iso8859-1-shortlines-win-linebr.bin")
+                .toURI());
+        final List<String> expected = Files.readAllLines(testFile, StandardCharsets.ISO_8859_1);
+        Collections.reverse(expected);
+        reversedLinesFileReader = new ReversedLinesFileReader(testFile, 3, StandardCharsets.ISO_8859_1, true);
+        final List<String> lines = reversedLinesFileReader.readLines(expected.size() + 1);
+        assertEquals(expected, lines);
+        assertNull(reversedLinesFileReader.readLine());
+    }
+
+    @Test
+    public void testEmptyFileMemoryMapped() throws URISyntaxException, IOException {
+        final Path testFileEmpty = Paths.get(this.getClass().getResource("/test-file-empty.bin").toURI());
+        reversedLinesFileReader = new ReversedLinesFileReader(testFileEmpty, 4096, StandardCharsets.UTF_8, true);
+        assertNull(reversedLinesFileReader.readLine());
+    }
+
     @Test(expected=UnsupportedEncodingException.class)
     public void testUnsupportedEncodingUTF16() throws URISyntaxException, IOException {
         final File testFileEmpty = new File(this.getClass().getResource("/test-file-empty.bin").toURI());
@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.io.input;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.testtools.TestUtils;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link TailerGroup}.
+ */
+public class TailerGroupTest {
+
+    private static final long DELAY_MILLIS = 50;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private TailerGroup group;
+
+    @After
+    public void tearDown() {
+        if (group != null) {
+            group.close();
+        }
+    }
+
+    @Test
+    public void testTailManyFilesOnOneThread() throws Exception {
+        group = new TailerGroup(1);
+        final int fileCount = 10;
+        final File[] files = new File[fileCount];
+        final TestTailerListener[] listeners = new TestTailerListener[fileCount];
+        for (int i = 0; i < fileCount; i++) {
+            files[i] = temporaryFolder.newFile("file" + i + ".txt");
+            listeners[i] = new TestTailerListener();
+            group.add(new Tailer(files[i], listeners[i], DELAY_MILLIS));
+        }
+        assertEquals(fileCount, group.size());
+        for (int i = 0; i < fileCount; i++) {
+            write(files[i], "line 1 of " + i, "line 2 of " + i);
+        }
+        for (int i = 0; i < fileCount; i++) {
+            awaitLines(listeners[i], 2);
+            assertEquals("line 1 of " + i, listeners[i].getLines().get(0));
+            assertEquals("line 2 of " + i, listeners[i].getLines().get(1));
+        }
+        // only the files that grew are read
+        write(files[3], "line 3 of 3");
+        awaitLines(listeners[3], 3);
+        TestUtils.sleep(DELAY_MILLIS * 4);
+        for (int i = 0; i < fileCount; i++) {
+            assertEquals(i == 3 ? 3 : 2, listeners[i].getLines().size());
+        }
+    }
+
+    @Test
+    public void testRotation() throws Exception {
+        group = new TailerGroup(2);
+        final File file = temporaryFolder.newFile("rotated.txt");
+        final TestTailerListener listener = new TestTailerListener();
+        group.add(new Tailer(file, listener, DELAY_MILLIS));
+        write(file, "before rotation 1", "before rotation 2");
+        awaitLines(listener, 2);
+
+        FileUtils.forceDelete(file);
+        write(file, "after");
+        awaitLines(listener, 3);
+        assertEquals("after", listener.getLines().get(2));
+        assertTrue("fileRotated should be called", listener.rotated > 0);
+    }
+
+    @Test
+    public void testRemoveAndClose() throws Exception {
+        group = new TailerGroup(1);
+        final File file = temporaryFolder.newFile("removed.txt");
+        final TestTailerListener listener = new TestTailerListener();
+        final Tailer tailer = group.add(new Tailer(file, listener, DELAY_MILLIS));
+        final Tailer other = group.add(new Tailer(temporaryFolder.newFile("other.txt"), new TestTailerListener(),
+                DELAY_MILLIS));
+        assertTrue(group.remove(tailer));
+        assertFalse(group.remove(tailer));
+        assertEquals(1, group.size());
+        write(file, "ignored");
+        TestUtils.sleep(DELAY_MILLIS * 4);
+        assertTrue(listener.getLines().isEmpty());
+
+        group.close();
+        assertEquals(0, group.size());
+        assertFalse(other.getRun());
+    }
+
+    @Test
+    public void testFileNotFound() throws Exception {
+        group = new TailerGroup(1);
+        final File file = new File(temporaryFolder.getRoot(), "nosuchfile");
+        final TestTailerListener listener = new TestTailerListener();
+        group.add(new Tailer(file, listener, DELAY_MILLIS));
+        TestUtils.sleep(DELAY_MILLIS * 4);
+        assertTrue("fileNotFound should be called", listener.notFound > 0);
+        write(file, "created");
+        awaitLines(listener, 1);
+        assertEquals("created", listener.getLines().get(0));
+    }
+
+    @Test
+    public void testWatchedTailersCheckedOnChange() throws Exception {
+        group = new TailerGroup(1);
+        // a delay long enough that lines are only seen in time if the tailers are checked on changes
+        final long delayMillis = 60000;
+        final int fileCount = 5;
+        final File[] files = new File[fileCount];
+        final TestTailerListener[] listeners = new TestTailerListener[fileCount];
+        for (int i = 0; i < fileCount; i++) {
+            files[i] = temporaryFolder.newFile("watched" + i + ".txt");
+            listeners[i] = new TestTailerListener();
+            group.add(new Tailer(files[i], StandardCharsets.UTF_8, listeners[i], delayMillis, false, false, 4096,
+                    true));
+        }
+        assertEquals("watch services", 1, TailerWatcher.getServiceCount());
+        TestUtils.sleep(200);
+        write(files[1], "line 1 of 1");
+        write(files[3], "line 1 of 3", "line 2 of 3");
+        awaitLines(listeners[1], 1);
+        awaitLines(listeners[3], 2);
+        assertEquals("line 2 of 3", listeners[3].getLines().get(1));
+        write(files[1], "line 2 of 1");
+        awaitLines(listeners[1], 2);
+        for (int i = 0; i < fileCount; i++) {
+            assertNull("Should not generate Exception", listeners[i].exception);
+        }
+
+        // stopping the tailers closes the watch service
+        group.close();
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (TailerWatcher.getServiceCount() > 0 && System.currentTimeMillis() < deadline) {
+            TestUtils.sleep(10);
+        }
+        assertEquals("watch services", 0, TailerWatcher.getServiceCount());
+    }
+
+    @Test
+    public void testWatchedTailerCheckedEveryDelay() throws Exception {
+        group = new TailerGroup(1);
+        final File file = temporaryFolder.newFile("unreported.txt");
+        final TestTailerListener listener = new TestTailerListener();
+        final Tailer tailer = group.add(new Tailer(file, StandardCharsets.UTF_8, listener, DELAY_MILLIS, false,
+                false, 4096, true));
+        // as on the file systems which do not report the changes
+        tailer.setChangeCallback(new Runnable() {
+            @Override
+            public void run() {
+                // ignored
+            }
+        });
+        write(file, "line 1", "line 2");
+        final long deadline = System.currentTimeMillis() + DELAY_MILLIS * 10;
+        while (listener.getLines().size() < 2 && System.currentTimeMillis() < deadline) {
+            TestUtils.sleep(10);
+        }
+        assertEquals("line count", 2, listener.getLines().size());
+        assertNull("Should not generate Exception", listener.exception);
+    }
+
+    @Test
+    public void testWatchFallbackToPolling() throws Exception {
+        group = new TailerGroup(1);
+        final File file = new File(new File(temporaryFolder.getRoot(), "missing"), "watched.txt");
+        final TestTailerListener listener = new TestTailerListener();
+        group.add(new Tailer(file, StandardCharsets.UTF_8, listener, DELAY_MILLIS, false, false, 4096, true));
+        TestUtils.sleep(DELAY_MILLIS * 4);
+        assertNotNull("fallback should be reported", listener.exception);
+        assertTrue(listener.exception.getMessage(), listener.exception.getMessage().startsWith("Cannot watch "));
+        assertTrue("fileNotFound should be called every delay", listener.notFound > 1);
+        assertTrue(file.getParentFile().mkdir());
+        write(file, "created");
+        awaitLines(listener, 1);
+    }
+
+    private void awaitLines(final TestTailerListener listener, final int count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (listener.getLines().size() < count && System.currentTimeMillis() < deadline) {
+            TestUtils.sleep(10);
+        }
+        assertEquals("line count", count, listener.getLines().size());
+    }
+
+    /** Append some lines to a file */
+    private void write(final File file, final String... lines) throws Exception {
+        try (FileWriter writer = new FileWriter(file, true)) {
+            for (final String line : lines) {
+                writer.write(line + "\n");
+            }
+        }
+    }
+
+    /**
+     * Test {@link TailerListener} implementation.
+     */
+    private static class TestTailerListener extends TailerListenerAdapter {
+
+        // Must be synchronised because it is written by one thread and read by another
+        private final List<String> lines = Collections.synchronizedList(new ArrayList<String>());
+
+        volatile Exception exception = null;
+
+        volatile int notFound = 0;
+
+        volatile int rotated = 0;
+
+        @Override
+        public void handle(final String line) {
+            lines.add(line);
+        }
+
+        public List<String> getLines() {
+            return lines;
+        }
+
+        @Override
+        public void handle(final Exception e) {
+            exception = e;
+        }
+
+        @Override
+        public void fileNotFound() {
+            notFound++; // not atomic, but OK because only updated here.
+        }
+
+        @Override
+        public void fileRotated() {
+            rotated++; // not atomic, but OK because only updated here.
+        }
+    }
+}
@@ -38,6 +38,7 @@
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Executor;
@@ -430,6 +431,195 @@ public void testIO335() throws Exception { // test CR behaviour
         assertEquals("line 4", "CRCR\r", lines.get(3));
     }
 
+    @Test
+    public void testCarriageReturnAtEndOfRead() throws Exception {
+        final long delayMillis = 50;
+        final File file = new File(getTestDirectory(), "tailer-cr.txt");
+        createFile(file, 0);
+        final TestTailerListener listener = new TestTailerListener();
+        tailer = new Tailer(file, listener, delayMillis, false);
+        final Thread thread = new Thread(tailer);
+        thread.start();
+
+        writeString(file, "CR\r");
+        TestUtils.sleep(delayMillis * 4);
+        writeString(file, "trail");
+        TestUtils.sleep(delayMillis * 4);
+        writeString(file, "ing\n");
+        TestUtils.sleep(delayMillis * 4);
+        final List<String> lines = listener.getLines();
+        assertEquals("line count", 2, lines.size());
+        assertEquals("line 1", "CR", lines.get(0));
+        assertEquals("line 2", "trailing", lines.get(1));
+    }
+
+    @Test
+    public void testBatchedLines() throws Exception {
+        final long delayMillis = 50;
+        final File file = new File(getTestDirectory(), "tailer-batch.txt");
+        createFile(file, 0);
+        final List<List<String>> batches = Collections.synchronizedList(new ArrayList<List<String>>());
+        final TailerListenerAdapter listener = new TailerListenerAdapter() {
+            @Override
+            public void handle(final List<String> lines) {
+                batches.add(new ArrayList<>(lines));
+            }
+        };
+        // small buffer so that lines span several reads
+        tailer = new Tailer(file, listener, delayMillis, false, 8);
+        final Thread thread = new Thread(tailer);
+        thread.start();
+
+        write(file, "one", "two", "a line longer than the buffer", "", "three");
+        TestUtils.sleep(delayMillis * 4);
+        final List<String> lines = new ArrayList<>();
+        for (final List<String> batch : batches) {
+            assertFalse("empty batch", batch.isEmpty());
+            lines.addAll(batch);
+        }
+        assertEquals(Arrays.asList("one", "two", "a line longer than the buffer", "", "three"), lines);
+        assertTrue("lines should be batched", batches.size() < lines.size());
+    }
+
+    @Test
+    public void testTailerWatch() throws Exception {
+        // a delay long enough that lines are only seen in time if the tailer is woken by the watch service
+        final long delayMillis = 10000;
+        final File file = new File(getTestDirectory(), "tailer-watch.txt");
+        createFile(file, 0);
+        final TestTailerListener listener = new TestTailerListener();
+        tailer = new Tailer(file, StandardCharsets.UTF_8, listener, delayMillis, false, false, 4096, true);
+        final Thread thread = new Thread(tailer);
+        thread.start();
+
+        // wait for the tailer to open the file and start waiting
+        TestUtils.sleep(200);
+        write(file, "Line one", "Line two");
+        final long deadline = System.currentTimeMillis() + delayMillis / 2;
+        while (listener.getLines().size() < 2 && System.currentTimeMillis() < deadline) {
+            TestUtils.sleep(20);
+        }
+        assertEquals("line count", 2, listener.getLines().size());
+        assertEquals("line 1", "Line one", listener.getLines().get(0));
+        assertEquals("line 2", "Line two", listener.getLines().get(1));
+
+        // stop() wakes up the tailer
+        tailer.stop();
+        thread.join(delayMillis / 2);
+        assertFalse("tailer still running", thread.isAlive());
+        assertNull("Should not generate Exception", listener.exception);
+    }
+
+    @Test
+    public void testTailerWatchSharesService() throws Exception {
+        final long delayMillis = 10000;
+        final int count = 5;
+        final TestTailerListener[] listeners = new TestTailerListener[count];
+        final Tailer[] tailers = new Tailer[count];
+        final Thread[] threads = new Thread[count];
+        final File[] files = new File[count];
+        try {
+            for (int i = 0; i < count; i++) {
+                files[i] = new File(getTestDirectory(), "tailer-shared" + i + ".txt");
+                createFile(files[i], 0);
+                listeners[i] = new TestTailerListener();
+                tailers[i] = new Tailer(files[i], StandardCharsets.UTF_8, listeners[i], delayMillis, false, false,
+                        4096, true);
+                threads[i] = new Thread(tailers[i]);
+                threads[i].start();
+            }
+            TestUtils.sleep(200);
+            assertEquals("watch services", 1, TailerWatcher.getServiceCount());
+
+            // each tailer is only woken by the changes of its own file
+            write(files[2], "two");
+            write(files[4], "four");
+            final long deadline = System.currentTimeMillis() + delayMillis / 2;
+            while ((listeners[2].getLines().isEmpty() || listeners[4].getLines().isEmpty())
+                    && System.currentTimeMillis() < deadline) {
+                TestUtils.sleep(20);
+            }
+            assertEquals(Collections.singletonList("two"), listeners[2].getLines());
+            assertEquals(Collections.singletonList("four"), listeners[4].getLines());
+            assertTrue(listeners[0].getLines().isEmpty());
+        } finally {
+            for (int i = 0; i < count; i++) {
+                if (tailers[i] != null) {
+                    tailers[i].stop();
+                }
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            threads[i].join(delayMillis / 2);
+            assertFalse("tailer still running", threads[i].isAlive());
+            assertNull("Should not generate Exception", listeners[i].exception);
+        }
+        // closed with the last tailer
+        assertEquals("watch services", 0, TailerWatcher.getServiceCount());
+    }
+
+    @Test
+    public void testTailerWatchSameDirectoryDifferentPaths() throws Exception {
+        final long delayMillis = 10000;
+        final File sub = new File(getTestDirectory(), "sub");
+        assertTrue(sub.mkdir());
+        final File file1 = new File(new File(getTestDirectory(), "."), "tailer-path1.txt");
+        final File file2 = new File(new File(sub, ".."), "tailer-path2.txt");
+        createFile(file1, 0);
+        createFile(file2, 0);
+        final TestTailerListener listener1 = new TestTailerListener();
+        final TestTailerListener listener2 = new TestTailerListener();
+        final Tailer tailer1 = new Tailer(file1, StandardCharsets.UTF_8, listener1, delayMillis, false, false, 4096,
+                true);
+        tailer = new Tailer(file2, StandardCharsets.UTF_8, listener2, delayMillis, false, false, 4096, true);
+        final Thread thread1 = new Thread(tailer1);
+        final Thread thread2 = new Thread(tailer);
+        thread1.start();
+        thread2.start();
+        TestUtils.sleep(200);
+
+        // the first tailer still receives events after the second one registered
+        write(file1, "one");
+        long deadline = System.currentTimeMillis() + delayMillis / 2;
+        while (listener1.getLines().isEmpty() && System.currentTimeMillis() < deadline) {
+            TestUtils.sleep(20);
+        }
+        assertEquals(Collections.singletonList("one"), listener1.getLines());
+
+        // and stopping it does not cancel the watch of the second one
+        tailer1.stop();
+        thread1.join(delayMillis / 2);
+        assertFalse("tailer still running", thread1.isAlive());
+        write(file2, "two");
+        deadline = System.currentTimeMillis() + delayMillis / 2;
+        while (listener2.getLines().isEmpty() && System.currentTimeMillis() < deadline) {
+            TestUtils.sleep(20);
+        }
+        assertEquals(Collections.singletonList("two"), listener2.getLines());
+        assertNull("Should not generate Exception", listener1.exception);
+        assertNull("Should not generate Exception", listener2.exception);
+    }
+
+    @Test
+    public void testTailerWatchFallbackReported() throws Exception {
+        final long delayMillis = 50;
+        final File file = new File(new File(getTestDirectory(), "missing"), "tailer-watch.txt");
+        final TestTailerListener listener = new TestTailerListener();
+        tailer = new Tailer(file, StandardCharsets.UTF_8, listener, delayMillis, false, false, 4096, true);
+        final Thread thread = new Thread(tailer);
+        thread.start();
+        TestUtils.sleep(delayMillis * 4);
+
+        final Exception exception = listener.exception;
+        assertNotNull("fallback should be reported", exception);
+        assertTrue(exception.getMessage(), exception.getMessage().startsWith("Cannot watch "));
+        // the tailer keeps checking the file
+        assertTrue("fileNotFound should be called", listener.notFound > 1);
+        tailer.stop();
+        thread.join(delayMillis * 4);
+        assertFalse("tailer still running", thread.isAlive());
+    }
+
     /**
      * Test {@link TailerListener} implementation.
      */
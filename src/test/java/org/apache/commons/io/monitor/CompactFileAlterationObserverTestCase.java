@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.io.monitor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileFilter;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+/**
+ * {@link CompactFileAlterationObserver} Test Case.
+ */
+public class CompactFileAlterationObserverTestCase extends FileAlterationObserverTestCase {
+
+    @Override
+    protected void createObserver(final File file, final FileFilter fileFilter) {
+        observer = new CompactFileAlterationObserver(file, fileFilter);
+        observer.addListener(listener);
+        observer.addListener(new FileAlterationListenerAdaptor());
+        try {
+            observer.initialize();
+        } catch (final Exception e) {
+            fail("Observer init() threw " + e);
+        }
+    }
+
+    @Test
+    public void testMemoryPerEntry() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            for (int j = 0; j < 50; j++) {
+                FileUtils.touch(new File(new File(testDir, "dir" + i), "file" + j + ".java"));
+            }
+        }
+        createObserver(testDir, null);
+        final FileSnapshot snapshot = ((CompactFileAlterationObserver) observer).getSnapshot();
+        assertEquals(1 + 20 + 20 * 50, snapshot.size());
+        assertEquals(FileSnapshot.BYTES_PER_ENTRY * snapshot.size(), snapshot.getMemoryUsage());
+        // the names of the files are shared by the directories
+        assertEquals(1 + 20 + 50, snapshot.getNameTable().size());
+
+        FileUtils.deleteDirectory(new File(testDir, "dir0"));
+        checkAndNotify();
+        checkCollectionSizes("A", 0, 0, 1, 0, 0, 50);
+        assertTrue(listener.getDeletedDirectories().contains(new File(testDir, "dir0")));
+        assertEquals(1 + 19 + 19 * 50, ((CompactFileAlterationObserver) observer).getSnapshot().size());
+    }
+}
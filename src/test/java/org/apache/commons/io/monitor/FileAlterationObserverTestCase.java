@@ -19,9 +19,13 @@
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileFilter;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.Iterator;
 
 import org.apache.commons.io.FileUtils;
@@ -375,6 +379,110 @@ public void testObserveSingleFile() throws Exception {
         assertFalse("E deleted", listener.getDeletedFiles().contains(testDirAFile3));
     }
 
+    /**
+     * Test restoring the state of the observer from a checkpoint.
+     * @throws Exception
+     */
+    @Test
+    public void testCheckpoint() throws Exception {
+        final File root = new File(testDir, "root");
+        final File dir = new File(root, "dir");
+        final File checkpoint = new File(testDir, "observer.checkpoint");
+        final File file1 = touch(new File(dir, "file1.java"));
+        final File file2 = touch(new File(dir, "file2.java"));
+        createObserver(root, null);
+        checkAndNotify();
+        checkCollectionsEmpty("A");
+        observer.writeCheckpoint(checkpoint);
+        assertTrue("A checkpoint exists", checkpoint.isFile());
+
+        // changes while the observer is stopped
+        touch(file1);
+        FileUtils.deleteQuietly(file2);
+        final File file3 = touch(new File(dir, "file3.java"));
+        final File dir2 = new File(root, "dir2");
+        dir2.mkdir();
+        createObserver(root, null);
+        assertTrue("B restored", observer.initialize(checkpoint));
+        checkAndNotify();
+        checkCollectionSizes("B", 1, 1, 0, 1, 1, 1);
+        assertTrue("B created", listener.getCreatedFiles().contains(file3));
+        assertTrue("B changed", listener.getChangedFiles().contains(file1));
+        assertTrue("B deleted", listener.getDeletedFiles().contains(file2));
+        assertTrue("B created", listener.getCreatedDirectories().contains(dir2));
+
+        // changes after restoring
+        final File file4 = touch(new File(dir2, "file4.java"));
+        checkAndNotify();
+        checkCollectionSizes("C", 0, 1, 0, 1, 0, 0);
+        assertTrue("C created", listener.getCreatedFiles().contains(file4));
+
+        // another directory
+        createObserver(dir, null);
+        assertFalse("D restored", observer.initialize(checkpoint));
+        checkAndNotify();
+        checkCollectionsEmpty("D");
+
+        // corrupt
+        FileUtils.writeStringToFile(checkpoint, "corrupt", "UTF-8");
+        createObserver(root, null);
+        assertFalse("E restored", observer.initialize(checkpoint));
+        checkAndNotify();
+        checkCollectionsEmpty("E");
+
+        // a child count larger than the rest of the checkpoint
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(checkpoint))) {
+            out.writeInt(0x46414f01);
+            out.writeUTF(root.getPath());
+            out.writeUTF(root.getName());
+            out.writeByte(FileAlterationObserver.CHECKPOINT_EXISTS | FileAlterationObserver.CHECKPOINT_DIRECTORY);
+            out.writeLong(root.lastModified());
+            out.writeLong(0);
+            out.writeInt(Integer.MAX_VALUE);
+        }
+        createObserver(root, null);
+        assertFalse("F restored", observer.initialize(checkpoint));
+        checkAndNotify();
+        checkCollectionsEmpty("F");
+    }
+
+    /**
+     * Test writing a checkpoint of an observer not initialized, or to a file which cannot be replaced.
+     * @throws Exception
+     */
+    @Test
+    public void testCheckpointFailures() throws Exception {
+        final File root = new File(testDir, "root");
+        touch(new File(root, "file1.java"));
+        final File checkpoint = new File(testDir, "observer.checkpoint");
+        final File temp = new File(testDir, "observer.checkpoint.tmp");
+        final FileAlterationObserver[] observers = {
+                new FileAlterationObserver(root), new CompactFileAlterationObserver(root)};
+        for (final FileAlterationObserver obs : observers) {
+            try {
+                obs.writeCheckpoint(checkpoint);
+                fail("Expected IllegalStateException");
+            } catch (final IllegalStateException e) {
+                // expected
+            }
+            assertFalse("checkpoint written", checkpoint.exists());
+            assertFalse("temporary file left", temp.exists());
+        }
+
+        // a non-empty directory cannot be replaced
+        touch(new File(checkpoint, "file"));
+        for (final FileAlterationObserver obs : observers) {
+            obs.initialize();
+            try {
+                obs.writeCheckpoint(checkpoint);
+                fail("Expected IOException");
+            } catch (final IOException e) {
+                // expected
+            }
+            assertFalse("temporary file left", temp.exists());
+        }
+    }
+
     /**
      * Call {@link FileAlterationObserver#checkAndNotify()}.
      *
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.io.monitor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+/**
+ * {@link FileAlterationObserver} Test Case scanning the directories in parallel.
+ */
+public class ParallelFileAlterationObserverTestCase extends FileAlterationObserverTestCase {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @AfterClass
+    public static void shutdownPool() {
+        POOL.shutdown();
+    }
+
+    @Override
+    protected void createObserver(final File file, final FileFilter fileFilter) {
+        observer = new FileAlterationObserver(file, fileFilter, null, POOL);
+        observer.addListener(listener);
+        observer.addListener(new FileAlterationListenerAdaptor());
+        try {
+            observer.initialize();
+        } catch (final Exception e) {
+            fail("Observer init() threw " + e);
+        }
+    }
+
+    @Test
+    public void testSameEventsAsSequential() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            final File dir = new File(testDir, "dir" + i);
+            for (int j = 0; j < 10; j++) {
+                FileUtils.touch(new File(new File(dir, "sub" + j), "file" + j + ".txt"));
+            }
+        }
+        final OrderedListener sequentialEvents = new OrderedListener();
+        final FileAlterationObserver sequential = new FileAlterationObserver(testDir);
+        sequential.addListener(sequentialEvents);
+        sequential.initialize();
+        final OrderedListener parallelEvents = new OrderedListener();
+        final FileAlterationObserver parallel = new FileAlterationObserver(testDir, null, null, POOL);
+        parallel.addListener(parallelEvents);
+        parallel.initialize();
+
+        for (int i = 0; i < 10; i += 2) {
+            FileUtils.deleteDirectory(new File(new File(testDir, "dir" + i), "sub" + i));
+            FileUtils.write(new File(new File(testDir, "dir" + (i + 1)), "new" + i + ".txt"), "new", "UTF-8");
+            FileUtils.write(new File(new File(new File(testDir, "dir" + i), "sub" + (9 - i)), "file" + (9 - i)
+                    + ".txt"), "changed", "UTF-8");
+        }
+        sequential.checkAndNotify();
+        parallel.checkAndNotify();
+        assertFalse(sequentialEvents.events.isEmpty());
+        assertEquals(sequentialEvents.events, parallelEvents.events);
+    }
+
+    /**
+     * Records the events in the order they are received.
+     */
+    private static class OrderedListener extends FileAlterationListenerAdaptor {
+
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onDirectoryCreate(final File directory) {
+            events.add("dirCreate " + directory);
+        }
+
+        @Override
+        public void onDirectoryChange(final File directory) {
+            events.add("dirChange " + directory);
+        }
+
+        @Override
+        public void onDirectoryDelete(final File directory) {
+            events.add("dirDelete " + directory);
+        }
+
+        @Override
+        public void onFileCreate(final File file) {
+            events.add("fileCreate " + file);
+        }
+
+        @Override
+        public void onFileChange(final File file) {
+            events.add("fileChange " + file);
+        }
+
+        @Override
+        public void onFileDelete(final File file) {
+            events.add("fileDelete " + file);
+        }
+    }
+}
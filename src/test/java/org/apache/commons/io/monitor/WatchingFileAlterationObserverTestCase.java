@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.io.monitor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * {@link WatchingFileAlterationObserver} Test Case.
+ */
+public class WatchingFileAlterationObserverTestCase extends FileAlterationObserverTestCase {
+
+    /** The directories listed by the observer */
+    private final List<File> listed = new ArrayList<>();
+
+    @After
+    public void tearDown() throws Exception {
+        observer.destroy();
+    }
+
+    @Override
+    protected void createObserver(final File file, final FileFilter fileFilter) {
+        if (observer != null) {
+            try {
+                observer.destroy();
+            } catch (final Exception e) {
+                fail("Observer destroy() threw " + e);
+            }
+        }
+        observer = new WatchingFileAlterationObserver(file, fileFilter) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            File[] listFiles(final File directory) {
+                if (directory.isDirectory()) {
+                    listed.add(directory);
+                }
+                return super.listFiles(directory);
+            }
+        };
+        observer.addListener(listener);
+        observer.addListener(new FileAlterationListenerAdaptor());
+        try {
+            observer.initialize();
+        } catch (final Exception e) {
+            fail("Observer init() threw " + e);
+        }
+    }
+
+    /**
+     * Give the watch service time to queue the events before checking.
+     */
+    @Override
+    protected void checkAndNotify() throws Exception {
+        Thread.sleep(pauseTime * 2);
+        observer.checkAndNotify();
+    }
+
+    @Test
+    public void testOnlyChangedDirectoriesListed() throws Exception {
+        final File testDirA = new File(testDir, "test-dir-A");
+        final File testDirB = new File(testDir, "test-dir-B");
+        final File testDirC = new File(testDirB, "test-dir-C");
+        testDirA.mkdir();
+        testDirC.mkdirs();
+        checkAndNotify();
+        checkCollectionSizes("A", 3, 0, 0, 0, 0, 0);
+
+        listed.clear();
+        checkAndNotify();
+        checkCollectionsEmpty("B");
+        assertEquals("B listed", 0, listed.size());
+
+        // a new file is only listed in its own directory
+        final File testDirCFile1 = touch(new File(testDirC, "C-file1.java"));
+        listed.clear();
+        checkAndNotify();
+        checkCollectionSizes("C", 0, 1, 0, 1, 0, 0);
+        assertTrue("C created", listener.getCreatedFiles().contains(testDirCFile1));
+        assertTrue("C changed", listener.getChangedDirectories().contains(testDirC));
+        assertTrue("C listed", listed.contains(testDirC));
+        assertFalse("C not listed", listed.contains(testDirA));
+
+        // a directory created after initialization is watched as well
+        final File testDirD = new File(testDirA, "test-dir-D");
+        testDirD.mkdir();
+        checkAndNotify();
+        checkCollectionSizes("D", 1, 1, 0, 0, 0, 0);
+        final File testDirDFile1 = touch(new File(testDirD, "D-file1.java"));
+        checkAndNotify();
+        checkCollectionSizes("E", 0, 1, 0, 1, 0, 0);
+        assertTrue("E created", listener.getCreatedFiles().contains(testDirDFile1));
+
+        // deleting a tree reports all its entries
+        FileUtils.deleteDirectory(testDirB);
+        checkAndNotify();
+        checkCollectionSizes("F", 0, 0, 2, 0, 0, 1);
+        assertTrue("F deleted", listener.getDeletedFiles().contains(testDirCFile1));
+    }
+
+    @Test
+    public void testRootCreatedLater() throws Exception {
+        final File root = new File(testDir, "root");
+        createObserver(root, null);
+        checkAndNotify();
+        checkCollectionsEmpty("A");
+
+        root.mkdir();
+        final File file1 = touch(new File(root, "file1.txt"));
+        checkAndNotify();
+        checkCollectionSizes("B", 0, 0, 0, 1, 0, 0);
+
+        final File file2 = touch(new File(root, "file2.txt"));
+        listed.clear();
+        checkAndNotify();
+        checkCollectionSizes("C", 0, 0, 0, 1, 0, 0);
+        assertTrue("C created", listener.getCreatedFiles().contains(file2));
+        assertEquals("C listed", 1, listed.size());
+
+        FileUtils.deleteQuietly(file1);
+        checkAndNotify();
+        checkCollectionSizes("D", 0, 0, 0, 0, 0, 1);
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.io.output;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.io.output.AsyncTeeOutputStream.FullPolicy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link AsyncTeeOutputStream}.
+ */
+public class AsyncTeeOutputStreamTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testBlock() throws IOException {
+        final byte[] data = new byte[10000];
+        new Random(1).nextBytes(data);
+        final ByteArrayOutputStream main = new ByteArrayOutputStream();
+        final ByteArrayOutputStream branch = new ByteArrayOutputStream();
+        try (final AsyncTeeOutputStream tee = new AsyncTeeOutputStream(main, branch, 64, executor, FullPolicy.BLOCK)) {
+            int pos = 0;
+            int chunk = 1;
+            while (pos < data.length) {
+                final int len = Math.min(chunk, data.length - pos);
+                if (len == 1) {
+                    tee.write(data[pos]);
+                } else {
+                    tee.write(data, pos, len);
+                }
+                pos += len;
+                chunk = chunk % 150 + 13;
+            }
+            tee.flush();
+        }
+        assertArrayEquals(data, main.toByteArray());
+        assertArrayEquals(data, branch.toByteArray());
+    }
+
+    @Test
+    public void testDrop() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final ByteArrayOutputStream main = new ByteArrayOutputStream();
+        final ByteArrayOutputStream branch = new ByteArrayOutputStream();
+        final AsyncTeeOutputStream tee =
+                new AsyncTeeOutputStream(main, new SlowOutputStream(branch, latch), 16, executor, FullPolicy.DROP);
+        tee.write(new byte[15]);
+        tee.write('a');
+        tee.write(new byte[5]);
+        tee.write('b');
+        assertEquals(6, tee.getDroppedByteCount());
+        assertEquals(16, tee.getQueuedByteCount());
+        latch.countDown();
+        tee.close();
+        assertEquals(22, main.size());
+        assertEquals(16, branch.size());
+        assertEquals('a', branch.toByteArray()[15]);
+    }
+
+    @Test
+    public void testFail() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final ByteArrayOutputStream main = new ByteArrayOutputStream();
+        final AsyncTeeOutputStream tee = new AsyncTeeOutputStream(main,
+                new SlowOutputStream(new ByteArrayOutputStream(), latch), 16, executor, FullPolicy.FAIL);
+        tee.write(new byte[10]);
+        try {
+            tee.write(new byte[10]);
+            fail("Expected IOException");
+        } catch (final IOException e) {
+            // expected
+        }
+        assertEquals(20, main.size());
+        assertEquals(10, tee.getDroppedByteCount());
+        tee.write(new byte[6]);
+        try {
+            tee.write('c');
+            fail("Expected IOException");
+        } catch (final IOException e) {
+            // expected
+        }
+        assertEquals(27, main.size());
+        assertEquals(11, tee.getDroppedByteCount());
+        latch.countDown();
+        tee.close();
+    }
+
+    @Test
+    public void testBranchError() throws IOException {
+        final IOException exception = new IOException("branch failure");
+        final ByteArrayOutputStream main = new ByteArrayOutputStream();
+        final AsyncTeeOutputStream tee = new AsyncTeeOutputStream(main, new BrokenOutputStream(exception), 16,
+                executor, FullPolicy.BLOCK);
+        for (int i = 0; i < 10; i++) {
+            tee.write(new byte[10]);
+        }
+        try {
+            tee.close();
+            fail("Expected IOException");
+        } catch (final IOException e) {
+            assertSame(exception, e.getCause());
+        }
+        assertEquals(100, main.size());
+    }
+
+    /**
+     * An output stream waiting for a latch before each write.
+     */
+    private static class SlowOutputStream extends ProxyOutputStream {
+        private final CountDownLatch latch;
+
+        SlowOutputStream(final OutputStream out, final CountDownLatch latch) {
+            super(out);
+            this.latch = latch;
+        }
+
+        @Override
+        protected void beforeWrite(final int n) throws IOException {
+            try {
+                latch.await();
+            } catch (final InterruptedException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.io.output;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+/**
+ * Tests {@link BackgroundOutputStream}.
+ */
+public class BackgroundOutputStreamTest {
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor();
+
+    @AfterClass
+    public static void shutdown() {
+        EXECUTOR.shutdown();
+    }
+
+    @Test
+    public void testWritesInOrder() throws IOException {
+        final byte[] data = new byte[10000];
+        new Random(1).nextBytes(data);
+        final java.io.ByteArrayOutputStream target = new java.io.ByteArrayOutputStream();
+        final ClosedCheckingOutputStream checked = new ClosedCheckingOutputStream(target);
+        try (final BackgroundOutputStream out = new BackgroundOutputStream(checked, EXECUTOR, 64)) {
+            int pos = 0;
+            int chunk = 1;
+            while (pos < data.length) {
+                final int len = Math.min(chunk, data.length - pos);
+                if (len == 1) {
+                    out.write(data[pos]);
+                } else {
+                    out.write(data, pos, len);
+                }
+                pos += len;
+                chunk = chunk % 200 + 7;
+            }
+        }
+        assertTrue(checked.closed);
+        assertArrayEquals(data, target.toByteArray());
+    }
+
+    @Test
+    public void testErrorSurfacedByClose() throws IOException {
+        final IOException exception = new IOException("disk full");
+        final BackgroundOutputStream out = new BackgroundOutputStream(new BrokenOutputStream(exception), EXECUTOR, 16);
+        try {
+            for (int i = 0; i < 100; i++) {
+                out.write(new byte[10]);
+            }
+        } catch (final IOException e) {
+            // the error of a previous write
+            assertSame(exception, e.getCause());
+        }
+        try {
+            out.close();
+            fail("Expected IOException");
+        } catch (final IOException e) {
+            assertSame(exception, e.getCause());
+        }
+    }
+
+    @Test
+    public void testRejected() throws IOException {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        final BackgroundOutputStream out = new BackgroundOutputStream(new NullOutputStream(), executor, 16);
+        try {
+            out.write(new byte[100]);
+            fail("Expected IOException");
+        } catch (final IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testInterruptedCloseLeavesStreamOpen() throws Exception {
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final java.io.ByteArrayOutputStream target = new java.io.ByteArrayOutputStream();
+        final ClosedCheckingOutputStream checked = new ClosedCheckingOutputStream(target) {
+            @Override
+            public void write(final byte[] b, final int off, final int len) throws IOException {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+                super.write(b, off, len);
+            }
+        };
+        final BackgroundOutputStream out = new BackgroundOutputStream(checked, EXECUTOR, 16);
+        out.write(new byte[20]);
+        writing.await();
+        Thread.currentThread().interrupt();
+        try {
+            out.close();
+            fail("Expected InterruptedIOException");
+        } catch (final InterruptedIOException e) {
+            // expected
+        }
+        assertTrue(Thread.interrupted());
+        assertFalse(checked.closed);
+        release.countDown();
+        out.close();
+        assertTrue(checked.closed);
+        assertEquals(20, target.size());
+    }
+
+    private static class ClosedCheckingOutputStream extends ProxyOutputStream {
+        boolean closed;
+
+        ClosedCheckingOutputStream(final java.io.OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+}
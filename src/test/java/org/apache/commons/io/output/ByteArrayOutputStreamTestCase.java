@@ -16,13 +16,18 @@
  */
 package org.apache.commons.io.output;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.channels.GatheringByteChannel;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.Test;
@@ -219,5 +224,96 @@ public void testStream() throws Exception {
         baout.close();
         baout1.close();
     }
-}
 
+    @Test
+    public void testToByteBuffers() throws Exception {
+        final ByteArrayOutputStream baout = new ByteArrayOutputStream(32);
+        final java.io.ByteArrayOutputStream ref = new java.io.ByteArrayOutputStream();
+        assertEquals(0, baout.toByteBuffers().length);
+        writeData(baout, ref, new int[] {4, 10, 22, 60, 33});
+        final ByteBuffer[] buffers = baout.toByteBuffers();
+        assertEquals(3, buffers.length);
+        final java.io.ByteArrayOutputStream gathered = new java.io.ByteArrayOutputStream();
+        for (final ByteBuffer buffer : buffers) {
+            assertTrue(buffer.isReadOnly());
+            while (buffer.hasRemaining()) {
+                gathered.write(buffer.get());
+            }
+        }
+        assertArrayEquals(ref.toByteArray(), gathered.toByteArray());
+        try {
+            buffers[0].put(0, (byte) 1);
+            fail("Expected ReadOnlyBufferException");
+        } catch (final ReadOnlyBufferException e) {
+            // expected
+        }
+
+        // the exposed buffers keep their contents after a reset
+        final byte[] expected = ref.toByteArray();
+        final ByteBuffer[] exposed = baout.toByteBuffers();
+        baout.reset();
+        writeData(baout, new java.io.ByteArrayOutputStream(), new int[] {64, 64});
+        int pos = 0;
+        for (final ByteBuffer buffer : exposed) {
+            while (buffer.hasRemaining()) {
+                assertEquals(expected[pos++], buffer.get());
+            }
+        }
+        assertEquals(expected.length, pos);
+        baout.close();
+    }
+
+    @Test
+    public void testWriteToGatheringByteChannel() throws Exception {
+        final ByteArrayOutputStream baout = new ByteArrayOutputStream(32);
+        final java.io.ByteArrayOutputStream ref = new java.io.ByteArrayOutputStream();
+        writeData(baout, ref, new int[] {4, 10, 22, 60, 33, 0, 64});
+        final SlowChannel channel = new SlowChannel();
+        assertEquals(ref.size(), baout.writeTo(channel));
+        assertArrayEquals(ref.toByteArray(), channel.written.toByteArray());
+        assertEquals(0, new ByteArrayOutputStream().writeTo(channel));
+        baout.close();
+    }
+
+    /**
+     * A channel writing at most 50 bytes per call.
+     */
+    static class SlowChannel implements GatheringByteChannel {
+
+        final java.io.ByteArrayOutputStream written = new java.io.ByteArrayOutputStream();
+
+        @Override
+        public int write(final ByteBuffer src) {
+            int n = 0;
+            while (src.hasRemaining() && n < 50) {
+                written.write(src.get());
+                n++;
+            }
+            return n;
+        }
+
+        @Override
+        public long write(final ByteBuffer[] srcs, final int offset, final int length) {
+            long n = 0;
+            for (int i = offset; i < offset + length && n < 50; i++) {
+                n += write(srcs[i]);
+            }
+            return n;
+        }
+
+        @Override
+        public long write(final ByteBuffer[] srcs) {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+            // noop
+        }
+    }
+}
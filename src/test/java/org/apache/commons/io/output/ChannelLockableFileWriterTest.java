@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.io.output;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests {@link ChannelLockableFileWriter}.
+ */
+public class ChannelLockableFileWriterTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File file;
+
+    @Before
+    public void setUp() {
+        file = new File(temporaryFolder.getRoot(), "testlockfile");
+    }
+
+    @Test
+    public void testWriteAndAppend() throws IOException {
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            expected.append("line \u00e9\u20ac\ud83d\ude00 ").append(i).append('\n');
+        }
+        final String text = expected.toString();
+        try (ChannelLockableFileWriter writer = new ChannelLockableFileWriter(file, StandardCharsets.UTF_8, false)) {
+            writer.write(text.substring(0, 10));
+            writer.write(text.charAt(10));
+            writer.write(text.toCharArray(), 11, 5000);
+            writer.flush();
+            writer.write(text, 5011, text.length() - 5011);
+        }
+        assertEquals(text, FileUtils.readFileToString(file, StandardCharsets.UTF_8));
+
+        try (ChannelLockableFileWriter writer = new ChannelLockableFileWriter(file, StandardCharsets.UTF_8, true)) {
+            writer.write("tail");
+        }
+        assertEquals(text + "tail", FileUtils.readFileToString(file, StandardCharsets.UTF_8));
+
+        try (ChannelLockableFileWriter writer = new ChannelLockableFileWriter(file, StandardCharsets.UTF_8, false)) {
+            writer.write("new");
+        }
+        assertEquals("new", FileUtils.readFileToString(file, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testFileLocked() throws IOException {
+        FileUtils.write(file, "unchanged", StandardCharsets.UTF_8);
+        try (ChannelLockableFileWriter writer = new ChannelLockableFileWriter(file, StandardCharsets.UTF_8, true)) {
+            final long start = System.currentTimeMillis();
+            try (ChannelLockableFileWriter writer2 = new ChannelLockableFileWriter(file, StandardCharsets.UTF_8,
+                    false, false, 200, TimeUnit.MILLISECONDS)) {
+                fail("Somehow able to open a locked file. ");
+            } catch (final IOException ioe) {
+                assertTrue(ioe.getMessage().startsWith("Can't write file, "));
+                assertTrue(System.currentTimeMillis() - start >= 150);
+            }
+            // the second writer did not truncate the file
+            assertEquals("unchanged", FileUtils.readFileToString(file, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testWaitForLock() throws Exception {
+        final ChannelLockableFileWriter writer = new ChannelLockableFileWriter(file, StandardCharsets.UTF_8, false);
+        writer.write("first,");
+        final Thread closer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                    writer.close();
+                } catch (final Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        closer.start();
+        try (ChannelLockableFileWriter writer2 = new ChannelLockableFileWriter(file, StandardCharsets.UTF_8, true,
+                true, -1, TimeUnit.MILLISECONDS)) {
+            writer2.write("second");
+        }
+        closer.join();
+        assertEquals("first,second", FileUtils.readFileToString(file, StandardCharsets.UTF_8));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSharedOverwriteRejected() throws IOException {
+        new ChannelLockableFileWriter(file, null, false, true, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testSharedWritersAppend() throws Exception {
+        // the locks of a virtual machine exclude each other: the other writer is another process
+        final String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        final int count = 20000;
+        long written = 0;
+        try (ChannelLockableFileWriter writer = new ChannelLockableFileWriter(file, StandardCharsets.UTF_8, true,
+                true, 0, TimeUnit.MILLISECONDS)) {
+            final Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    SharedAppender.class.getName(), file.getAbsolutePath(), Integer.toString(count))
+                    .redirectErrorStream(true).start();
+            final char[] chunk = new char[100];
+            Arrays.fill(chunk, 'a');
+            // write while the other process writes
+            while (true) {
+                writer.write(chunk);
+                writer.flush();
+                written += chunk.length;
+                try {
+                    assertEquals(0, process.exitValue());
+                    break;
+                } catch (final IllegalThreadStateException e) {
+                    // still running
+                }
+            }
+        }
+        final String text = FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+        assertEquals(written + count, text.length());
+        assertEquals(count, text.replace("a", "").length());
+    }
+
+    /**
+     * Appends a number of 'b' characters to a file with a shared lock, in another process.
+     */
+    public static class SharedAppender {
+        public static void main(final String[] args) throws IOException {
+            final int count = Integer.parseInt(args[1]);
+            final char[] chunk = new char[100];
+            Arrays.fill(chunk, 'b');
+            try (ChannelLockableFileWriter writer = new ChannelLockableFileWriter(new File(args[0]),
+                    StandardCharsets.UTF_8, true, true, 10, TimeUnit.SECONDS)) {
+                for (int i = 0; i < count; i += chunk.length) {
+                    writer.write(chunk);
+                    writer.flush();
+                }
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testWriteAfterClose() throws IOException {
+        final ChannelLockableFileWriter writer = new ChannelLockableFileWriter(file, null, false);
+        writer.close();
+        writer.close();
+        writer.write("x");
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.io.output;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.Test;
+
+/**
+ * Tests the ConcurrentCountingOutputStream.
+ */
+public class ConcurrentCountingOutputStreamTest {
+
+    @Test
+    public void testCounting() throws Exception {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (final ConcurrentCountingOutputStream cos = new ConcurrentCountingOutputStream(baos)) {
+            cos.write(1);
+            cos.write(new byte[10]);
+            cos.write(new byte[10], 2, 5);
+            assertEquals(16, cos.getCount());
+            assertEquals(16, baos.size());
+            assertEquals(16, cos.resetCount());
+            assertEquals(0, cos.getByteCount());
+        }
+    }
+
+    @Test
+    public void testSharedCounter() throws Exception {
+        final LongAdder counter = new LongAdder();
+        final int threads = 4;
+        final int writes = 100000;
+        final List<Thread> writers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            writers.add(new Thread() {
+                @Override
+                public void run() {
+                    final ConcurrentCountingOutputStream cos =
+                            new ConcurrentCountingOutputStream(NullOutputStream.NULL_OUTPUT_STREAM, counter);
+                    assertSame(counter, cos.getCounter());
+                    try {
+                        for (int j = 0; j < writes; j++) {
+                            cos.write(j);
+                        }
+                    } catch (final IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+        }
+        for (final Thread writer : writers) {
+            writer.start();
+        }
+        for (final Thread writer : writers) {
+            writer.join();
+        }
+        assertEquals(threads * writes, counter.sum());
+    }
+}
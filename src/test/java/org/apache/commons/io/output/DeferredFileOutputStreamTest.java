@@ -27,7 +27,11 @@
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -362,6 +366,238 @@ public void testTempFileError() throws Exception {
         }
     }
 
+    /**
+     * Tests retaining the data in direct buffers below the threshold.
+     * @throws IOException
+     */
+    @Test
+    public void testDirectBelowThreshold() throws IOException {
+        final DirectBufferPool pool = new DirectBufferPool(4096, initialBufferSize);
+        final DeferredFileOutputStream dfos =
+                new DeferredFileOutputStream(testBytes.length, (File) null, pool);
+        dfos.write(testBytes[0]);
+        dfos.write(testBytes, 1, testBytes.length - 1);
+        dfos.close();
+        assertTrue(dfos.isInMemory());
+        assertFalse(dfos.isThresholdExceeded());
+        assertTrue(pool.getUsed() >= testBytes.length);
+        final java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream();
+        dfos.writeTo(baos);
+        assertTrue(Arrays.equals(testBytes, baos.toByteArray()));
+
+        // consumed
+        assertEquals(0, pool.getUsed());
+        try {
+            dfos.getData();
+            fail("Expected IllegalStateException");
+        } catch (final IllegalStateException e) {
+            // expected
+        }
+        try {
+            dfos.writeTo(baos);
+            fail("Expected IllegalStateException");
+        } catch (final IllegalStateException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Tests returning the direct buffers once the data is consumed, or released.
+     * @throws IOException
+     */
+    @Test
+    public void testDirectGetDataReleasesMemory() throws IOException {
+        final DirectBufferPool pool = new DirectBufferPool(4096, initialBufferSize);
+        final DeferredFileOutputStream dfos =
+                new DeferredFileOutputStream(testBytes.length, (File) null, pool);
+        dfos.write(testBytes, 0, testBytes.length);
+        // not consumed before the stream is closed
+        assertTrue(Arrays.equals(testBytes, dfos.getData()));
+        try {
+            dfos.releaseMemory();
+            fail("Expected IllegalStateException");
+        } catch (final IllegalStateException e) {
+            // expected
+        }
+        dfos.close();
+        assertTrue(pool.getUsed() > 0);
+        assertTrue(Arrays.equals(testBytes, dfos.getData()));
+        assertEquals(0, pool.getUsed());
+
+        final DeferredFileOutputStream dfos2 =
+                new DeferredFileOutputStream(testBytes.length, (File) null, pool);
+        dfos2.write(testBytes, 0, testBytes.length);
+        dfos2.close();
+        dfos2.releaseMemory();
+        assertEquals(0, pool.getUsed());
+        try {
+            dfos2.getData();
+            fail("Expected IllegalStateException");
+        } catch (final IllegalStateException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Tests reclaiming the direct buffers of a stream dropped without consuming its data.
+     * @throws Exception
+     */
+    @Test
+    public void testDirectDroppedStreamReclaimed() throws Exception {
+        final DirectBufferPool pool = new DirectBufferPool(initialBufferSize, initialBufferSize);
+        DeferredFileOutputStream dfos = new DeferredFileOutputStream(1000, (File) null, pool);
+        dfos.write(testBytes, 0, 1);
+        dfos.close();
+        assertEquals(pool.getCapacity(), pool.getUsed());
+        assertNull(pool.acquire());
+
+        dfos = null;
+        ByteBuffer buffer = null;
+        for (int i = 0; i < 50 && buffer == null; i++) {
+            System.gc();
+            Thread.sleep(20);
+            buffer = pool.acquire();
+        }
+        assertNotNull("buffers of the dropped stream not reclaimed", buffer);
+    }
+
+    /**
+     * Tests committing the data retained in direct buffers to disk above the threshold.
+     * @throws IOException
+     */
+    @Test
+    public void testDirectAboveThreshold() throws IOException {
+        final DirectBufferPool pool = new DirectBufferPool(4096, initialBufferSize);
+        final DeferredFileOutputStream dfos =
+                new DeferredFileOutputStream(testBytes.length - 5, "commons-io-test", ".out", null, pool);
+        dfos.write(testBytes, 0, 5);
+        assertTrue(dfos.isInMemory());
+        dfos.write(testBytes, 5, testBytes.length - 5);
+        dfos.close();
+        assertFalse(dfos.isInMemory());
+        assertNull(dfos.getData());
+        assertEquals(0, pool.getUsed());
+        verifyResultFile(dfos.getFile());
+        dfos.getFile().delete();
+    }
+
+    /**
+     * Tests committing the data to disk before the threshold when the budget of the pool is exhausted.
+     * @throws IOException
+     */
+    @Test
+    public void testDirectPoolExhausted() throws IOException {
+        final int buffers = (testBytes.length + initialBufferSize - 1) / initialBufferSize;
+        final DirectBufferPool pool = new DirectBufferPool((long) buffers * initialBufferSize, initialBufferSize);
+        final DeferredFileOutputStream dfos1 =
+                new DeferredFileOutputStream(1000, "commons-io-test", ".out", null, pool);
+        dfos1.write(testBytes, 0, testBytes.length);
+        dfos1.close();
+        assertTrue(dfos1.isInMemory());
+        assertEquals(pool.getCapacity(), pool.getUsed());
+
+        final DeferredFileOutputStream dfos2 =
+                new DeferredFileOutputStream(1000, "commons-io-test", ".out", null, pool);
+        dfos2.write(testBytes, 0, 1);
+        assertFalse(dfos2.isInMemory());
+        assertTrue(dfos2.isThresholdExceeded());
+        dfos2.write(testBytes, 1, testBytes.length - 1);
+        dfos2.close();
+        assertFalse(dfos2.isInMemory());
+        assertNull(dfos2.getData());
+        verifyResultFile(dfos2.getFile());
+        dfos2.getFile().delete();
+
+        dfos1.releaseMemory();
+        assertEquals(0, pool.getUsed());
+    }
+
+    /**
+     * Tests committing the data to disk in the background.
+     * @throws IOException
+     */
+    @Test
+    public void testBackgroundAboveThreshold() throws IOException {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final DeferredFileOutputStream dfos =
+                    new DeferredFileOutputStream(testBytes.length - 5, "commons-io-test", ".out", null, executor);
+            dfos.write(testBytes, 0, 5);
+            assertTrue(dfos.isInMemory());
+            dfos.write(testBytes[5]);
+            dfos.write(testBytes, 6, testBytes.length - 6);
+            assertFalse(dfos.isInMemory());
+            assertNotNull(dfos.getFile());
+            dfos.close();
+            verifyResultFile(dfos.getFile());
+            final java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream();
+            dfos.writeTo(baos);
+            assertTrue(Arrays.equals(testBytes, baos.toByteArray()));
+            dfos.getFile().delete();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Tests compressing the data committed to disk.
+     * @throws IOException
+     */
+    @Test
+    public void testCompressedAboveThreshold() throws IOException {
+        final java.io.ByteArrayOutputStream expected = new java.io.ByteArrayOutputStream();
+        final DeferredFileOutputStream dfos =
+                new DeferredFileOutputStream(100, "commons-io-test", ".out", null, Deflater.BEST_SPEED);
+        assertTrue(dfos.isCompressed());
+        for (int i = 0; i < 1000; i++) {
+            final byte[] record = ("{\"id\":" + i + ",\"name\":\"" + testString + "\"}").getBytes("UTF-8");
+            dfos.write(record, 0, record.length);
+            expected.write(record, 0, record.length);
+        }
+        assertEquals(expected.size(), dfos.getByteCount());
+        dfos.close();
+        assertFalse(dfos.isInMemory());
+        assertTrue(dfos.getStoredByteCount() < dfos.getByteCount() / 4);
+        assertEquals(dfos.getFile().length(), dfos.getStoredByteCount());
+
+        final java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream();
+        dfos.writeTo(baos);
+        assertTrue(Arrays.equals(expected.toByteArray(), baos.toByteArray()));
+        dfos.getFile().delete();
+    }
+
+    /**
+     * Tests the stored byte count of data retained in memory when compression is enabled.
+     * @throws IOException
+     */
+    @Test
+    public void testCompressedBelowThreshold() throws IOException {
+        final DeferredFileOutputStream dfos =
+                new DeferredFileOutputStream(testBytes.length, (File) null, Deflater.DEFAULT_COMPRESSION);
+        dfos.write(testBytes, 0, testBytes.length);
+        dfos.close();
+        assertTrue(dfos.isInMemory());
+        assertEquals(testBytes.length, dfos.getStoredByteCount());
+        assertTrue(Arrays.equals(testBytes, dfos.getData()));
+    }
+
+    /**
+     * Tests an invalid compression level.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testCompressionLevelError() {
+        new DeferredFileOutputStream(testBytes.length, (File) null, 10);
+    }
+
+    /**
+     * Tests a compression level just below the default one.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testCompressionLevelBelowDefaultError() {
+        new DeferredFileOutputStream(testBytes.length, "commons-io-test", ".out", null,
+                Deflater.DEFAULT_COMPRESSION - 1);
+    }
+
     /**
      * Verifies that the specified file contains the same data as the original
      * test data.
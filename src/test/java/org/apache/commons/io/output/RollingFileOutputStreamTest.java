@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.io.output;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests {@link RollingFileOutputStream}.
+ */
+public class RollingFileOutputStreamTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private byte[] newData(final int length) {
+        final byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    private byte[] readSegments(final RollingFileOutputStream out) throws IOException {
+        final ByteArrayOutputStream all = new ByteArrayOutputStream();
+        for (int i = 0; i < out.getSegmentCount(); i++) {
+            all.write(FileUtils.readFileToByteArray(out.getSegmentFile(i)));
+        }
+        return all.toByteArray();
+    }
+
+    @Test
+    public void testRollBySize() throws IOException {
+        final File dir = temporaryFolder.getRoot();
+        final byte[] data = newData(250);
+        final RollingFileOutputStream out = new RollingFileOutputStream(100, dir, "log-", ".bin");
+        for (int i = 0; i < data.length; i += 25) {
+            out.write(data, i, 25);
+        }
+        out.close();
+        assertEquals(3, out.getSegmentCount());
+        assertEquals(100, new File(dir, "log-0.bin").length());
+        assertEquals(100, new File(dir, "log-1.bin").length());
+        assertEquals(50, new File(dir, "log-2.bin").length());
+        assertEquals(new File(dir, "log-2.bin"), out.getFile());
+        assertArrayEquals(data, readSegments(out));
+    }
+
+    @Test
+    public void testLargeWrite() throws IOException {
+        final File dir = temporaryFolder.getRoot();
+        final byte[] data = newData(260);
+        final RollingFileOutputStream out = new RollingFileOutputStream(100, dir, "log-", null);
+        out.write(data, 0, 250);
+        assertEquals(1, out.getSegmentCount());
+        out.write(data[250]);
+        out.write(data, 251, 9);
+        out.close();
+        assertEquals(2, out.getSegmentCount());
+        assertEquals(250, new File(dir, "log-0").length());
+        assertArrayEquals(data, readSegments(out));
+    }
+
+    @Test
+    public void testRollByAge() throws Exception {
+        final File dir = temporaryFolder.getRoot();
+        final RollingFileOutputStream out = new RollingFileOutputStream(1000, 50, TimeUnit.MILLISECONDS, dir,
+                "log-", ".bin", null, RollingFileOutputStream.NO_SYNC);
+        out.write(1);
+        Thread.sleep(100);
+        out.write(2);
+        out.write(3);
+        out.close();
+        assertEquals(2, out.getSegmentCount());
+        assertEquals(2, new File(dir, "log-1.bin").length());
+    }
+
+    @Test
+    public void testBackgroundOpenAndSync() throws IOException {
+        final File dir = temporaryFolder.getRoot();
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final byte[] data = newData(1000);
+            final RollingFileOutputStream out = new RollingFileOutputStream(64, 0, TimeUnit.MILLISECONDS, dir,
+                    "log-", ".bin", executor, 10);
+            for (int i = 0; i < data.length; i += 10) {
+                out.write(data, i, Math.min(10, data.length - i));
+                out.flush();
+            }
+            out.close();
+            assertEquals(17, out.getSegmentCount());
+            assertArrayEquals(data, readSegments(out));
+            // the pre-opened segment was deleted
+            assertFalse(new File(dir, "log-17.bin").exists());
+            assertEquals(17, dir.list().length);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testRestartKeepsSegments() throws Exception {
+        final File dir = temporaryFolder.getRoot();
+        final byte[] data = newData(150);
+        final RollingFileOutputStream first = new RollingFileOutputStream(100, dir, "log-", ".bin");
+        first.write(data, 0, 100);
+        first.write(data, 100, 50);
+        first.close();
+        assertEquals(new File(dir, "log-1.bin"), first.getFile());
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // a file in the way of the numbering is skipped
+            FileUtils.writeStringToFile(new File(dir, "log-3.bin"), "other", "UTF-8");
+            final RollingFileOutputStream second = new RollingFileOutputStream(100, 0, TimeUnit.MILLISECONDS, dir,
+                    "log-", ".bin", executor, RollingFileOutputStream.NO_SYNC);
+            assertEquals(new File(dir, "log-4.bin"), second.getFile());
+            second.write(data, 0, 10);
+            second.close();
+        } finally {
+            executor.shutdown();
+        }
+        assertArrayEquals(Arrays.copyOfRange(data, 0, 100), FileUtils.readFileToByteArray(new File(dir, "log-0.bin")));
+        assertArrayEquals(Arrays.copyOfRange(data, 100, 150),
+                FileUtils.readFileToByteArray(new File(dir, "log-1.bin")));
+        assertEquals("other", FileUtils.readFileToString(new File(dir, "log-3.bin"), "UTF-8"));
+        assertArrayEquals(Arrays.copyOfRange(data, 0, 10), FileUtils.readFileToByteArray(new File(dir, "log-4.bin")));
+        // the pre-opened segment created by the second stream was deleted
+        assertFalse(new File(dir, "log-5.bin").exists());
+    }
+
+    @Test
+    public void testExistingSegmentNotOverwritten() throws IOException {
+        final File dir = temporaryFolder.getRoot();
+        // named differently, so not found by the numbering
+        final RollingFileOutputStream out = new RollingFileOutputStream(100, dir, "log-", null) {
+            @Override
+            protected File getSegmentFile(final int sequence) {
+                return new File(dir, "segment-" + sequence);
+            }
+        };
+        out.close();
+        FileUtils.writeStringToFile(new File(dir, "segment-1"), "kept", "UTF-8");
+        final RollingFileOutputStream out2 = new RollingFileOutputStream(100, dir, "log-", null) {
+            @Override
+            protected File getSegmentFile(final int sequence) {
+                return new File(dir, "segment-" + sequence);
+            }
+        };
+        assertEquals(new File(dir, "segment-2"), out2.getFile());
+        out2.close();
+        assertEquals("kept", FileUtils.readFileToString(new File(dir, "segment-1"), "UTF-8"));
+    }
+
+    @Test
+    public void testFailedBackgroundOpen() throws IOException {
+        final File dir = temporaryFolder.getRoot();
+        // a file in the way of the directory of the second segment
+        final File blocker = new File(dir, "blocker");
+        FileUtils.touch(blocker);
+        final byte[] data = newData(150);
+        final Executor executor = new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                command.run();
+            }
+        };
+        final RollingFileOutputStream out = new RollingFileOutputStream(100, 0, TimeUnit.MILLISECONDS, dir,
+                "log-", ".bin", executor, 0) {
+            @Override
+            protected File getSegmentFile(final int sequence) {
+                return sequence == 1 ? new File(blocker, "log-1.bin") : super.getSegmentFile(sequence);
+            }
+        };
+        out.write(data, 0, 100);
+        try {
+            out.write(data, 100, 50);
+            fail("Expected IOException");
+        } catch (final IOException e) {
+            // the next segment could not be opened
+        }
+        // the current segment is kept, and the next write rolls again
+        assertEquals(new File(dir, "log-0.bin"), out.getFile());
+        out.flush();
+        out.write(data, 100, 50);
+        out.close();
+        assertEquals(2, out.getSegmentCount());
+        assertArrayEquals(Arrays.copyOfRange(data, 0, 100), FileUtils.readFileToByteArray(new File(dir, "log-0.bin")));
+        assertArrayEquals(Arrays.copyOfRange(data, 100, 150),
+                FileUtils.readFileToByteArray(new File(dir, "log-2.bin")));
+    }
+
+    @Test(expected = IOException.class)
+    public void testWriteAfterClose() throws IOException {
+        final RollingFileOutputStream out = new RollingFileOutputStream(100, temporaryFolder.getRoot(), "log-", null);
+        out.close();
+        out.write(1);
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.io.output;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+/**
+ * Tests {@link UnsynchronizedByteArrayOutputStream}.
+ */
+public class UnsynchronizedByteArrayOutputStreamTest {
+
+    private static byte[] newData(final int length, final long seed) {
+        final byte[] data = new byte[length];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    private static void write(final AbstractByteArrayOutputStream out, final byte[] data) throws IOException {
+        // mix the write methods
+        int pos = 0;
+        int chunk = 1;
+        while (pos < data.length) {
+            final int len = Math.min(chunk, data.length - pos);
+            if (len == 1) {
+                out.write(data[pos]);
+            } else if (chunk % 3 == 0) {
+                out.write(new ByteArrayInputStream(data, pos, len));
+            } else {
+                out.write(data, pos, len);
+            }
+            pos += len;
+            chunk = chunk * 2 + 1;
+        }
+    }
+
+    @Test
+    public void testPooled() throws IOException {
+        final byte[] data = newData(UnsynchronizedByteArrayOutputStream.SEGMENT_SIZE * 3 + 17, 1);
+        try (final UnsynchronizedByteArrayOutputStream out = new UnsynchronizedByteArrayOutputStream()) {
+            write(out, data);
+            assertEquals(data.length, out.size());
+            assertArrayEquals(data, out.toByteArray());
+            final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+            out.writeTo(copy);
+            assertArrayEquals(data, copy.toByteArray());
+
+            out.reset();
+            assertEquals(0, out.size());
+            assertEquals(0, out.toByteArray().length);
+            final byte[] data2 = newData(100, 2);
+            write(out, data2);
+            assertArrayEquals(data2, out.toByteArray());
+        }
+    }
+
+    @Test
+    public void testCloseKeepsContents() throws IOException {
+        final byte[] data = newData(UnsynchronizedByteArrayOutputStream.SEGMENT_SIZE * 2 + 1, 11);
+        final UnsynchronizedByteArrayOutputStream out = new UnsynchronizedByteArrayOutputStream();
+        try (final UnsynchronizedByteArrayOutputStream closed = out) {
+            write(closed, data);
+        }
+        assertArrayEquals(data, out.toByteArray());
+
+        final UnsynchronizedByteArrayOutputStream inner = new UnsynchronizedByteArrayOutputStream();
+        try (final Writer writer = new OutputStreamWriter(inner, StandardCharsets.US_ASCII)) {
+            writer.write("text");
+        }
+        assertEquals("text", new String(inner.toByteArray(), StandardCharsets.US_ASCII));
+        // a new pooled stream does not take the segments of the closed ones
+        final UnsynchronizedByteArrayOutputStream other = new UnsynchronizedByteArrayOutputStream();
+        write(other, newData(data.length, 12));
+        assertArrayEquals(data, out.toByteArray());
+        assertEquals("text", new String(inner.toByteArray(), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testUnpooled() throws IOException {
+        final byte[] data = newData(10000, 3);
+        final UnsynchronizedByteArrayOutputStream out = new UnsynchronizedByteArrayOutputStream(32);
+        write(out, data);
+        out.close();
+        // closing has no effect
+        assertArrayEquals(data, out.toByteArray());
+        out.reset();
+        write(out, data);
+        assertArrayEquals(data, out.toByteArray());
+    }
+
+    @Test
+    public void testRecycledSegments() throws IOException {
+        final byte[] data1 = newData(UnsynchronizedByteArrayOutputStream.SEGMENT_SIZE * 4, 4);
+        final byte[] data2 = newData(UnsynchronizedByteArrayOutputStream.SEGMENT_SIZE + 5, 5);
+        for (int i = 0; i < 3; i++) {
+            final UnsynchronizedByteArrayOutputStream out1 = new UnsynchronizedByteArrayOutputStream();
+            write(out1, data1);
+            out1.reset();
+            assertEquals(0, out1.size());
+            final UnsynchronizedByteArrayOutputStream out2 = new UnsynchronizedByteArrayOutputStream();
+            write(out2, data2);
+            assertArrayEquals(data2, out2.toByteArray());
+            out2.reset();
+            // usable after reset
+            write(out1, data2);
+            assertArrayEquals(data2, out1.toByteArray());
+            out1.reset();
+        }
+    }
+
+    @Test
+    public void testExposedSegmentsNotRecycled() throws IOException {
+        final byte[] data1 = newData(UnsynchronizedByteArrayOutputStream.SEGMENT_SIZE * 2 + 3, 6);
+        final UnsynchronizedByteArrayOutputStream out1 = new UnsynchronizedByteArrayOutputStream();
+        write(out1, data1);
+        final InputStream in = out1.toInputStream();
+        out1.reset();
+        final UnsynchronizedByteArrayOutputStream out2 = new UnsynchronizedByteArrayOutputStream();
+        write(out2, newData(data1.length, 7));
+        assertArrayEquals(data1, IOUtils.toByteArray(in));
+        out2.close();
+    }
+
+    @Test
+    public void testToBufferedInputStream() throws IOException {
+        final byte[] data = newData(20000, 8);
+        final InputStream in = UnsynchronizedByteArrayOutputStream.toBufferedInputStream(
+                new ByteArrayInputStream(data));
+        assertArrayEquals(data, IOUtils.toByteArray(in));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testWriteOutOfBounds() {
+        new UnsynchronizedByteArrayOutputStream().write(new byte[4], 2, 3);
+    }
+
+    @Test
+    public void testScatterGather() throws IOException {
+        final byte[] data = newData(UnsynchronizedByteArrayOutputStream.SEGMENT_SIZE * 2 + 11, 9);
+        final UnsynchronizedByteArrayOutputStream out = new UnsynchronizedByteArrayOutputStream();
+        write(out, data);
+        final ByteArrayOutputStreamTestCase.SlowChannel channel = new ByteArrayOutputStreamTestCase.SlowChannel();
+        assertEquals(data.length, out.writeTo(channel));
+        assertArrayEquals(data, channel.written.toByteArray());
+
+        final ByteBuffer[] buffers = out.toByteBuffers();
+        assertEquals(3, buffers.length);
+        out.reset();
+        // the exposed segments are not recycled
+        final UnsynchronizedByteArrayOutputStream out2 = new UnsynchronizedByteArrayOutputStream();
+        write(out2, newData(data.length, 10));
+        final byte[] gathered = new byte[data.length];
+        int pos = 0;
+        for (final ByteBuffer buffer : buffers) {
+            final int n = buffer.remaining();
+            buffer.get(gathered, pos, n);
+            pos += n;
+        }
+        assertArrayEquals(data, gathered);
+        out2.close();
+    }
+}
@@ -64,6 +64,24 @@ private void testWithBufferedWrite(final String testString, final String charset
         assertEquals(testString, writer.toString());
     }
 
+    private void testWithLargeWrites(final String testString, final String charsetName) throws IOException {
+        final byte[] expected = testString.getBytes(charsetName);
+        final StringBuilderWriter writer = new StringBuilderWriter();
+        final StringWriter other = new StringWriter();
+        try (final WriterOutputStream out = new WriterOutputStream(writer, charsetName);
+                final WriterOutputStream otherOut = new WriterOutputStream(other, charsetName)) {
+            int offset = 0;
+            while (offset < expected.length) {
+                final int length = Math.min(random.nextInt(3000), expected.length - offset);
+                out.write(expected, offset, length);
+                otherOut.write(expected, offset, length);
+                offset += length;
+            }
+        }
+        assertEquals(testString, writer.toString());
+        assertEquals(testString, other.toString());
+    }
+
     @Test
     public void testUTF8WithSingleByteWrite() throws IOException {
         testWithSingleByteWrite(TEST_STRING, "UTF-8");
@@ -106,6 +124,16 @@ public void testUTF16WithBufferedWrite() throws IOException {
         }
     }
 
+    @Test
+    public void testLargeUTF8WithLargeWrites() throws IOException {
+        testWithLargeWrites(LARGE_TEST_STRING, "UTF-8");
+    }
+
+    @Test
+    public void testLargeUTF16BEWithLargeWrites() throws IOException {
+        testWithLargeWrites(LARGE_TEST_STRING, "UTF-16BE");
+    }
+
     @Test
     public void testUTF16BEWithSingleByteWrite() throws IOException {
         testWithSingleByteWrite(TEST_STRING, "UTF-16BE");